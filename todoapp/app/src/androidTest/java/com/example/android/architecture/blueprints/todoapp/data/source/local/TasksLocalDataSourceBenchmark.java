@@ -0,0 +1,104 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.data.source.local;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+import com.example.android.architecture.blueprints.todoapp.data.Task;
+import com.example.android.architecture.blueprints.todoapp.data.TaskDetails;
+import com.example.android.architecture.blueprints.todoapp.util.schedulers.ImmediateSchedulerProvider;
+import io.reactivex.subscribers.TestSubscriber;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Compares refreshing 10k tasks one insert at a time with a single bulk write. Results are logged
+ * under the {@code TasksBenchmark} tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TasksLocalDataSourceBenchmark {
+
+  private static final String TAG = "TasksBenchmark";
+  private static final int TASK_COUNT = 10_000;
+
+  private TasksLocalDataSource mLocalDataSource;
+  private List<Task> mTasks;
+
+  @Before
+  public void setUp() {
+    TasksLocalDataSource.destroyInstance();
+    mLocalDataSource =
+        TasksLocalDataSource.getInstance(
+            InstrumentationRegistry.getTargetContext(), new ImmediateSchedulerProvider());
+    mLocalDataSource.deleteAllTasks();
+
+    mTasks = new ArrayList<>(TASK_COUNT);
+    for (int i = 0; i < TASK_COUNT; i++) {
+      mTasks.add(Task.create("task-" + i, TaskDetails.create("Title " + i, "Description " + i)));
+    }
+  }
+
+  @After
+  public void tearDown() {
+    mLocalDataSource.deleteAllTasks();
+    TasksLocalDataSource.destroyInstance();
+  }
+
+  @Test
+  public void refreshSavingTasksOneByOne() {
+    long start = System.nanoTime();
+    for (Task task : mTasks) {
+      mLocalDataSource.saveTask(task);
+    }
+    logDuration("saveTask x " + TASK_COUNT, start);
+  }
+
+  @Test
+  public void refreshSavingTasksInBulk() {
+    long start = System.nanoTime();
+    mLocalDataSource.saveTasks(mTasks);
+    logDuration("saveTasks(" + TASK_COUNT + ")", start);
+  }
+
+  @Test
+  public void bulkRefreshNotifiesObserversOnce() {
+    TestSubscriber<List<Task>> subscriber = mLocalDataSource.getTasks().test();
+
+    mLocalDataSource.saveTasks(mTasks);
+
+    // One emission for the initial query, one for the bulk write.
+    subscriber.assertValueCount(2);
+    assertThat(subscriber.values().get(1).size(), is(TASK_COUNT));
+    subscriber.dispose();
+  }
+
+  private static void logDuration(String operation, long startNanos) {
+    long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    Log.i(TAG, operation + " took " + millis + " ms");
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.example.android.architecture.blueprints.todoapp.data.source.local;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+import android.content.ContentValues;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import com.example.android.architecture.blueprints.todoapp.data.Task;
+import com.example.android.architecture.blueprints.todoapp.data.TaskChanges;
+import com.example.android.architecture.blueprints.todoapp.data.TaskDetails;
+import com.example.android.architecture.blueprints.todoapp.data.TaskStatistics;
+import com.example.android.architecture.blueprints.todoapp.data.TasksDelta;
+import com.example.android.architecture.blueprints.todoapp.data.TasksPage;
+import com.example.android.architecture.blueprints.todoapp.data.source.local.TasksPersistenceContract.OutboxEntry;
+import com.example.android.architecture.blueprints.todoapp.util.schedulers.ImmediateSchedulerProvider;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.reactivex.subscribers.TestSubscriber;
+import java.util.TimeZone;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(AndroidJUnit4.class)
+public class TasksLocalDataSourceTest {
+
+  private static final Task TASK_1 = Task.create("1", TaskDetails.create("T1", "D1", false));
+  private static final Task TASK_2 = Task.create("2", TaskDetails.create("T2", "D2", true));
+  private static final Task TASK_3 = Task.create("3", TaskDetails.create("T3", "D3", false));
+
+  private TasksLocalDataSource mLocalDataSource;
+
+  @Before
+  public void setUp() {
+    TasksLocalDataSource.destroyInstance();
+    mLocalDataSource =
+        TasksLocalDataSource.getInstance(
+            InstrumentationRegistry.getTargetContext(), new ImmediateSchedulerProvider());
+    mLocalDataSource.deleteAllTasks();
+  }
+
+  @After
+  public void tearDown() {
+    mLocalDataSource.getDatabase().delete(OutboxEntry.TABLE_NAME, null);
+    mLocalDataSource.deleteAllTasks();
+    TasksLocalDataSource.destroyInstance();
+  }
+
+  @Test
+  public void deletingTasksPublishesTheChange() {
+    mLocalDataSource.saveTasks(ImmutableList.of(TASK_1, TASK_2));
+    TestSubscriber<TaskChanges> changes = mLocalDataSource.getTaskChanges().test();
+
+    mLocalDataSource.deleteTasks(ImmutableList.of(TASK_1.id()));
+
+    changes.assertValueCount(1);
+    changes.dispose();
+  }
+
+  @Test
+  public void deletingUnknownTasksPublishesNothing() {
+    mLocalDataSource.saveTasks(ImmutableList.of(TASK_1));
+    TestSubscriber<TaskChanges> changes = mLocalDataSource.getTaskChanges().test();
+
+    mLocalDataSource.deleteTasks(ImmutableList.of("missing"));
+
+    changes.assertNoValues();
+    changes.dispose();
+  }
+
+  @Test
+  public void deletingTasksPublishesOnlyTheTasksThatWereStored() {
+    mLocalDataSource.saveTasks(ImmutableList.of(TASK_1, TASK_2));
+    TestSubscriber<TaskChanges> changes = mLocalDataSource.getTaskChanges().test();
+
+    mLocalDataSource.deleteTasks(ImmutableList.of(TASK_1.id(), "missing"));
+
+    changes.assertValue(c -> c.deleted().equals(ImmutableSet.of(TASK_1.id())));
+    changes.dispose();
+  }
+
+  @Test
+  public void changesSayWhatUpdatedAndDeletedTasksWereBefore() {
+    mLocalDataSource.saveTasks(ImmutableList.of(TASK_1, TASK_2));
+    TestSubscriber<TaskChanges> changes = mLocalDataSource.getTaskChanges().test();
+
+    mLocalDataSource.saveTask(TASK_1.complete());
+    mLocalDataSource.deleteTask(TASK_2.id());
+
+    assertThat(changes.values().get(0).previous().get(TASK_1.id()).completed(), is(false));
+    assertThat(changes.values().get(1).previous().get(TASK_2.id()).completed(), is(true));
+    changes.dispose();
+  }
+
+  @Test
+  public void taskStatisticsAreCountedByStorage() {
+    mLocalDataSource.saveTasks(ImmutableList.of(TASK_1, TASK_2, TASK_3));
+
+    TaskStatistics statistics = mLocalDataSource.getTaskStatistics().blockingGet();
+
+    assertThat(statistics.activeCount(), is(2));
+    assertThat(statistics.completedCount(), is(1));
+    assertThat(
+        statistics.createdOn(
+            TaskStatistics.epochDay(System.currentTimeMillis(), TimeZone.getDefault())),
+        is(3));
+  }
+
+  @Test
+  public void clearingCompletedTasksDeletesOnlyThose() {
+    mLocalDataSource.saveTasks(ImmutableList.of(TASK_1, TASK_2, TASK_3));
+    TestSubscriber<TaskChanges> changes = mLocalDataSource.getTaskChanges().test();
+
+    mLocalDataSource.clearCompletedTasks();
+
+    changes.assertValue(c -> c.deleted().equals(ImmutableSet.of(TASK_2.id())));
+    assertThat(mLocalDataSource.getTasks().blockingFirst(), contains(TASK_1, TASK_3));
+    changes.dispose();
+  }
+
+  @Test
+  public void pagingContinuesAfterThePreviousPageEndsWithADeletedTask() {
+    mLocalDataSource.saveTasks(ImmutableList.of(TASK_1, TASK_2, TASK_3));
+    TasksPage first =
+        mLocalDataSource.getVersionedTasksPage(TasksPage.START_POSITION, 2).blockingGet();
+
+    mLocalDataSource.deleteTask(TASK_2.id());
+    TasksPage second =
+        mLocalDataSource.getVersionedTasksPage(first.lastPosition(), 2).blockingGet();
+
+    assertThat(first.tasks(), contains(TASK_1, TASK_2));
+    assertThat(second.tasks(), contains(TASK_3));
+  }
+
+  @Test
+  public void pagingByStatusOnlyReadsTasksWithThatStatus() {
+    mLocalDataSource.saveTasks(ImmutableList.of(TASK_1, TASK_2, TASK_3));
+    TasksPage first =
+        mLocalDataSource
+            .getVersionedTasksPageWithStatus(false, TasksPage.START_POSITION, 1)
+            .blockingGet();
+    TasksPage second =
+        mLocalDataSource
+            .getVersionedTasksPageWithStatus(false, first.lastPosition(), 1)
+            .blockingGet();
+    TasksPage completed =
+        mLocalDataSource
+            .getVersionedTasksPageWithStatus(true, TasksPage.START_POSITION, 10)
+            .blockingGet();
+
+    assertThat(first.tasks(), contains(TASK_1));
+    assertThat(second.tasks(), contains(TASK_3));
+    assertThat(completed.tasks(), contains(TASK_2));
+  }
+
+  @Test
+  public void aCompleteDeltaDeletesTasksThatAreGoneRemotely() {
+    mLocalDataSource.saveTasks(ImmutableList.of(TASK_1, TASK_2));
+    mLocalDataSource.applyDelta(TasksDelta.allTasks(ImmutableList.of(TASK_2, TASK_3), "2"));
+
+    assertThat(mLocalDataSource.getTasks().blockingFirst(), contains(TASK_2, TASK_3));
+  }
+
+  @Test
+  public void aDeltaDoesNotOverwriteTasksWithPendingWrites() {
+    Task edited = TASK_1.complete();
+    mLocalDataSource.saveTasks(ImmutableList.of(edited, TASK_3));
+    queueRemoteWrite(edited.id());
+    queueRemoteWrite(TASK_3.id());
+
+    mLocalDataSource.applyDelta(
+        TasksDelta.create(ImmutableList.of(TASK_1), ImmutableList.of(TASK_3.id()), "2"));
+
+    assertThat(mLocalDataSource.getTasks().blockingFirst(), contains(edited, TASK_3));
+  }
+
+  private void queueRemoteWrite(String taskId) {
+    ContentValues values = new ContentValues();
+    values.put(OutboxEntry.COLUMN_NAME_TASK_ID, taskId);
+    values.put(OutboxEntry.COLUMN_NAME_OPERATION, OutboxEntry.OPERATION_SAVE);
+    mLocalDataSource.getDatabase().insert(OutboxEntry.TABLE_NAME, values);
+  }
+}
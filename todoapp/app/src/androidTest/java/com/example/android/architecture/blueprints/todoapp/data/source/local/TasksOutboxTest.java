@@ -0,0 +1,209 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.data.source.local;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import com.example.android.architecture.blueprints.todoapp.data.Task;
+import com.example.android.architecture.blueprints.todoapp.data.TaskDetails;
+import com.example.android.architecture.blueprints.todoapp.data.TasksDelta;
+import com.example.android.architecture.blueprints.todoapp.data.source.TasksDataSource;
+import com.example.android.architecture.blueprints.todoapp.data.source.TasksSyncDataSource;
+import com.example.android.architecture.blueprints.todoapp.util.schedulers.ImmediateSchedulerProvider;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import io.reactivex.Flowable;
+import io.reactivex.schedulers.TestScheduler;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(AndroidJUnit4.class)
+public class TasksOutboxTest {
+
+  private static final Task TASK_1 = Task.create("1", TaskDetails.create("T1", "D1", false));
+  private static final Task TASK_2 = Task.create("2", TaskDetails.create("T2", "D2", false));
+
+  private TasksLocalDataSource mLocalDataSource;
+  private RecordingRemote mRemote;
+  private TestScheduler mScheduler;
+  private TasksOutbox mOutbox;
+
+  @Before
+  public void setUp() {
+    TasksLocalDataSource.destroyInstance();
+    mLocalDataSource =
+        TasksLocalDataSource.getInstance(
+            InstrumentationRegistry.getTargetContext(), new ImmediateSchedulerProvider());
+    mRemote = new RecordingRemote();
+    mScheduler = new TestScheduler();
+    mOutbox = new TasksOutbox(mRemote, mLocalDataSource.getDatabase(), mScheduler);
+    mOutbox.deleteAllTasks();
+  }
+
+  @After
+  public void tearDown() {
+    mOutbox.deleteAllTasks();
+    TasksLocalDataSource.destroyInstance();
+  }
+
+  @Test
+  public void pendingWritesForTheSameTaskAreCollapsed() {
+    Task task = TASK_1;
+    for (int i = 0; i < 10; i++) {
+      task = i % 2 == 0 ? task.complete() : task.activate();
+      mOutbox.saveTask(task);
+    }
+    mScheduler.triggerActions();
+
+    assertThat(mRemote.saveCalls, is(1));
+    assertThat(mRemote.saved, contains(task));
+  }
+
+  @Test
+  public void aDeleteReplacesAPendingSave() {
+    mOutbox.saveTask(TASK_1);
+    mOutbox.saveTask(TASK_2);
+    mOutbox.deleteTask(TASK_1.id());
+    mScheduler.triggerActions();
+
+    assertThat(mRemote.saved, contains(TASK_2));
+    assertThat(mRemote.deleted, contains(TASK_1.id()));
+  }
+
+  @Test
+  public void clearingCompletedTasksQueuesADeleteForEachOne() {
+    mLocalDataSource.deleteAllTasks();
+    mLocalDataSource.saveTasks(ImmutableList.of(TASK_1, TASK_2.complete()));
+
+    mOutbox.clearCompletedTasks();
+    mScheduler.triggerActions();
+
+    assertThat(mRemote.deleted, contains(TASK_2.id()));
+    mLocalDataSource.deleteAllTasks();
+  }
+
+  @Test
+  public void failedFlushesAreRetriedWithBackoff() {
+    mRemote.failuresLeft = 2;
+    mOutbox.saveTask(TASK_1);
+
+    mScheduler.triggerActions();
+    assertThat(mRemote.saved.isEmpty(), is(true));
+
+    mScheduler.advanceTimeBy(TasksOutbox.INITIAL_BACKOFF_MILLIS, TimeUnit.MILLISECONDS);
+    assertThat(mRemote.saved.isEmpty(), is(true));
+
+    // The second retry waits twice as long as the first.
+    mScheduler.advanceTimeBy(TasksOutbox.INITIAL_BACKOFF_MILLIS, TimeUnit.MILLISECONDS);
+    assertThat(mRemote.saved.isEmpty(), is(true));
+    mScheduler.advanceTimeBy(TasksOutbox.INITIAL_BACKOFF_MILLIS, TimeUnit.MILLISECONDS);
+    assertThat(mRemote.saved, contains(TASK_1));
+  }
+
+  @Test
+  public void queuedWritesSurviveARestart() {
+    mRemote.failuresLeft = 1;
+    mOutbox.saveTask(TASK_1);
+    mScheduler.triggerActions();
+
+    TasksOutbox restarted = new TasksOutbox(mRemote, mLocalDataSource.getDatabase(), mScheduler);
+    mScheduler.triggerActions();
+
+    assertThat(mRemote.saved, contains(TASK_1));
+    restarted.deleteAllTasks();
+  }
+
+  @Test
+  public void syncingSendsPendingWritesFirst() {
+    mOutbox.saveTask(TASK_1);
+    mOutbox.getTasksChangedSince(null).blockingFirst();
+
+    assertThat(mRemote.saved, contains(TASK_1));
+  }
+
+  private static class RecordingRemote implements TasksDataSource, TasksSyncDataSource {
+    final List<Task> saved = new ArrayList<>();
+    final List<String> deleted = new ArrayList<>();
+    int saveCalls;
+    int failuresLeft;
+
+    @Override
+    public Flowable<List<Task>> getTasks() {
+      return Flowable.just(saved);
+    }
+
+    @Override
+    public Flowable<TasksDelta> getTasksChangedSince(@Nullable String syncToken) {
+      return Flowable.just(TasksDelta.create(saved, deleted, "1"));
+    }
+
+    @Override
+    public Flowable<Optional<Task>> getTask(@NonNull String taskId) {
+      return Flowable.just(Optional.absent());
+    }
+
+    @Override
+    public void saveTask(@NonNull Task task) {
+      saveTasks(ImmutableList.of(task));
+    }
+
+    @Override
+    public void saveTasks(@NonNull Collection<Task> tasks) {
+      if (failuresLeft > 0) {
+        failuresLeft--;
+        throw new RuntimeException("Remote unavailable");
+      }
+      saveCalls++;
+      saved.addAll(tasks);
+    }
+
+    @Override
+    public void deleteAllTasks() {
+      saved.clear();
+      deleted.clear();
+    }
+
+    @Override
+    public void clearCompletedTasks() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void deleteTask(@NonNull String taskId) {
+      deleteTasks(ImmutableList.of(taskId));
+    }
+
+    @Override
+    public void deleteTasks(@NonNull Collection<String> taskIds) {
+      deleted.addAll(taskIds);
+    }
+  }
+}
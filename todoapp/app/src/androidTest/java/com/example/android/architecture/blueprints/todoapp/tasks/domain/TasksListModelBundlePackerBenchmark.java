@@ -0,0 +1,116 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.tasks.domain;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import android.os.Bundle;
+import android.os.Parcel;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+import com.example.android.architecture.blueprints.todoapp.data.Task;
+import com.example.android.architecture.blueprints.todoapp.data.TaskBundlePacker;
+import com.example.android.architecture.blueprints.todoapp.data.TaskDetails;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Compares saving 10k tasks as a bundle per task, as the packer used to, with the encoded task
+ * list it uses now. Both the time to pack and parcel the state and the parcel size are logged
+ * under the {@code TasksBenchmark} tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TasksListModelBundlePackerBenchmark {
+
+  private static final String TAG = "TasksBenchmark";
+  private static final int TASK_COUNT = 10_000;
+
+  private TasksListModel mModel;
+
+  @Before
+  public void setUp() {
+    List<Task> tasks = new ArrayList<>(TASK_COUNT);
+    for (int i = 0; i < TASK_COUNT; i++) {
+      TaskDetails details = TaskDetails.create("Title " + i, "Description " + i, i % 2 == 0);
+      tasks.add(Task.create("task-" + i, details));
+    }
+    mModel = TasksListModel.DEFAULT.withTasks(tasks);
+  }
+
+  @Test
+  public void savingABundlePerTask() {
+    long start = System.nanoTime();
+    Bundle bundle = new Bundle();
+    ArrayList<Bundle> taskBundles = new ArrayList<>();
+    for (Task task : mModel.tasks()) {
+      taskBundles.add(TaskBundlePacker.taskToBundle(task));
+    }
+    bundle.putParcelableArrayList("model_tasks", taskBundles);
+    int size = parcelledSize(bundle);
+    logResult("bundle per task", start, size);
+  }
+
+  @Test
+  public void savingTheEncodedTaskList() {
+    long start = System.nanoTime();
+    Bundle bundle = TasksListModelBundlePacker.tasksListModelToBundle(mModel);
+    int size = parcelledSize(bundle);
+    logResult("encoded task list", start, size);
+  }
+
+  @Test
+  public void restoringTheEncodedTaskList() {
+    Bundle bundle = TasksListModelBundlePacker.tasksListModelToBundle(mModel);
+
+    long start = System.nanoTime();
+    TasksListModel restored = TasksListModelBundlePacker.tasksListModelFromBundle(bundle);
+    logResult("restoring the encoded task list", start, parcelledSize(bundle));
+
+    assertThat(restored.tasks(), is(mModel.tasks()));
+  }
+
+  @Test
+  public void theEncodedTaskListFitsWellWithinABinderTransaction() {
+    // Binder transactions are limited to 1MB, shared by everything in flight for the process.
+    assertThat(
+        parcelledSize(TasksListModelBundlePacker.tasksListModelToBundle(mModel)),
+        lessThan(512 * 1024));
+  }
+
+  private static int parcelledSize(Bundle bundle) {
+    Parcel parcel = Parcel.obtain();
+    try {
+      parcel.writeBundle(bundle);
+      return parcel.dataSize();
+    } finally {
+      parcel.recycle();
+    }
+  }
+
+  private static void logResult(String operation, long startNanos, int sizeBytes) {
+    long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    Log.i(TAG, operation + " took " + millis + " ms for " + sizeBytes + " bytes");
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp;
+
+import android.app.Application;
+import com.example.android.architecture.blueprints.todoapp.data.source.local.TaskStatisticsAggregator;
+import com.example.android.architecture.blueprints.todoapp.data.source.local.TasksLocalDataSource;
+import com.example.android.architecture.blueprints.todoapp.util.schedulers.SchedulerProvider;
+
+public class TodoApplication extends Application {
+
+  @Override
+  public void onCreate() {
+    super.onCreate();
+    // Started here so that the statistics follow every write, whichever screen makes it.
+    TaskStatisticsAggregator.getInstance(
+        TasksLocalDataSource.getInstance(this, SchedulerProvider.getInstance()),
+        SchedulerProvider.getInstance());
+  }
+}
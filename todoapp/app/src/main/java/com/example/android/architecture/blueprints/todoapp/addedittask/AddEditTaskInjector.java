@@ -22,8 +22,8 @@ import com.example.android.architecture.blueprints.todoapp.addedittask.domain.Ad
 import com.example.android.architecture.blueprints.todoapp.addedittask.domain.AddEditTaskEvent;
 import com.example.android.architecture.blueprints.todoapp.addedittask.domain.AddEditTaskLogic;
 import com.example.android.architecture.blueprints.todoapp.addedittask.domain.AddEditTaskModel;
+import com.example.android.architecture.blueprints.todoapp.util.MetricsLogger;
 import com.spotify.mobius.MobiusLoop;
-import com.spotify.mobius.android.AndroidLogger;
 import com.spotify.mobius.android.MobiusAndroid;
 import com.spotify.mobius.rx2.RxMobius;
 import io.reactivex.ObservableTransformer;
@@ -42,6 +42,6 @@ public class AddEditTaskInjector {
       createLoop(ObservableTransformer<AddEditTaskEffect, AddEditTaskEvent> effectHandlers) {
 
     return RxMobius.loop(AddEditTaskLogic::update, effectHandlers)
-        .logger(AndroidLogger.tag("Add/Edit Tasks"));
+        .logger(MetricsLogger.tag("Add/Edit Tasks"));
   }
 }
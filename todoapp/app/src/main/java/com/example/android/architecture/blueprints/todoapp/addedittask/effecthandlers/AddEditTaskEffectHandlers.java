@@ -32,7 +32,9 @@ import com.example.android.architecture.blueprints.todoapp.addedittask.domain.Ad
 import com.example.android.architecture.blueprints.todoapp.addedittask.domain.AddEditTaskEvent;
 import com.example.android.architecture.blueprints.todoapp.data.Task;
 import com.example.android.architecture.blueprints.todoapp.data.source.TasksDataSource;
+import com.example.android.architecture.blueprints.todoapp.data.source.TasksRepository;
 import com.example.android.architecture.blueprints.todoapp.data.source.local.TasksLocalDataSource;
+import com.example.android.architecture.blueprints.todoapp.data.source.local.TasksOutbox;
 import com.example.android.architecture.blueprints.todoapp.data.source.remote.TasksRemoteDataSource;
 import com.example.android.architecture.blueprints.todoapp.util.schedulers.SchedulerProvider;
 import com.spotify.mobius.rx2.RxMobius;
@@ -45,26 +47,28 @@ public class AddEditTaskEffectHandlers {
 
   public static ObservableTransformer<AddEditTaskEffect, AddEditTaskEvent> createEffectHandlers(
       Context context, Action showTasksList, Action showEmptyTaskError) {
-    TasksRemoteDataSource remoteSource = TasksRemoteDataSource.getInstance();
     TasksLocalDataSource localSource =
         TasksLocalDataSource.getInstance(context, SchedulerProvider.getInstance());
+    TasksRepository repository =
+        TasksRepository.getInstance(
+            TasksOutbox.getInstance(
+                TasksRemoteDataSource.getInstance(), localSource, SchedulerProvider.getInstance()),
+            localSource);
 
     return RxMobius.<AddEditTaskEffect, AddEditTaskEvent>subtypeEffectHandler()
         .addAction(NotifyEmptyTaskNotAllowed.class, showEmptyTaskError, mainThread())
         .addAction(Exit.class, showTasksList, mainThread())
-        .addFunction(CreateTask.class, createTaskHandler(remoteSource, localSource))
-        .addFunction(SaveTask.class, saveTaskHandler(remoteSource, localSource))
+        .addFunction(CreateTask.class, createTaskHandler(repository))
+        .addFunction(SaveTask.class, saveTaskHandler(repository))
         .build();
   }
 
-  static Function<CreateTask, AddEditTaskEvent> createTaskHandler(
-      TasksDataSource remoteSource, TasksDataSource localSource) {
+  static Function<CreateTask, AddEditTaskEvent> createTaskHandler(TasksDataSource dataSource) {
 
     return createTaskEffect -> {
       Task task = Task.create(UUID.randomUUID().toString(), createTaskEffect.taskDetails());
       try {
-        remoteSource.saveTask(task);
-        localSource.saveTask(task);
+        dataSource.saveTask(task);
         return taskCreatedSuccessfully();
       } catch (Exception e) {
         return taskCreationFailed("Failed to create task");
@@ -72,12 +76,10 @@ public class AddEditTaskEffectHandlers {
     };
   }
 
-  static Function<SaveTask, AddEditTaskEvent> saveTaskHandler(
-      TasksDataSource remoteSource, TasksDataSource localSource) {
+  static Function<SaveTask, AddEditTaskEvent> saveTaskHandler(TasksDataSource dataSource) {
     return saveTasks -> {
       try {
-        remoteSource.saveTask(saveTasks.task());
-        localSource.saveTask(saveTasks.task());
+        dataSource.saveTask(saveTasks.task());
         return taskUpdatedSuccessfully();
       } catch (Exception e) {
         return taskCreationFailed("Failed to update task");
@@ -0,0 +1,86 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.data;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A set of row-level changes made to the stored tasks by a single write. If {@link #allDeleted()}
+ * is true, every task that existed before the write was deleted.
+ *
+ * <p>{@link #previous()} holds what the updated and deleted tasks were before the write, so that
+ * aggregates over the stored tasks can be kept without holding every task.
+ */
+@AutoValue
+public abstract class TaskChanges {
+
+  public abstract ImmutableList<Task> inserted();
+
+  public abstract ImmutableList<Task> updated();
+
+  public abstract ImmutableSet<String> deleted();
+
+  public abstract boolean allDeleted();
+
+  /** The stored state before the write of updated and deleted tasks, by id, where it was read. */
+  public abstract ImmutableMap<String, TaskSummary> previous();
+
+  public boolean isEmpty() {
+    return inserted().isEmpty() && updated().isEmpty() && deleted().isEmpty() && !allDeleted();
+  }
+
+  public static TaskChanges create(
+      Collection<Task> inserted,
+      Collection<Task> updated,
+      Collection<String> deleted,
+      boolean allDeleted) {
+    return create(inserted, updated, deleted, allDeleted, ImmutableMap.of());
+  }
+
+  public static TaskChanges create(
+      Collection<Task> inserted,
+      Collection<Task> updated,
+      Collection<String> deleted,
+      boolean allDeleted,
+      Map<String, TaskSummary> previous) {
+    return new AutoValue_TaskChanges(
+        ImmutableList.copyOf(inserted),
+        ImmutableList.copyOf(updated),
+        ImmutableSet.copyOf(deleted),
+        allDeleted,
+        ImmutableMap.copyOf(previous));
+  }
+
+  public static TaskChanges saved(Collection<Task> inserted, Collection<Task> updated) {
+    return create(inserted, updated, ImmutableSet.of(), false);
+  }
+
+  public static TaskChanges deleted(Collection<String> taskIds) {
+    return create(ImmutableList.of(), ImmutableList.of(), taskIds, false);
+  }
+
+  public static TaskChanges allTasksDeleted() {
+    return create(ImmutableList.of(), ImmutableList.of(), ImmutableSet.of(), true);
+  }
+}
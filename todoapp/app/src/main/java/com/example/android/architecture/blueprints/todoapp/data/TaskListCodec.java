@@ -0,0 +1,145 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.data;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+
+/**
+ * Encodes a list of tasks into a single byte array, for saved state. The encoding is columnar:
+ * every id, then every title, then every description, each as a length-prefixed UTF-8 string,
+ * followed by a bitset of which tasks are completed. That is far smaller and faster to write than
+ * a bundle per task, and a parcel holding it is a single copy of the array.
+ */
+public final class TaskListCodec {
+
+  private static final int FORMAT_VERSION = 1;
+
+  private TaskListCodec() {}
+
+  public static byte[] encode(List<Task> tasks) {
+    int count = tasks.size();
+    byte[][] strings = new byte[count * 3][];
+    int size = varIntSize(FORMAT_VERSION) + varIntSize(count) + (count + 7) / 8;
+    for (int i = 0; i < count; i++) {
+      TaskDetails details = tasks.get(i).details();
+      strings[i] = tasks.get(i).id().getBytes(Charsets.UTF_8);
+      strings[count + i] = details.title().getBytes(Charsets.UTF_8);
+      strings[2 * count + i] = details.description().getBytes(Charsets.UTF_8);
+    }
+    for (byte[] string : strings) {
+      size += varIntSize(string.length) + string.length;
+    }
+
+    byte[] out = new byte[size];
+    int position = writeVarInt(out, 0, FORMAT_VERSION);
+    position = writeVarInt(out, position, count);
+    for (byte[] string : strings) {
+      position = writeVarInt(out, position, string.length);
+      System.arraycopy(string, 0, out, position, string.length);
+      position += string.length;
+    }
+    for (int i = 0; i < count; i++) {
+      if (tasks.get(i).details().completed()) {
+        out[position + i / 8] |= 1 << (i % 8);
+      }
+    }
+    return out;
+  }
+
+  /** @throws IllegalArgumentException if the bytes were not produced by {@link #encode}. */
+  public static ImmutableList<Task> decode(byte[] bytes) {
+    try {
+      Reader reader = new Reader(bytes);
+      checkArgument(reader.readVarInt() == FORMAT_VERSION, "Unknown task list format");
+      int count = reader.readVarInt();
+      // Each task takes at least three bytes, which bounds what is allocated for corrupt input.
+      checkArgument(count >= 0 && count <= bytes.length / 3, "Truncated task list");
+      String[] strings = new String[count * 3];
+      for (int i = 0; i < strings.length; i++) {
+        strings[i] = reader.readString();
+      }
+      Task[] tasks = new Task[count];
+      for (int i = 0; i < count; i++) {
+        boolean completed = (reader.byteAt(i / 8) & (1 << (i % 8))) != 0;
+        TaskDetails details =
+            TaskDetails.create(strings[count + i], strings[2 * count + i], completed);
+        tasks[i] = Task.create(strings[i], details);
+      }
+      return ImmutableList.copyOf(tasks);
+    } catch (ArrayIndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("Truncated task list", e);
+    }
+  }
+
+  private static int varIntSize(int value) {
+    int size = 1;
+    while ((value & ~0x7f) != 0) {
+      value >>>= 7;
+      size++;
+    }
+    return size;
+  }
+
+  private static int writeVarInt(byte[] out, int position, int value) {
+    while ((value & ~0x7f) != 0) {
+      out[position++] = (byte) ((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    out[position++] = (byte) value;
+    return position;
+  }
+
+  private static final class Reader {
+    private final byte[] mBytes;
+    private int mPosition;
+
+    Reader(byte[] bytes) {
+      mBytes = bytes;
+    }
+
+    int readVarInt() {
+      int value = 0;
+      for (int shift = 0; shift < 32; shift += 7) {
+        byte b = mBytes[mPosition++];
+        value |= (b & 0x7f) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new IllegalArgumentException("Malformed length");
+    }
+
+    String readString() {
+      int length = readVarInt();
+      checkArgument(length >= 0 && length <= mBytes.length - mPosition, "Truncated task list");
+      String string = new String(mBytes, mPosition, length, Charsets.UTF_8);
+      mPosition += length;
+      return string;
+    }
+
+    // Relative to the current position.
+    byte byteAt(int offset) {
+      return mBytes[mPosition + offset];
+    }
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.data;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.support.v4.util.LruCache;
+
+/**
+ * Holds tasks that are about to be opened, so that the screen opening them can start from memory
+ * and only needs their id in its arguments. Each task is handed out once; a screen that is
+ * recreated restores from its saved state instead.
+ */
+public class TaskPrefetchCache {
+
+  @VisibleForTesting static final int MAX_SIZE = 8;
+
+  @Nullable private static TaskPrefetchCache INSTANCE;
+
+  // A few rows may be touched before one is opened; older ones are unlikely to be opened.
+  private final LruCache<String, Task> mTasks = new LruCache<>(MAX_SIZE);
+
+  @VisibleForTesting
+  TaskPrefetchCache() {}
+
+  public static TaskPrefetchCache getInstance() {
+    if (INSTANCE == null) {
+      INSTANCE = new TaskPrefetchCache();
+    }
+    return INSTANCE;
+  }
+
+  public static void destroyInstance() {
+    INSTANCE = null;
+  }
+
+  public void put(@NonNull Task task) {
+    checkNotNull(task);
+    mTasks.put(task.id(), task);
+  }
+
+  /** Removes and returns the prefetched task with the given id, or null if there is none. */
+  @Nullable
+  public Task take(@NonNull String taskId) {
+    return mTasks.remove(checkNotNull(taskId));
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.data;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableSortedMap;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregate statistics over all stored tasks. Days are numbered from the epoch in the local time
+ * zone, see {@link #epochDay}.
+ */
+@AutoValue
+public abstract class TaskStatistics {
+
+  public static final TaskStatistics EMPTY = create(0, 0, ImmutableSortedMap.of());
+
+  public abstract int activeCount();
+
+  public abstract int completedCount();
+
+  /** Number of existing tasks created on each day, omitting days with none. */
+  public abstract ImmutableSortedMap<Long, Integer> createdPerDay();
+
+  public int totalCount() {
+    return activeCount() + completedCount();
+  }
+
+  /** The fraction of tasks that are completed, or 0 if there are no tasks. */
+  public float completionRatio() {
+    int total = totalCount();
+    return total == 0 ? 0f : (float) completedCount() / total;
+  }
+
+  public int createdOn(long epochDay) {
+    Integer count = createdPerDay().get(epochDay);
+    return count == null ? 0 : count;
+  }
+
+  public static long epochDay(long timeMillis, TimeZone timeZone) {
+    return TimeUnit.MILLISECONDS.toDays(timeMillis + timeZone.getOffset(timeMillis));
+  }
+
+  public static TaskStatistics create(
+      int activeCount, int completedCount, Map<Long, Integer> createdPerDay) {
+    return new AutoValue_TaskStatistics(
+        activeCount, completedCount, ImmutableSortedMap.copyOf(createdPerDay));
+  }
+}
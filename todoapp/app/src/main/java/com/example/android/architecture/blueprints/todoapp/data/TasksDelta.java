@@ -0,0 +1,51 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.data;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.Collection;
+
+/**
+ * The tasks that were changed or deleted on the server since a sync token, along with the token to
+ * use for the next sync. A complete delta holds every task on the server, and no deletions.
+ */
+@AutoValue
+public abstract class TasksDelta {
+
+  public abstract ImmutableList<Task> changed();
+
+  public abstract ImmutableSet<String> deleted();
+
+  public abstract String syncToken();
+
+  public abstract boolean complete();
+
+  public static TasksDelta create(
+      Collection<Task> changed, Collection<String> deleted, String syncToken) {
+    return new AutoValue_TasksDelta(
+        ImmutableList.copyOf(changed), ImmutableSet.copyOf(deleted), syncToken, false);
+  }
+
+  public static TasksDelta allTasks(Collection<Task> tasks, String syncToken) {
+    return new AutoValue_TasksDelta(
+        ImmutableList.copyOf(tasks), ImmutableSet.of(), syncToken, true);
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.data;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import java.util.Collection;
+
+/** A page of stored tasks, along with the version of the stored data it was read at. */
+@AutoValue
+public abstract class TasksPage {
+
+  /** The version of data that can't be tied to a single version of the stored tasks. */
+  public static final long NO_VERSION = -1;
+
+  /** The position to read after to get the first page. */
+  public static final long START_POSITION = 0;
+
+  public abstract ImmutableList<Task> tasks();
+
+  /**
+   * Increases with every write to the stored tasks, so two reads of the same page at the same
+   * version return the same tasks.
+   */
+  public abstract long dataVersion();
+
+  /**
+   * The storage position of the last task in the page, to read the next page after. Unlike a task
+   * id, it stays valid if that task is deleted. If the page is empty, this is the position it was
+   * read after.
+   */
+  public abstract long lastPosition();
+
+  public static TasksPage create(Collection<Task> tasks, long dataVersion, long lastPosition) {
+    return new AutoValue_TasksPage(ImmutableList.copyOf(tasks), dataVersion, lastPosition);
+  }
+}
@@ -20,6 +20,7 @@ import android.support.annotation.NonNull;
 import com.example.android.architecture.blueprints.todoapp.data.Task;
 import com.google.common.base.Optional;
 import io.reactivex.Flowable;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -35,7 +36,16 @@ public interface TasksDataSource {
 
   void saveTask(@NonNull Task task);
 
+  /** Saves all {@code tasks} as a single write, replacing any existing tasks with the same ids. */
+  void saveTasks(@NonNull Collection<Task> tasks);
+
   void deleteAllTasks();
 
+  /** Deletes every completed task as a single write. */
+  void clearCompletedTasks();
+
   void deleteTask(@NonNull String taskId);
+
+  /** Deletes all tasks with the given ids as a single write. */
+  void deleteTasks(@NonNull Collection<String> taskIds);
 }
@@ -0,0 +1,330 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.data.source;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import com.example.android.architecture.blueprints.todoapp.data.Task;
+import com.example.android.architecture.blueprints.todoapp.data.TaskChanges;
+import com.example.android.architecture.blueprints.todoapp.data.TasksPage;
+import com.example.android.architecture.blueprints.todoapp.data.source.local.TasksLocalDataSource;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tasks data source shared by all screens. Writes go through to both the remote and the local data
+ * source, while reads are served from an in-memory cache of tasks by id when possible.
+ *
+ * <p>The cache is kept up to date from the local data source's change feed, so it also sees writes
+ * that bypass the repository, such as refreshes from the remote data source. Pages read through
+ * the repository are added to it as well. It holds at most {@code maxCachedTasks} tasks; as long as
+ * every stored task fits, whole-table reads are served from memory too. Paged reads always go to
+ * the local data source, since only storage can say which data version a page was read at.
+ */
+public class TasksRepository implements TasksDataSource, VersionedTasksDataSource {
+
+  public enum EvictionPolicy {
+    /** Evicts the task that was least recently read or written. */
+    LRU,
+    /** Evicts the task that was first added to the cache. */
+    FIFO
+  }
+
+  public static final int DEFAULT_MAX_CACHED_TASKS = 10_000;
+
+  @Nullable private static TasksRepository INSTANCE;
+
+  @NonNull private final TasksDataSource mRemoteSource;
+
+  @NonNull private final TasksDataSource mLocalSource;
+
+  @NonNull private final VersionedTasksDataSource mLocalPages;
+
+  @NonNull private final Flowable<TaskChanges> mLocalChanges;
+
+  @NonNull private final Disposable mChangesSubscription;
+
+  private final int mMaxCachedTasks;
+
+  @NonNull private final Object mLock = new Object();
+
+  // Guarded by mLock.
+  @NonNull private final Map<String, Task> mCachedTasks;
+
+  // Every stored task in storage order, or null if that isn't known. Guarded by mLock.
+  @Nullable private Map<String, Task> mAllTasks;
+
+  // Incremented for every applied change, so that reads can tell whether they raced with a write.
+  // Guarded by mLock, as are the counters below.
+  private long mVersion;
+
+  private long mHits;
+  private long mMisses;
+
+  @VisibleForTesting
+  TasksRepository(
+      @NonNull TasksDataSource remoteSource,
+      @NonNull TasksDataSource localSource,
+      @NonNull VersionedTasksDataSource localPages,
+      @NonNull Flowable<TaskChanges> localChanges,
+      int maxCachedTasks,
+      @NonNull EvictionPolicy evictionPolicy) {
+    checkArgument(maxCachedTasks > 0, "maxCachedTasks must be positive");
+    mRemoteSource = checkNotNull(remoteSource);
+    mLocalSource = checkNotNull(localSource);
+    mLocalPages = checkNotNull(localPages);
+    mLocalChanges = checkNotNull(localChanges);
+    mMaxCachedTasks = maxCachedTasks;
+    mCachedTasks =
+        new LinkedHashMap<String, Task>(16, 0.75f, evictionPolicy == EvictionPolicy.LRU) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Task> eldest) {
+            if (size() <= mMaxCachedTasks) return false;
+            mAllTasks = null;
+            return true;
+          }
+        };
+    mChangesSubscription = mLocalChanges.subscribe(this::applyChanges);
+  }
+
+  public static TasksRepository getInstance(
+      @NonNull TasksDataSource remoteSource, @NonNull TasksLocalDataSource localSource) {
+    return getInstance(remoteSource, localSource, DEFAULT_MAX_CACHED_TASKS, EvictionPolicy.LRU);
+  }
+
+  public static TasksRepository getInstance(
+      @NonNull TasksDataSource remoteSource,
+      @NonNull TasksLocalDataSource localSource,
+      int maxCachedTasks,
+      @NonNull EvictionPolicy evictionPolicy) {
+    if (INSTANCE == null) {
+      INSTANCE =
+          new TasksRepository(
+              remoteSource,
+              localSource,
+              localSource,
+              localSource.getTaskChanges(),
+              maxCachedTasks,
+              evictionPolicy);
+    }
+    return INSTANCE;
+  }
+
+  public static void destroyInstance() {
+    if (INSTANCE != null) {
+      INSTANCE.mChangesSubscription.dispose();
+    }
+    INSTANCE = null;
+  }
+
+  /** Returns the changes made to the stored tasks; see {@link TasksLocalDataSource}. */
+  public Flowable<TaskChanges> getTaskChanges() {
+    return mLocalChanges;
+  }
+
+  public long getCacheHits() {
+    synchronized (mLock) {
+      return mHits;
+    }
+  }
+
+  public long getCacheMisses() {
+    synchronized (mLock) {
+      return mMisses;
+    }
+  }
+
+  @Override
+  public Flowable<List<Task>> getTasks() {
+    long version;
+    synchronized (mLock) {
+      if (mAllTasks != null) {
+        mHits++;
+        return Flowable.just(ImmutableList.copyOf(mAllTasks.values()));
+      }
+      mMisses++;
+      version = mVersion;
+    }
+    return mLocalSource.getTasks().take(1).doOnNext(tasks -> onAllTasksLoaded(tasks, version));
+  }
+
+  @Override
+  public Flowable<Optional<Task>> getTask(@NonNull String taskId) {
+    checkNotNull(taskId);
+    long version;
+    synchronized (mLock) {
+      Task task = mCachedTasks.get(taskId);
+      if (task != null || mAllTasks != null) {
+        mHits++;
+        return Flowable.just(Optional.fromNullable(task));
+      }
+      mMisses++;
+      version = mVersion;
+    }
+    return mLocalSource
+        .getTask(taskId)
+        .take(1)
+        .doOnNext(
+            task -> {
+              if (task.isPresent()) cacheTasks(ImmutableList.of(task.get()), version);
+            });
+  }
+
+  /**
+   * Returns the task with the given id if it is in memory, without reading storage, or null if it
+   * isn't.
+   */
+  @Nullable
+  public Task getCachedTask(@NonNull String taskId) {
+    checkNotNull(taskId);
+    synchronized (mLock) {
+      Task task = mCachedTasks.get(taskId);
+      if (task != null) {
+        mHits++;
+      } else {
+        mMisses++;
+      }
+      return task;
+    }
+  }
+
+  @Override
+  public Single<TasksPage> getVersionedTasksPage(long afterPosition, int limit) {
+    long version = currentVersion();
+    return mLocalPages
+        .getVersionedTasksPage(afterPosition, limit)
+        .doOnSuccess(
+            page -> {
+              if (afterPosition == TasksPage.START_POSITION && page.tasks().size() < limit) {
+                // The first page wasn't full, so it holds every stored task.
+                onAllTasksLoaded(page.tasks(), version);
+              } else {
+                cacheTasks(page.tasks(), version);
+              }
+            });
+  }
+
+  @Override
+  public Single<TasksPage> getVersionedTasksPageWithStatus(
+      boolean completed, long afterPosition, int limit) {
+    long version = currentVersion();
+    return mLocalPages
+        .getVersionedTasksPageWithStatus(completed, afterPosition, limit)
+        .doOnSuccess(page -> cacheTasks(page.tasks(), version));
+  }
+
+  @Override
+  public void saveTask(@NonNull Task task) {
+    mRemoteSource.saveTask(task);
+    mLocalSource.saveTask(task);
+  }
+
+  @Override
+  public void saveTasks(@NonNull Collection<Task> tasks) {
+    mRemoteSource.saveTasks(tasks);
+    mLocalSource.saveTasks(tasks);
+  }
+
+  @Override
+  public void deleteAllTasks() {
+    mRemoteSource.deleteAllTasks();
+    mLocalSource.deleteAllTasks();
+  }
+
+  /** Queues the remote deletes before local storage drops the tasks they are read from. */
+  @Override
+  public void clearCompletedTasks() {
+    mRemoteSource.clearCompletedTasks();
+    mLocalSource.clearCompletedTasks();
+  }
+
+  @Override
+  public void deleteTask(@NonNull String taskId) {
+    mRemoteSource.deleteTask(taskId);
+    mLocalSource.deleteTask(taskId);
+  }
+
+  @Override
+  public void deleteTasks(@NonNull Collection<String> taskIds) {
+    mRemoteSource.deleteTasks(taskIds);
+    mLocalSource.deleteTasks(taskIds);
+  }
+
+  private long currentVersion() {
+    synchronized (mLock) {
+      return mVersion;
+    }
+  }
+
+  private void applyChanges(TaskChanges changes) {
+    synchronized (mLock) {
+      mVersion++;
+      if (changes.allDeleted()) {
+        mCachedTasks.clear();
+        mAllTasks = new LinkedHashMap<>();
+      }
+      for (String taskId : changes.deleted()) {
+        mCachedTasks.remove(taskId);
+        if (mAllTasks != null) mAllTasks.remove(taskId);
+      }
+      for (Task task : changes.updated()) {
+        mCachedTasks.put(task.id(), task);
+        if (mAllTasks != null) mAllTasks.put(task.id(), task);
+      }
+      for (Task task : changes.inserted()) {
+        mCachedTasks.put(task.id(), task);
+        if (mAllTasks != null) mAllTasks.put(task.id(), task);
+      }
+    }
+  }
+
+  private void onAllTasksLoaded(List<Task> tasks, long version) {
+    synchronized (mLock) {
+      cacheTasks(tasks, version);
+      if (version == mVersion && tasks.size() <= mMaxCachedTasks) {
+        Map<String, Task> allTasks = new LinkedHashMap<>();
+        for (Task task : tasks) {
+          allTasks.put(task.id(), task);
+        }
+        mAllTasks = allTasks;
+      }
+    }
+  }
+
+  private void cacheTasks(List<Task> tasks, long version) {
+    synchronized (mLock) {
+      // A write that landed after the read started may have made tasks stale.
+      if (version != mVersion) return;
+      for (Task task : tasks) {
+        mCachedTasks.put(task.id(), task);
+      }
+    }
+  }
+}
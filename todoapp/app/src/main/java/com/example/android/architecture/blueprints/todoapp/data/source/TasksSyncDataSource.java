@@ -0,0 +1,33 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.data.source;
+
+import android.support.annotation.Nullable;
+import com.example.android.architecture.blueprints.todoapp.data.TasksDelta;
+import io.reactivex.Flowable;
+
+/** A tasks data source that can report what changed since an earlier sync. */
+public interface TasksSyncDataSource {
+
+  /**
+   * Returns the tasks changed or deleted since {@code syncToken} was issued, or every task if it is
+   * null.
+   */
+  Flowable<TasksDelta> getTasksChangedSince(@Nullable String syncToken);
+}
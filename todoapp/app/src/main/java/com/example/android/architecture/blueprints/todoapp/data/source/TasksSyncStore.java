@@ -0,0 +1,34 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.data.source;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.example.android.architecture.blueprints.todoapp.data.TasksDelta;
+
+/** Local storage that is kept in sync with a {@link TasksSyncDataSource}. */
+public interface TasksSyncStore {
+
+  /** Returns the token of the last applied delta, or null if nothing has been synced yet. */
+  @Nullable
+  String getSyncToken();
+
+  /** Applies the changed and deleted tasks and stores the new sync token, as a single write. */
+  void applyDelta(@NonNull TasksDelta delta);
+}
@@ -0,0 +1,37 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.data.source;
+
+import com.example.android.architecture.blueprints.todoapp.data.TasksPage;
+import io.reactivex.Single;
+
+/** Storage that can tell which version of the stored tasks a read saw. */
+public interface VersionedTasksDataSource {
+
+  /**
+   * Returns at most {@code limit} tasks, in storage order, starting after {@code afterPosition}, a
+   * {@link TasksPage#lastPosition()} or {@link TasksPage#START_POSITION}. The page also says which
+   * data version it was read at.
+   */
+  Single<TasksPage> getVersionedTasksPage(long afterPosition, int limit);
+
+  /** Like {@link #getVersionedTasksPage}, but only reads tasks with the given completed flag. */
+  Single<TasksPage> getVersionedTasksPageWithStatus(
+      boolean completed, long afterPosition, int limit);
+}
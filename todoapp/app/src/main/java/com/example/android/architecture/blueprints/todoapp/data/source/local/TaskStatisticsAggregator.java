@@ -0,0 +1,200 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.data.source.local;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import com.example.android.architecture.blueprints.todoapp.data.Task;
+import com.example.android.architecture.blueprints.todoapp.data.TaskChanges;
+import com.example.android.architecture.blueprints.todoapp.data.TaskStatistics;
+import com.example.android.architecture.blueprints.todoapp.data.TaskSummary;
+import com.example.android.architecture.blueprints.todoapp.util.schedulers.BaseSchedulerProvider;
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.processors.BehaviorProcessor;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps {@link TaskStatistics} up to date from the changes published by local storage, so that
+ * they are available without querying the tasks table. Storage is counted once, by an aggregate
+ * query, to seed the statistics. Each change then adjusts the counts using what the changed tasks
+ * were before it, so no per-task state is held and memory doesn't grow with the number of tasks.
+ *
+ * <p>A change published while the seed is read may or may not be counted in it, so in that case
+ * the seed is read again. If storage can't be read, the seed is retried after a delay rather than
+ * failing the statistics, since every screen shares this instance.
+ */
+public class TaskStatisticsAggregator {
+
+  @VisibleForTesting static final long SEED_RETRY_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+  @Nullable private static TaskStatisticsAggregator INSTANCE;
+
+  @NonNull private final Single<TaskStatistics> mSeed;
+
+  @NonNull private final Scheduler mClock;
+
+  @NonNull private final TimeZone mTimeZone;
+
+  @NonNull
+  private final BehaviorProcessor<TaskStatistics> mStatistics = BehaviorProcessor.create();
+
+  @NonNull private final CompositeDisposable mSubscriptions = new CompositeDisposable();
+
+  // Guarded by this.
+  private final TreeMap<Long, Integer> mCreatedPerDay = new TreeMap<>();
+  private int mActiveCount;
+  private int mCompletedCount;
+  private boolean mSeeded;
+  private boolean mChangedWhileSeeding;
+
+  @VisibleForTesting
+  TaskStatisticsAggregator(
+      @NonNull Flowable<TaskChanges> taskChanges,
+      @NonNull Single<TaskStatistics> seed,
+      @NonNull Scheduler clock,
+      @NonNull TimeZone timeZone) {
+    mSeed =
+        checkNotNull(seed)
+            .retryWhen(
+                errors -> errors.delay(SEED_RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS, clock));
+    mClock = checkNotNull(clock);
+    mTimeZone = checkNotNull(timeZone);
+    // Subscribing to changes first means that none can be missed between the seed and the feed.
+    mSubscriptions.add(taskChanges.subscribe(this::onTaskChanges));
+    readSeed();
+  }
+
+  public static TaskStatisticsAggregator getInstance(
+      @NonNull TasksLocalDataSource localSource,
+      @NonNull BaseSchedulerProvider schedulerProvider) {
+    if (INSTANCE == null) {
+      INSTANCE =
+          new TaskStatisticsAggregator(
+              localSource.getTaskChanges(),
+              localSource.getTaskStatistics(),
+              schedulerProvider.computation(),
+              TimeZone.getDefault());
+    }
+    return INSTANCE;
+  }
+
+  public static void destroyInstance() {
+    if (INSTANCE != null) {
+      INSTANCE.mSubscriptions.dispose();
+    }
+    INSTANCE = null;
+  }
+
+  /** Emits the current statistics once storage has been read, and again after every change. */
+  public Flowable<TaskStatistics> getStatistics() {
+    return mStatistics.onBackpressureLatest();
+  }
+
+  /** The current statistics, or null if storage has not been read yet. */
+  @Nullable
+  public TaskStatistics getLastKnownStatistics() {
+    return mStatistics.getValue();
+  }
+
+  private void readSeed() {
+    mSubscriptions.add(mSeed.subscribe(this::onSeed));
+  }
+
+  private synchronized void onSeed(TaskStatistics seed) {
+    if (mChangedWhileSeeding) {
+      mChangedWhileSeeding = false;
+      readSeed();
+      return;
+    }
+    mActiveCount = seed.activeCount();
+    mCompletedCount = seed.completedCount();
+    mCreatedPerDay.putAll(seed.createdPerDay());
+    mSeeded = true;
+    publish();
+  }
+
+  private synchronized void onTaskChanges(TaskChanges changes) {
+    if (!mSeeded) {
+      mChangedWhileSeeding = true;
+      return;
+    }
+    applyChanges(changes);
+    publish();
+  }
+
+  private void applyChanges(TaskChanges changes) {
+    if (changes.allDeleted()) {
+      mCreatedPerDay.clear();
+      mActiveCount = 0;
+      mCompletedCount = 0;
+    }
+    if (!changes.inserted().isEmpty()) {
+      long today = TaskStatistics.epochDay(mClock.now(TimeUnit.MILLISECONDS), mTimeZone);
+      for (Task task : changes.inserted()) {
+        addCreated(today, 1);
+        addStatus(task.details().completed(), 1);
+      }
+    }
+    // Without what a task was before, its change can't be counted; storage always says.
+    for (Task task : changes.updated()) {
+      TaskSummary previous = changes.previous().get(task.id());
+      if (previous != null && previous.completed() != task.details().completed()) {
+        addStatus(previous.completed(), -1);
+        addStatus(task.details().completed(), 1);
+      }
+    }
+    for (String taskId : changes.deleted()) {
+      TaskSummary previous = changes.previous().get(taskId);
+      if (previous != null) {
+        addCreated(TaskStatistics.epochDay(previous.createdAtMillis(), mTimeZone), -1);
+        addStatus(previous.completed(), -1);
+      }
+    }
+  }
+
+  private void addStatus(boolean completed, int delta) {
+    if (completed) {
+      mCompletedCount += delta;
+    } else {
+      mActiveCount += delta;
+    }
+  }
+
+  private void addCreated(long day, int delta) {
+    Integer count = mCreatedPerDay.get(day);
+    int newCount = (count == null ? 0 : count) + delta;
+    if (newCount == 0) {
+      mCreatedPerDay.remove(day);
+    } else {
+      mCreatedPerDay.put(day, newCount);
+    }
+  }
+
+  private void publish() {
+    mStatistics.onNext(TaskStatistics.create(mActiveCount, mCompletedCount, mCreatedPerDay));
+  }
+}
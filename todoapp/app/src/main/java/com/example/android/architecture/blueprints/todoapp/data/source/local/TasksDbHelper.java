@@ -20,7 +20,7 @@ import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 
 public class TasksDbHelper extends SQLiteOpenHelper {
-  public static final int DATABASE_VERSION = 1;
+  public static final int DATABASE_VERSION = 5;
 
   public static final String DATABASE_NAME = "Tasks.db";
 
@@ -28,6 +28,8 @@ public class TasksDbHelper extends SQLiteOpenHelper {
 
   private static final String BOOLEAN_TYPE = " INTEGER";
 
+  private static final String INTEGER_TYPE = " INTEGER NOT NULL DEFAULT 0";
+
   private static final String COMMA_SEP = ",";
 
   private static final String SQL_CREATE_ENTRIES =
@@ -45,6 +47,75 @@ public class TasksDbHelper extends SQLiteOpenHelper {
           + COMMA_SEP
           + TasksPersistenceContract.TaskEntry.COLUMN_NAME_COMPLETED
           + BOOLEAN_TYPE
+          + COMMA_SEP
+          + TasksPersistenceContract.TaskEntry.COLUMN_NAME_UPDATED_AT
+          + INTEGER_TYPE
+          + COMMA_SEP
+          + TasksPersistenceContract.TaskEntry.COLUMN_NAME_CREATED_AT
+          + INTEGER_TYPE
+          + " )";
+
+  private static final String SQL_ADD_UPDATED_AT_COLUMN =
+      "ALTER TABLE "
+          + TasksPersistenceContract.TaskEntry.TABLE_NAME
+          + " ADD COLUMN "
+          + TasksPersistenceContract.TaskEntry.COLUMN_NAME_UPDATED_AT
+          + INTEGER_TYPE;
+
+  private static final String SQL_ADD_CREATED_AT_COLUMN =
+      "ALTER TABLE "
+          + TasksPersistenceContract.TaskEntry.TABLE_NAME
+          + " ADD COLUMN "
+          + TasksPersistenceContract.TaskEntry.COLUMN_NAME_CREATED_AT
+          + INTEGER_TYPE;
+
+  private static final String SQL_BACKFILL_CREATED_AT =
+      "UPDATE "
+          + TasksPersistenceContract.TaskEntry.TABLE_NAME
+          + " SET "
+          + TasksPersistenceContract.TaskEntry.COLUMN_NAME_CREATED_AT
+          + " = "
+          + TasksPersistenceContract.TaskEntry.COLUMN_NAME_UPDATED_AT;
+
+  private static final String SQL_CREATE_SYNC_STATE =
+      "CREATE TABLE "
+          + TasksPersistenceContract.SyncStateEntry.TABLE_NAME
+          + " ("
+          + TasksPersistenceContract.SyncStateEntry.COLUMN_NAME_KEY
+          + TEXT_TYPE
+          + " PRIMARY KEY,"
+          + TasksPersistenceContract.SyncStateEntry.COLUMN_NAME_VALUE
+          + TEXT_TYPE
+          + " )";
+
+  private static final String SQL_CREATE_COMPLETED_INDEX =
+      "CREATE INDEX IF NOT EXISTS "
+          + TasksPersistenceContract.TaskEntry.INDEX_NAME_COMPLETED
+          + " ON "
+          + TasksPersistenceContract.TaskEntry.TABLE_NAME
+          + " ("
+          + TasksPersistenceContract.TaskEntry.COLUMN_NAME_COMPLETED
+          + ")";
+
+  // The task id is the primary key, so queueing a write replaces any pending write for that task.
+  private static final String SQL_CREATE_OUTBOX =
+      "CREATE TABLE "
+          + TasksPersistenceContract.OutboxEntry.TABLE_NAME
+          + " ("
+          + TasksPersistenceContract.OutboxEntry.COLUMN_NAME_TASK_ID
+          + TEXT_TYPE
+          + " PRIMARY KEY,"
+          + TasksPersistenceContract.OutboxEntry.COLUMN_NAME_OPERATION
+          + " INTEGER NOT NULL"
+          + COMMA_SEP
+          + TasksPersistenceContract.OutboxEntry.COLUMN_NAME_TITLE
+          + TEXT_TYPE
+          + COMMA_SEP
+          + TasksPersistenceContract.OutboxEntry.COLUMN_NAME_DESCRIPTION
+          + TEXT_TYPE
+          + COMMA_SEP
+          + TasksPersistenceContract.OutboxEntry.COLUMN_NAME_COMPLETED
+          + BOOLEAN_TYPE
           + " )";
 
   public TasksDbHelper(Context context) {
@@ -53,13 +124,32 @@ public class TasksDbHelper extends SQLiteOpenHelper {
 
   public void onCreate(SQLiteDatabase db) {
     db.execSQL(SQL_CREATE_ENTRIES);
+    db.execSQL(SQL_CREATE_COMPLETED_INDEX);
+    db.execSQL(SQL_CREATE_SYNC_STATE);
+    db.execSQL(SQL_CREATE_OUTBOX);
   }
 
   public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-    // Not required as at version 1
+    if (oldVersion < 2) {
+      db.execSQL(SQL_CREATE_COMPLETED_INDEX);
+    }
+    if (oldVersion < 3) {
+      // Existing rows get a zero timestamp, and with no sync token the next refresh downloads
+      // everything once.
+      db.execSQL(SQL_ADD_UPDATED_AT_COLUMN);
+      db.execSQL(SQL_CREATE_SYNC_STATE);
+    }
+    if (oldVersion < 4) {
+      db.execSQL(SQL_CREATE_OUTBOX);
+    }
+    if (oldVersion < 5) {
+      // Creation times were never stored, so the last update is the best guess for existing rows.
+      db.execSQL(SQL_ADD_CREATED_AT_COLUMN);
+      db.execSQL(SQL_BACKFILL_CREATED_AT);
+    }
   }
 
   public void onDowngrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-    // Not required as at version 1
+    // Not required as at version 5
   }
 }
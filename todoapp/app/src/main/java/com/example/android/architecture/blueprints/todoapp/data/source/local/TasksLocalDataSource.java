@@ -22,29 +22,139 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.text.TextUtils;
 import com.example.android.architecture.blueprints.todoapp.data.Task;
+import com.example.android.architecture.blueprints.todoapp.data.TaskChanges;
 import com.example.android.architecture.blueprints.todoapp.data.TaskDetails;
+import com.example.android.architecture.blueprints.todoapp.data.TaskStatistics;
+import com.example.android.architecture.blueprints.todoapp.data.TaskSummary;
+import com.example.android.architecture.blueprints.todoapp.data.TasksDelta;
+import com.example.android.architecture.blueprints.todoapp.data.TasksPage;
 import com.example.android.architecture.blueprints.todoapp.data.source.TasksDataSource;
+import com.example.android.architecture.blueprints.todoapp.data.source.TasksSyncStore;
+import com.example.android.architecture.blueprints.todoapp.data.source.VersionedTasksDataSource;
+import com.example.android.architecture.blueprints.todoapp.data.source.local.TasksPersistenceContract.OutboxEntry;
+import com.example.android.architecture.blueprints.todoapp.data.source.local.TasksPersistenceContract.SyncStateEntry;
 import com.example.android.architecture.blueprints.todoapp.data.source.local.TasksPersistenceContract.TaskEntry;
 import com.example.android.architecture.blueprints.todoapp.util.schedulers.BaseSchedulerProvider;
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.squareup.sqlbrite2.BriteDatabase;
 import com.squareup.sqlbrite2.SqlBrite;
 import io.reactivex.BackpressureStrategy;
 import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
 import io.reactivex.functions.Function;
+import io.reactivex.processors.FlowableProcessor;
+import io.reactivex.processors.PublishProcessor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /** Concrete implementation of a data source as a db. */
-public class TasksLocalDataSource implements TasksDataSource {
+public class TasksLocalDataSource
+    implements TasksDataSource, TasksSyncStore, VersionedTasksDataSource {
 
   @Nullable private static TasksLocalDataSource INSTANCE;
 
+  // Shared by all instances, so a version is never reused for different data in this process.
+  private static final AtomicLong DATA_VERSIONS = new AtomicLong();
+
+  // Stays well below SQLITE_MAX_VARIABLE_NUMBER, which defaults to 999.
+  private static final int MAX_IDS_PER_STATEMENT = 500;
+
+  // The rowid of each task in a page, selected under this name.
+  private static final String COLUMN_NAME_POSITION = "position";
+
+  private static final String SQL_UPDATE_TASK =
+      String.format(
+          "UPDATE %s SET %s = ?, %s = ?, %s = ?, %s = ? WHERE %s = ?",
+          TaskEntry.TABLE_NAME,
+          TaskEntry.COLUMN_NAME_TITLE,
+          TaskEntry.COLUMN_NAME_DESCRIPTION,
+          TaskEntry.COLUMN_NAME_COMPLETED,
+          TaskEntry.COLUMN_NAME_UPDATED_AT,
+          TaskEntry.COLUMN_NAME_ENTRY_ID);
+
+  // The ?4 binds the creation time to the same parameter as the update time.
+  private static final String SQL_INSERT_TASK =
+      String.format(
+          "INSERT INTO %s (%s,%s,%s,%s,%s,%s) VALUES (?,?,?,?,?,?4)",
+          TaskEntry.TABLE_NAME,
+          TaskEntry.COLUMN_NAME_TITLE,
+          TaskEntry.COLUMN_NAME_DESCRIPTION,
+          TaskEntry.COLUMN_NAME_COMPLETED,
+          TaskEntry.COLUMN_NAME_UPDATED_AT,
+          TaskEntry.COLUMN_NAME_ENTRY_ID,
+          TaskEntry.COLUMN_NAME_CREATED_AT);
+
+  private static final String SQL_SELECT_TASK_BY_ID =
+      String.format(
+          "SELECT %s,%s,%s,%s FROM %s WHERE %s = ?",
+          TaskEntry.COLUMN_NAME_ENTRY_ID,
+          TaskEntry.COLUMN_NAME_TITLE,
+          TaskEntry.COLUMN_NAME_DESCRIPTION,
+          TaskEntry.COLUMN_NAME_COMPLETED,
+          TaskEntry.TABLE_NAME,
+          TaskEntry.COLUMN_NAME_ENTRY_ID);
+
+  private static final String SQL_SELECT_TASK_SUMMARIES =
+      String.format(
+          "SELECT %s,%s,%s FROM %s",
+          TaskEntry.COLUMN_NAME_ENTRY_ID,
+          TaskEntry.COLUMN_NAME_COMPLETED,
+          TaskEntry.COLUMN_NAME_CREATED_AT,
+          TaskEntry.TABLE_NAME);
+
+  // Days are counted in the device's time zone, like TaskStatistics.epochDay with the default one.
+  private static final String SQL_COUNT_TASKS_BY_STATUS_AND_DAY =
+      String.format(
+          "SELECT %s, CAST(strftime('%%s', %s / 1000, 'unixepoch', 'localtime') AS INTEGER) / %d"
+              + " AS day, COUNT(*) FROM %s GROUP BY %s, day",
+          TaskEntry.COLUMN_NAME_COMPLETED,
+          TaskEntry.COLUMN_NAME_CREATED_AT,
+          TimeUnit.DAYS.toSeconds(1),
+          TaskEntry.TABLE_NAME,
+          TaskEntry.COLUMN_NAME_COMPLETED);
+
+  private static final String SQL_SELECT_TASK_IDS =
+      String.format("SELECT %s FROM %s", TaskEntry.COLUMN_NAME_ENTRY_ID, TaskEntry.TABLE_NAME);
+
+  private static final String SQL_SELECT_PENDING_TASK_IDS =
+      String.format("SELECT %s FROM %s", OutboxEntry.COLUMN_NAME_TASK_ID, OutboxEntry.TABLE_NAME);
+
+  private static final String SQL_SELECT_SYNC_TOKEN =
+      String.format(
+          "SELECT %s FROM %s WHERE %s = ?",
+          SyncStateEntry.COLUMN_NAME_VALUE,
+          SyncStateEntry.TABLE_NAME,
+          SyncStateEntry.COLUMN_NAME_KEY);
+
   @NonNull private final BriteDatabase mDatabaseHelper;
 
+  @NonNull
+  private final FlowableProcessor<TaskChanges> mTaskChanges =
+      PublishProcessor.<TaskChanges>create().toSerialized();
+
+  @NonNull private final Scheduler mIoScheduler;
+
+  @NonNull private final Object mWriteLock = new Object();
+
+  // Guarded by mWriteLock.
+  private long mDataVersion = DATA_VERSIONS.incrementAndGet();
+
   @NonNull private Function<Cursor, Task> mTaskMapperFunction;
 
   // Prevent direct instantiation.
@@ -55,6 +165,7 @@ public class TasksLocalDataSource implements TasksDataSource {
     TasksDbHelper dbHelper = new TasksDbHelper(context);
     SqlBrite sqlBrite = new SqlBrite.Builder().build();
     mDatabaseHelper = sqlBrite.wrapDatabaseHelper(dbHelper, schedulerProvider.io());
+    mIoScheduler = schedulerProvider.io();
     mTaskMapperFunction = this::getTask;
   }
 
@@ -81,6 +192,12 @@ public class TasksLocalDataSource implements TasksDataSource {
     INSTANCE = null;
   }
 
+  // For other tables that live in the same database, such as the outbox.
+  @NonNull
+  BriteDatabase getDatabase() {
+    return mDatabaseHelper;
+  }
+
   @Override
   public Flowable<List<Task>> getTasks() {
     String[] projection = {
@@ -98,44 +215,401 @@ public class TasksLocalDataSource implements TasksDataSource {
   }
 
   @Override
-  public Flowable<Optional<Task>> getTask(@NonNull String taskId) {
+  public Single<TasksPage> getVersionedTasksPage(long afterPosition, int limit) {
+    return readTasksPage(afterPosition, tasksPageSql("", limit), String.valueOf(afterPosition));
+  }
+
+  /**
+   * The filtering is done by SQLite using the index on the completed column, so rows that are
+   * filtered out are never read into memory.
+   */
+  @Override
+  public Single<TasksPage> getVersionedTasksPageWithStatus(
+      boolean completed, long afterPosition, int limit) {
+    return readTasksPage(
+        afterPosition,
+        tasksPageSql(TaskEntry.COLUMN_NAME_COMPLETED + " = ? AND ", limit),
+        completed ? "1" : "0",
+        String.valueOf(afterPosition));
+  }
+
+  /**
+   * Reads a page with the write lock held, so that no write can land between the query and reading
+   * the data version.
+   */
+  private Single<TasksPage> readTasksPage(long afterPosition, String sql, String... args) {
+    return Single.fromCallable(
+            () -> {
+              synchronized (mWriteLock) {
+                List<Task> tasks = new ArrayList<>();
+                long lastPosition = afterPosition;
+                Cursor c = mDatabaseHelper.query(sql, args);
+                try {
+                  int positionColumn = c.getColumnIndexOrThrow(COLUMN_NAME_POSITION);
+                  while (c.moveToNext()) {
+                    tasks.add(getTask(c));
+                    lastPosition = c.getLong(positionColumn);
+                  }
+                } finally {
+                  c.close();
+                }
+                return TasksPage.create(tasks, mDataVersion, lastPosition);
+              }
+            })
+        .subscribeOn(mIoScheduler);
+  }
+
+  /**
+   * Counts the stored tasks by status and by the day they were created, with a single aggregate
+   * query, so that no task rows are loaded. Like {@link #getVersionedTasksPage}, the read is
+   * ordered with writes, so every change published before it is already reflected.
+   */
+  public Single<TaskStatistics> getTaskStatistics() {
+    return Single.fromCallable(
+            () -> {
+              synchronized (mWriteLock) {
+                int activeCount = 0;
+                int completedCount = 0;
+                Map<Long, Integer> createdPerDay = new HashMap<>();
+                Cursor c = mDatabaseHelper.query(SQL_COUNT_TASKS_BY_STATUS_AND_DAY);
+                try {
+                  while (c.moveToNext()) {
+                    int count = c.getInt(2);
+                    if (c.getInt(0) == 1) {
+                      completedCount += count;
+                    } else {
+                      activeCount += count;
+                    }
+                    Integer dayCount = createdPerDay.get(c.getLong(1));
+                    createdPerDay.put(c.getLong(1), (dayCount == null ? 0 : dayCount) + count);
+                  }
+                } finally {
+                  c.close();
+                }
+                return TaskStatistics.create(activeCount, completedCount, createdPerDay);
+              }
+            })
+        .subscribeOn(mIoScheduler);
+  }
+
+  // The condition, if any, must end with AND.
+  private static String tasksPageSql(String condition, int limit) {
     String[] projection = {
       TaskEntry.COLUMN_NAME_ENTRY_ID,
       TaskEntry.COLUMN_NAME_TITLE,
       TaskEntry.COLUMN_NAME_DESCRIPTION,
-      TaskEntry.COLUMN_NAME_COMPLETED
+      TaskEntry.COLUMN_NAME_COMPLETED,
+      "rowid AS " + COLUMN_NAME_POSITION
     };
-    String sql =
-        String.format(
-            "SELECT %s FROM %s WHERE %s LIKE ?",
-            TextUtils.join(",", projection), TaskEntry.TABLE_NAME, TaskEntry.COLUMN_NAME_ENTRY_ID);
+    // Pages are keyed on rowid rather than using OFFSET, so each page is a range scan starting at
+    // the previous page's last row and costs the same however far into the table it is. Saves
+    // update rows in place, so a task's rowid, and with it its position, is stable. The previous
+    // page ends at a rowid rather than a task, so deleting its last task doesn't break paging.
+    return String.format(
+        "SELECT %s FROM %s WHERE %srowid > ? ORDER BY rowid LIMIT %d",
+        TextUtils.join(",", projection), TaskEntry.TABLE_NAME, condition, limit);
+  }
+
+  @Override
+  public Flowable<Optional<Task>> getTask(@NonNull String taskId) {
     return mDatabaseHelper
-        .createQuery(TaskEntry.TABLE_NAME, sql, taskId)
+        .createQuery(TaskEntry.TABLE_NAME, SQL_SELECT_TASK_BY_ID, taskId)
         .mapToOneOrDefault(
             cursor -> Optional.of(mTaskMapperFunction.apply(cursor)), Optional.<Task>absent())
         .toFlowable(BackpressureStrategy.BUFFER);
   }
 
+  /**
+   * Like {@link #getTask}, but the task is read again only when a write touches it, rather than
+   * after every write to the table. Emits only when the task differs from the last emission.
+   */
+  public Flowable<Optional<Task>> observeTask(@NonNull String taskId) {
+    checkNotNull(taskId);
+    // Subscribing to changes before the first read means none can be missed in between, and
+    // switchMap drops a read that a later change has made stale.
+    return mTaskChanges
+        .filter(changes -> touchesTask(changes, taskId))
+        .onBackpressureLatest()
+        .map(changes -> taskId)
+        .mergeWith(Flowable.just(taskId))
+        .switchMap(id -> Flowable.fromCallable(() -> readTask(id)).subscribeOn(mIoScheduler))
+        .distinctUntilChanged();
+  }
+
+  private static boolean touchesTask(TaskChanges changes, String taskId) {
+    if (changes.allDeleted() || changes.deleted().contains(taskId)) return true;
+    for (Task task : changes.updated()) {
+      if (task.id().equals(taskId)) return true;
+    }
+    for (Task task : changes.inserted()) {
+      if (task.id().equals(taskId)) return true;
+    }
+    return false;
+  }
+
+  private Optional<Task> readTask(String taskId) {
+    Cursor c = mDatabaseHelper.query(SQL_SELECT_TASK_BY_ID, taskId);
+    try {
+      return c.moveToNext() ? Optional.of(getTask(c)) : Optional.<Task>absent();
+    } finally {
+      c.close();
+    }
+  }
+
+  /**
+   * Returns the row-level changes made by each write to this data source. Unlike the queries above,
+   * observing this stream never re-runs a query, so the cost of each emission is proportional to
+   * the size of the write rather than the size of the table.
+   */
+  public Flowable<TaskChanges> getTaskChanges() {
+    return mTaskChanges.onBackpressureBuffer();
+  }
+
   @Override
   public void saveTask(@NonNull Task task) {
     checkNotNull(task);
-    ContentValues values = new ContentValues();
-    values.put(TaskEntry.COLUMN_NAME_ENTRY_ID, task.id());
-    values.put(TaskEntry.COLUMN_NAME_TITLE, task.details().title());
-    values.put(TaskEntry.COLUMN_NAME_DESCRIPTION, task.details().description());
-    values.put(TaskEntry.COLUMN_NAME_COMPLETED, task.details().completed());
-    mDatabaseHelper.insert(TaskEntry.TABLE_NAME, values, SQLiteDatabase.CONFLICT_REPLACE);
+    saveTasks(Collections.singletonList(task));
+  }
+
+  @Override
+  public void saveTasks(@NonNull Collection<Task> tasks) {
+    checkNotNull(tasks);
+    List<Task> inserted = new ArrayList<>();
+    List<Task> updated = new ArrayList<>();
+    Map<String, TaskSummary> previous = new HashMap<>();
+
+    synchronized (mWriteLock) {
+      // A single transaction means a single table notification, however many tasks are written.
+      BriteDatabase.Transaction transaction = mDatabaseHelper.newTransaction();
+      try {
+        writeTasks(tasks, inserted, updated, previous);
+        transaction.markSuccessful();
+      } finally {
+        transaction.end();
+      }
+      publishChanges(TaskChanges.create(inserted, updated, ImmutableSet.of(), false, previous));
+    }
+  }
+
+  // Must be called in a transaction. Adds what the updated tasks were before to previous.
+  private void writeTasks(
+      Collection<Task> tasks,
+      List<Task> inserted,
+      List<Task> updated,
+      Map<String, TaskSummary> previous) {
+    List<String> ids = new ArrayList<>(tasks.size());
+    for (Task task : tasks) {
+      ids.add(task.id());
+    }
+    readSummaries(ids, previous);
+    long now = System.currentTimeMillis();
+    SQLiteDatabase db = mDatabaseHelper.getWritableDatabase();
+    SQLiteStatement update = db.compileStatement(SQL_UPDATE_TASK);
+    SQLiteStatement insert = db.compileStatement(SQL_INSERT_TASK);
+    try {
+      for (Task task : tasks) {
+        bindTask(update, task, now);
+        if (mDatabaseHelper.executeUpdateDelete(TaskEntry.TABLE_NAME, update) > 0) {
+          updated.add(task);
+        } else {
+          bindTask(insert, task, now);
+          mDatabaseHelper.executeInsert(TaskEntry.TABLE_NAME, insert);
+          inserted.add(task);
+        }
+      }
+    } finally {
+      update.close();
+      insert.close();
+    }
+  }
+
+  private static void bindTask(SQLiteStatement statement, Task task, long updatedAt) {
+    statement.clearBindings();
+    statement.bindString(1, task.details().title());
+    statement.bindString(2, task.details().description());
+    statement.bindLong(3, task.details().completed() ? 1 : 0);
+    statement.bindLong(4, updatedAt);
+    statement.bindString(5, task.id());
   }
 
   @Override
   public void deleteAllTasks() {
-    mDatabaseHelper.delete(TaskEntry.TABLE_NAME, null);
+    synchronized (mWriteLock) {
+      mDatabaseHelper.delete(TaskEntry.TABLE_NAME, null);
+      publishChanges(TaskChanges.allTasksDeleted());
+    }
+  }
+
+  /** Reads the completed tasks in the same transaction, to publish them as deleted. */
+  @Override
+  public void clearCompletedTasks() {
+    synchronized (mWriteLock) {
+      Map<String, TaskSummary> completed = new HashMap<>();
+      String selection = TaskEntry.COLUMN_NAME_COMPLETED + " = 1";
+      BriteDatabase.Transaction transaction = mDatabaseHelper.newTransaction();
+      try {
+        readSummaries(SQL_SELECT_TASK_SUMMARIES + " WHERE " + selection, completed);
+        mDatabaseHelper.delete(TaskEntry.TABLE_NAME, selection);
+        transaction.markSuccessful();
+      } finally {
+        transaction.end();
+      }
+      publishDeleted(completed);
+    }
   }
 
   @Override
   public void deleteTask(@NonNull String taskId) {
-    String selection = TaskEntry.COLUMN_NAME_ENTRY_ID + " LIKE ?";
-    String[] selectionArgs = {taskId};
-    mDatabaseHelper.delete(TaskEntry.TABLE_NAME, selection, selectionArgs);
+    checkNotNull(taskId);
+    deleteTasks(Collections.singletonList(taskId));
+  }
+
+  @Override
+  public void deleteTasks(@NonNull Collection<String> taskIds) {
+    checkNotNull(taskIds);
+    if (taskIds.isEmpty()) return;
+
+    List<String> ids = new ArrayList<>(taskIds);
+    synchronized (mWriteLock) {
+      Map<String, TaskSummary> deleted;
+      BriteDatabase.Transaction transaction = mDatabaseHelper.newTransaction();
+      try {
+        deleted = deleteRows(ids);
+        transaction.markSuccessful();
+      } finally {
+        transaction.end();
+      }
+      publishDeleted(deleted);
+    }
+  }
+
+  /**
+   * Must be called in a transaction. Returns what the deleted rows were, by id, leaving out ids
+   * that weren't stored.
+   */
+  private Map<String, TaskSummary> deleteRows(List<String> ids) {
+    Map<String, TaskSummary> deleted = readSummaries(ids, new HashMap<>());
+    for (int from = 0; from < ids.size(); from += MAX_IDS_PER_STATEMENT) {
+      List<String> batch = ids.subList(from, Math.min(from + MAX_IDS_PER_STATEMENT, ids.size()));
+      mDatabaseHelper.delete(
+          TaskEntry.TABLE_NAME, idsSelection(batch.size()), batch.toArray(new String[0]));
+    }
+    return deleted;
+  }
+
+  // Must be called with mWriteLock held.
+  private void publishDeleted(Map<String, TaskSummary> deleted) {
+    publishChanges(
+        TaskChanges.create(
+            ImmutableList.of(), ImmutableList.of(), deleted.keySet(), false, deleted));
+  }
+
+  /** Reads what the stored tasks with the given ids are, skipping ids that aren't stored. */
+  private Map<String, TaskSummary> readSummaries(
+      List<String> ids, Map<String, TaskSummary> summaries) {
+    for (int from = 0; from < ids.size(); from += MAX_IDS_PER_STATEMENT) {
+      List<String> batch = ids.subList(from, Math.min(from + MAX_IDS_PER_STATEMENT, ids.size()));
+      readSummaries(
+          SQL_SELECT_TASK_SUMMARIES + " WHERE " + idsSelection(batch.size()),
+          summaries,
+          batch.toArray(new String[0]));
+    }
+    return summaries;
+  }
+
+  private Map<String, TaskSummary> readSummaries(
+      String sql, Map<String, TaskSummary> summaries, String... args) {
+    Cursor c = mDatabaseHelper.query(sql, args);
+    try {
+      while (c.moveToNext()) {
+        summaries.put(
+            c.getString(0), TaskSummary.create(c.getString(0), c.getInt(1) == 1, c.getLong(2)));
+      }
+    } finally {
+      c.close();
+    }
+    return summaries;
+  }
+
+  private static String idsSelection(int count) {
+    return TaskEntry.COLUMN_NAME_ENTRY_ID
+        + " IN ("
+        + TextUtils.join(",", Collections.nCopies(count, "?"))
+        + ")";
+  }
+
+  @Nullable
+  @Override
+  public String getSyncToken() {
+    Cursor c = mDatabaseHelper.query(SQL_SELECT_SYNC_TOKEN, SyncStateEntry.KEY_SYNC_TOKEN);
+    try {
+      return c.moveToFirst() ? c.getString(0) : null;
+    } finally {
+      c.close();
+    }
+  }
+
+  @Override
+  public void applyDelta(@NonNull TasksDelta delta) {
+    checkNotNull(delta);
+    List<Task> inserted = new ArrayList<>();
+    List<Task> updated = new ArrayList<>();
+    Map<String, TaskSummary> previous = new HashMap<>();
+    Map<String, TaskSummary> deleted;
+
+    synchronized (mWriteLock) {
+      // The token is stored in the same transaction as the rows, so they can't get out of step.
+      BriteDatabase.Transaction transaction = mDatabaseHelper.newTransaction();
+      try {
+        // Tasks with writes that haven't been sent yet keep their local state. The remote gets
+        // those writes later, and the sync after that brings the tasks back in step.
+        Set<String> pendingIds = readIds(SQL_SELECT_PENDING_TASK_IDS, new HashSet<>());
+        Set<String> remoteIds = new HashSet<>();
+        List<Task> changed = new ArrayList<>();
+        for (Task task : delta.changed()) {
+          remoteIds.add(task.id());
+          if (!pendingIds.contains(task.id())) changed.add(task);
+        }
+        // A complete delta has no tombstones, so whatever it doesn't hold was deleted remotely.
+        Collection<String> deletedIds =
+            delta.complete() ? readIds(SQL_SELECT_TASK_IDS, new ArrayList<>()) : delta.deleted();
+        List<String> toDelete = new ArrayList<>();
+        for (String taskId : deletedIds) {
+          if (!remoteIds.contains(taskId) && !pendingIds.contains(taskId)) toDelete.add(taskId);
+        }
+
+        writeTasks(changed, inserted, updated, previous);
+        deleted = deleteRows(toDelete);
+        previous.putAll(deleted);
+        ContentValues values = new ContentValues();
+        values.put(SyncStateEntry.COLUMN_NAME_KEY, SyncStateEntry.KEY_SYNC_TOKEN);
+        values.put(SyncStateEntry.COLUMN_NAME_VALUE, delta.syncToken());
+        mDatabaseHelper.insert(SyncStateEntry.TABLE_NAME, values, SQLiteDatabase.CONFLICT_REPLACE);
+        transaction.markSuccessful();
+      } finally {
+        transaction.end();
+      }
+      publishChanges(TaskChanges.create(inserted, updated, deleted.keySet(), false, previous));
+    }
+  }
+
+  private <C extends Collection<String>> C readIds(String sql, C ids) {
+    Cursor c = mDatabaseHelper.query(sql);
+    try {
+      while (c.moveToNext()) {
+        ids.add(c.getString(0));
+      }
+    } finally {
+      c.close();
+    }
+    return ids;
+  }
+
+  // Called with mWriteLock held, so that changes are published in the order they were committed.
+  private void publishChanges(TaskChanges changes) {
+    if (!changes.isEmpty()) {
+      mDataVersion = DATA_VERSIONS.incrementAndGet();
+      mTaskChanges.onNext(changes);
+    }
   }
 }
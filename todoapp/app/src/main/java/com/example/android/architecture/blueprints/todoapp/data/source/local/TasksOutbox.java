@@ -0,0 +1,296 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.data.source.local;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.text.TextUtils;
+import com.example.android.architecture.blueprints.todoapp.data.Task;
+import com.example.android.architecture.blueprints.todoapp.data.TaskDetails;
+import com.example.android.architecture.blueprints.todoapp.data.TasksDelta;
+import com.example.android.architecture.blueprints.todoapp.data.source.TasksDataSource;
+import com.example.android.architecture.blueprints.todoapp.data.source.TasksSyncDataSource;
+import com.example.android.architecture.blueprints.todoapp.data.source.local.TasksPersistenceContract.OutboxEntry;
+import com.example.android.architecture.blueprints.todoapp.data.source.local.TasksPersistenceContract.TaskEntry;
+import com.example.android.architecture.blueprints.todoapp.util.schedulers.BaseSchedulerProvider;
+import com.google.common.base.Optional;
+import com.squareup.sqlbrite2.BriteDatabase;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remote data source that queues writes in a table in the local database and sends them in the
+ * background. Pending writes for the same task are collapsed into the latest one, so toggling a
+ * task ten times sends a single save, and writes survive failures and restarts until the remote
+ * accepts them. Failed flushes are retried with exponential backoff. Reads go straight to the
+ * remote.
+ */
+public class TasksOutbox implements TasksDataSource, TasksSyncDataSource {
+
+  @VisibleForTesting static final int MAX_BATCH_SIZE = 100;
+
+  @VisibleForTesting static final long INITIAL_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(1);
+
+  @VisibleForTesting static final long MAX_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+  private static final String SQL_SELECT_BATCH =
+      String.format(
+          "SELECT rowid,%s,%s,%s,%s,%s FROM %s ORDER BY rowid LIMIT %d",
+          OutboxEntry.COLUMN_NAME_TASK_ID,
+          OutboxEntry.COLUMN_NAME_OPERATION,
+          OutboxEntry.COLUMN_NAME_TITLE,
+          OutboxEntry.COLUMN_NAME_DESCRIPTION,
+          OutboxEntry.COLUMN_NAME_COMPLETED,
+          OutboxEntry.TABLE_NAME,
+          MAX_BATCH_SIZE);
+
+  // Replacing drops any older pending write for the same task, as in enqueue.
+  private static final String SQL_QUEUE_COMPLETED_DELETES =
+      String.format(
+          "INSERT OR REPLACE INTO %s (%s,%s) SELECT %s,%d FROM %s WHERE %s = 1",
+          OutboxEntry.TABLE_NAME,
+          OutboxEntry.COLUMN_NAME_TASK_ID,
+          OutboxEntry.COLUMN_NAME_OPERATION,
+          TaskEntry.COLUMN_NAME_ENTRY_ID,
+          OutboxEntry.OPERATION_DELETE,
+          TaskEntry.TABLE_NAME,
+          TaskEntry.COLUMN_NAME_COMPLETED);
+
+  @Nullable private static TasksOutbox INSTANCE;
+
+  @NonNull private final TasksDataSource mRemoteSource;
+
+  @NonNull private final TasksSyncDataSource mRemoteSync;
+
+  @NonNull private final BriteDatabase mDatabase;
+
+  // A single worker, so that flushes never overlap.
+  @NonNull private final Scheduler.Worker mWorker;
+
+  @NonNull private final Object mLock = new Object();
+
+  // Guarded by mLock.
+  private boolean mFlushScheduled;
+  private int mFailedFlushes;
+
+  @VisibleForTesting
+  <R extends TasksDataSource & TasksSyncDataSource> TasksOutbox(
+      @NonNull R remoteSource, @NonNull BriteDatabase database, @NonNull Scheduler scheduler) {
+    mRemoteSource = checkNotNull(remoteSource);
+    mRemoteSync = remoteSource;
+    mDatabase = checkNotNull(database);
+    mWorker = scheduler.createWorker();
+    // Sends whatever was left queued when the app last stopped.
+    scheduleFlush(0);
+  }
+
+  public static <R extends TasksDataSource & TasksSyncDataSource> TasksOutbox getInstance(
+      @NonNull R remoteSource,
+      @NonNull TasksLocalDataSource localSource,
+      @NonNull BaseSchedulerProvider schedulerProvider) {
+    if (INSTANCE == null) {
+      INSTANCE = new TasksOutbox(remoteSource, localSource.getDatabase(), schedulerProvider.io());
+    }
+    return INSTANCE;
+  }
+
+  public static void destroyInstance() {
+    if (INSTANCE != null) {
+      INSTANCE.mWorker.dispose();
+    }
+    INSTANCE = null;
+  }
+
+  @Override
+  public Flowable<List<Task>> getTasks() {
+    return mRemoteSource.getTasks();
+  }
+
+  @Override
+  public Flowable<Optional<Task>> getTask(@NonNull String taskId) {
+    return mRemoteSource.getTask(taskId);
+  }
+
+  /**
+   * Tries to send pending writes first, so that the delta reflects them rather than overwriting
+   * them with older remote state.
+   */
+  @Override
+  public Flowable<TasksDelta> getTasksChangedSince(@Nullable String syncToken) {
+    return Completable.fromAction(this::flushPendingWrites)
+        .onErrorComplete()
+        .andThen(mRemoteSync.getTasksChangedSince(syncToken));
+  }
+
+  @Override
+  public void saveTask(@NonNull Task task) {
+    saveTasks(Collections.singletonList(task));
+  }
+
+  @Override
+  public void saveTasks(@NonNull Collection<Task> tasks) {
+    checkNotNull(tasks);
+    List<ContentValues> entries = new ArrayList<>(tasks.size());
+    for (Task task : tasks) {
+      ContentValues values = new ContentValues();
+      values.put(OutboxEntry.COLUMN_NAME_TASK_ID, task.id());
+      values.put(OutboxEntry.COLUMN_NAME_OPERATION, OutboxEntry.OPERATION_SAVE);
+      values.put(OutboxEntry.COLUMN_NAME_TITLE, task.details().title());
+      values.put(OutboxEntry.COLUMN_NAME_DESCRIPTION, task.details().description());
+      values.put(OutboxEntry.COLUMN_NAME_COMPLETED, task.details().completed());
+      entries.add(values);
+    }
+    enqueue(entries);
+  }
+
+  @Override
+  public void deleteTask(@NonNull String taskId) {
+    deleteTasks(Collections.singletonList(taskId));
+  }
+
+  @Override
+  public void deleteTasks(@NonNull Collection<String> taskIds) {
+    checkNotNull(taskIds);
+    List<ContentValues> entries = new ArrayList<>(taskIds.size());
+    for (String taskId : taskIds) {
+      ContentValues values = new ContentValues();
+      values.put(OutboxEntry.COLUMN_NAME_TASK_ID, taskId);
+      values.put(OutboxEntry.COLUMN_NAME_OPERATION, OutboxEntry.OPERATION_DELETE);
+      entries.add(values);
+    }
+    enqueue(entries);
+  }
+
+  /**
+   * Queues a delete for every task that is completed in local storage, so it must be called before
+   * they are deleted there.
+   */
+  @Override
+  public void clearCompletedTasks() {
+    mDatabase.execute(SQL_QUEUE_COMPLETED_DELETES);
+    scheduleFlush(0);
+  }
+
+  /** Not queued: pending writes are dropped and the remote is cleared right away. */
+  @Override
+  public void deleteAllTasks() {
+    mDatabase.delete(OutboxEntry.TABLE_NAME, null);
+    mRemoteSource.deleteAllTasks();
+  }
+
+  private void enqueue(List<ContentValues> entries) {
+    if (entries.isEmpty()) return;
+
+    BriteDatabase.Transaction transaction = mDatabase.newTransaction();
+    try {
+      for (ContentValues values : entries) {
+        // Replacing drops any older pending write for the same task.
+        mDatabase.insert(OutboxEntry.TABLE_NAME, values, SQLiteDatabase.CONFLICT_REPLACE);
+      }
+      transaction.markSuccessful();
+    } finally {
+      transaction.end();
+    }
+    scheduleFlush(0);
+  }
+
+  private void scheduleFlush(long delayMillis) {
+    synchronized (mLock) {
+      // Either a flush is already due, or a retry is backing off; both will pick these writes up.
+      if (mFlushScheduled) return;
+      mFlushScheduled = true;
+    }
+    mWorker.schedule(this::flush, delayMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private void flush() {
+    synchronized (mLock) {
+      mFlushScheduled = false;
+    }
+
+    long retryDelayMillis;
+    try {
+      flushPendingWrites();
+      synchronized (mLock) {
+        mFailedFlushes = 0;
+      }
+      return;
+    } catch (Exception e) {
+      synchronized (mLock) {
+        mFailedFlushes++;
+        retryDelayMillis =
+            Math.min(
+                MAX_BACKOFF_MILLIS, INITIAL_BACKOFF_MILLIS << Math.min(mFailedFlushes - 1, 20));
+      }
+    }
+    scheduleFlush(retryDelayMillis);
+  }
+
+  // Synchronized so that a flush before a sync and a background flush don't send the same batch.
+  private synchronized void flushPendingWrites() {
+    while (flushBatch()) {}
+  }
+
+  /** Sends the oldest pending writes, and returns whether there may be more. */
+  private boolean flushBatch() {
+    List<Task> saves = new ArrayList<>();
+    List<String> deletes = new ArrayList<>();
+    List<String> rowIds = new ArrayList<>();
+
+    Cursor c = mDatabase.query(SQL_SELECT_BATCH);
+    try {
+      while (c.moveToNext()) {
+        rowIds.add(c.getString(0));
+        String taskId = c.getString(1);
+        if (c.getInt(2) == OutboxEntry.OPERATION_DELETE) {
+          deletes.add(taskId);
+        } else {
+          TaskDetails details =
+              TaskDetails.create(c.getString(3), c.getString(4), c.getInt(5) == 1);
+          saves.add(Task.create(taskId, details));
+        }
+      }
+    } finally {
+      c.close();
+    }
+    if (rowIds.isEmpty()) return false;
+
+    // Each task appears at most once, so the order of saves and deletes doesn't matter.
+    if (!saves.isEmpty()) mRemoteSource.saveTasks(saves);
+    if (!deletes.isEmpty()) mRemoteSource.deleteTasks(deletes);
+
+    // Matching on rowid leaves entries alone that were replaced by newer writes while sending.
+    String selection =
+        "rowid IN (" + TextUtils.join(",", Collections.nCopies(rowIds.size(), "?")) + ")";
+    mDatabase.delete(OutboxEntry.TABLE_NAME, selection, rowIds.toArray(new String[0]));
+    return rowIds.size() == MAX_BATCH_SIZE;
+  }
+}
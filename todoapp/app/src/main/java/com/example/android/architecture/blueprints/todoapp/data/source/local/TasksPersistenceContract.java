@@ -31,5 +31,28 @@ public final class TasksPersistenceContract {
     public static final String COLUMN_NAME_TITLE = "title";
     public static final String COLUMN_NAME_DESCRIPTION = "description";
     public static final String COLUMN_NAME_COMPLETED = "completed";
+    public static final String COLUMN_NAME_UPDATED_AT = "updated_at";
+    public static final String COLUMN_NAME_CREATED_AT = "created_at";
+    public static final String INDEX_NAME_COMPLETED = "allTasks_completed";
+  }
+
+  /* Remote writes that are waiting to be sent, at most one per task */
+  public abstract static class OutboxEntry {
+    public static final String TABLE_NAME = "outbox";
+    public static final String COLUMN_NAME_TASK_ID = "taskid";
+    public static final String COLUMN_NAME_OPERATION = "operation";
+    public static final String COLUMN_NAME_TITLE = "title";
+    public static final String COLUMN_NAME_DESCRIPTION = "description";
+    public static final String COLUMN_NAME_COMPLETED = "completed";
+    public static final int OPERATION_SAVE = 0;
+    public static final int OPERATION_DELETE = 1;
+  }
+
+  /* Key-value table for the state of the sync with the remote data source */
+  public abstract static class SyncStateEntry {
+    public static final String TABLE_NAME = "syncState";
+    public static final String COLUMN_NAME_KEY = "key";
+    public static final String COLUMN_NAME_VALUE = "value";
+    public static final String KEY_SYNC_TOKEN = "syncToken";
   }
 }
@@ -0,0 +1,116 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.data.source.remote;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.example.android.architecture.blueprints.todoapp.data.Task;
+import com.example.android.architecture.blueprints.todoapp.data.TasksDelta;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An in-memory stand-in for the tasks backend. Every write is stamped with a new server version,
+ * and deletions leave a tombstone, so that clients can ask for what changed since the version they
+ * last synced to. The sync token is that version.
+ */
+public class InMemoryTasksServer {
+
+  private final Map<String, VersionedTask> mTasks = new LinkedHashMap<>();
+
+  private final Map<String, Long> mTombstones = new HashMap<>();
+
+  private long mVersion;
+
+  public synchronized List<Task> getTasks() {
+    List<Task> tasks = new ArrayList<>(mTasks.size());
+    for (VersionedTask versionedTask : mTasks.values()) {
+      tasks.add(versionedTask.task);
+    }
+    return tasks;
+  }
+
+  @Nullable
+  public synchronized Task getTask(@NonNull String taskId) {
+    VersionedTask versionedTask = mTasks.get(taskId);
+    return versionedTask == null ? null : versionedTask.task;
+  }
+
+  public synchronized void saveTasks(@NonNull Collection<Task> tasks) {
+    for (Task task : tasks) {
+      mTasks.put(task.id(), new VersionedTask(task, ++mVersion));
+      mTombstones.remove(task.id());
+    }
+  }
+
+  public synchronized void deleteTasks(@NonNull Collection<String> taskIds) {
+    for (String taskId : taskIds) {
+      if (mTasks.remove(taskId) != null) {
+        mTombstones.put(taskId, ++mVersion);
+      }
+    }
+  }
+
+  public synchronized void deleteAllTasks() {
+    deleteTasks(new ArrayList<>(mTasks.keySet()));
+  }
+
+  public synchronized void clearCompletedTasks() {
+    List<String> completedIds = new ArrayList<>();
+    for (VersionedTask versionedTask : mTasks.values()) {
+      if (versionedTask.task.details().completed()) completedIds.add(versionedTask.task.id());
+    }
+    deleteTasks(completedIds);
+  }
+
+  public synchronized TasksDelta getTasksChangedSince(@Nullable String syncToken) {
+    long since = syncToken == null ? 0 : Long.parseLong(syncToken);
+    if (since > mVersion) {
+      // The token is from before a server reset, so the client needs everything.
+      since = 0;
+    }
+    if (since == 0) {
+      return TasksDelta.allTasks(getTasks(), String.valueOf(mVersion));
+    }
+
+    List<Task> changed = new ArrayList<>();
+    for (VersionedTask versionedTask : mTasks.values()) {
+      if (versionedTask.version > since) changed.add(versionedTask.task);
+    }
+    List<String> deleted = new ArrayList<>();
+    for (Map.Entry<String, Long> tombstone : mTombstones.entrySet()) {
+      if (tombstone.getValue() > since) deleted.add(tombstone.getKey());
+    }
+    return TasksDelta.create(changed, deleted, String.valueOf(mVersion));
+  }
+
+  private static class VersionedTask {
+    final Task task;
+    final long version;
+
+    VersionedTask(Task task, long version) {
+      this.task = task;
+      this.version = version;
+    }
+  }
+}
@@ -17,27 +17,29 @@
 package com.example.android.architecture.blueprints.todoapp.data.source.remote;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import com.example.android.architecture.blueprints.todoapp.data.Task;
 import com.example.android.architecture.blueprints.todoapp.data.TaskDetails;
+import com.example.android.architecture.blueprints.todoapp.data.TasksDelta;
 import com.example.android.architecture.blueprints.todoapp.data.source.TasksDataSource;
+import com.example.android.architecture.blueprints.todoapp.data.source.TasksSyncDataSource;
 import com.google.common.base.Optional;
 import io.reactivex.Flowable;
-import java.util.LinkedHashMap;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /** Implementation of the data source that adds a latency simulating network. */
-public class TasksRemoteDataSource implements TasksDataSource {
+public class TasksRemoteDataSource implements TasksDataSource, TasksSyncDataSource {
 
   private static TasksRemoteDataSource INSTANCE;
 
   private static final int SERVICE_LATENCY_IN_MILLIS = 3000;
 
-  private static final Map<String, Task> TASKS_SERVICE_DATA;
+  private static final InMemoryTasksServer TASKS_SERVICE = new InMemoryTasksServer();
 
   static {
-    TASKS_SERVICE_DATA = new LinkedHashMap<>(2);
     addTask("1234", "Build tower in Pisa", "Ground looks good, no foundation work required.");
     addTask("4321", "Finish bridge in Tacoma", "Found awesome girders at half the cost!");
   }
@@ -54,20 +56,26 @@ public class TasksRemoteDataSource implements TasksDataSource {
 
   private static void addTask(String id, String title, String description) {
     Task newTask = Task.create(id, TaskDetails.create(title, description, false));
-    TASKS_SERVICE_DATA.put(newTask.id(), newTask);
+    TASKS_SERVICE.saveTasks(Collections.singletonList(newTask));
   }
 
   @Override
   public Flowable<List<Task>> getTasks() {
-    return Flowable.fromIterable(TASKS_SERVICE_DATA.values())
+    return Flowable.fromIterable(TASKS_SERVICE.getTasks())
         .delay(SERVICE_LATENCY_IN_MILLIS, TimeUnit.MILLISECONDS)
         .toList()
         .toFlowable();
   }
 
+  @Override
+  public Flowable<TasksDelta> getTasksChangedSince(@Nullable String syncToken) {
+    return Flowable.fromCallable(() -> TASKS_SERVICE.getTasksChangedSince(syncToken))
+        .delay(SERVICE_LATENCY_IN_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
   @Override
   public Flowable<Optional<Task>> getTask(@NonNull String taskId) {
-    final Task task = TASKS_SERVICE_DATA.get(taskId);
+    final Task task = TASKS_SERVICE.getTask(taskId);
     if (task != null) {
       return Flowable.just(Optional.of(task))
           .delay(SERVICE_LATENCY_IN_MILLIS, TimeUnit.MILLISECONDS);
@@ -78,16 +86,31 @@ public class TasksRemoteDataSource implements TasksDataSource {
 
   @Override
   public void saveTask(@NonNull Task task) {
-    TASKS_SERVICE_DATA.put(task.id(), task);
+    TASKS_SERVICE.saveTasks(Collections.singletonList(task));
+  }
+
+  @Override
+  public void saveTasks(@NonNull Collection<Task> tasks) {
+    TASKS_SERVICE.saveTasks(tasks);
   }
 
   @Override
   public void deleteAllTasks() {
-    TASKS_SERVICE_DATA.clear();
+    TASKS_SERVICE.deleteAllTasks();
+  }
+
+  @Override
+  public void clearCompletedTasks() {
+    TASKS_SERVICE.clearCompletedTasks();
   }
 
   @Override
   public void deleteTask(@NonNull String taskId) {
-    TASKS_SERVICE_DATA.remove(taskId);
+    TASKS_SERVICE.deleteTasks(Collections.singletonList(taskId));
+  }
+
+  @Override
+  public void deleteTasks(@NonNull Collection<String> taskIds) {
+    TASKS_SERVICE.deleteTasks(taskIds);
   }
 }
@@ -20,6 +20,7 @@ import static com.example.android.architecture.blueprints.todoapp.statistics.Sta
 import static com.example.android.architecture.blueprints.todoapp.statistics.StatisticsStateBundler.bundleToStatisticsState;
 import static com.example.android.architecture.blueprints.todoapp.statistics.StatisticsStateBundler.statisticsStateToBundle;
 import static com.example.android.architecture.blueprints.todoapp.statistics.effecthandlers.StatisticsEffectHandlers.createEffectHandler;
+import static com.example.android.architecture.blueprints.todoapp.statistics.effecthandlers.StatisticsEffectHandlers.getStatisticsAggregator;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import android.os.Bundle;
@@ -28,6 +29,7 @@ import android.support.v4.app.Fragment;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import com.example.android.architecture.blueprints.todoapp.data.TaskStatistics;
 import com.example.android.architecture.blueprints.todoapp.statistics.domain.StatisticsEvent;
 import com.example.android.architecture.blueprints.todoapp.statistics.domain.StatisticsState;
 import com.example.android.architecture.blueprints.todoapp.statistics.view.StatisticsViews;
@@ -49,9 +51,15 @@ public class StatisticsFragment extends Fragment {
       LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
     StatisticsViews views = new StatisticsViews(inflater, checkNotNull(container));
 
-    mController =
-        createController(
-            createEffectHandler(getContext()), bundleToStatisticsState(savedInstanceState));
+    // The last known statistics are current, so they are preferred over any saved state.
+    TaskStatistics lastKnownStatistics =
+        getStatisticsAggregator(getContext()).getLastKnownStatistics();
+    StatisticsState defaultState =
+        lastKnownStatistics != null
+            ? StatisticsState.loaded(lastKnownStatistics)
+            : bundleToStatisticsState(savedInstanceState);
+
+    mController = createController(createEffectHandler(getContext()), defaultState);
     mController.connect(views);
     return views.getRootView();
   }
@@ -21,8 +21,11 @@ package com.example.android.architecture.blueprints.todoapp.statistics;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import android.os.Bundle;
+import com.example.android.architecture.blueprints.todoapp.data.TaskStatistics;
 import com.example.android.architecture.blueprints.todoapp.statistics.domain.StatisticsState;
 import com.google.common.base.Optional;
+import java.util.HashMap;
+import java.util.Map;
 import javax.annotation.Nullable;
 
 class StatisticsStateBundler {
@@ -32,8 +35,19 @@ class StatisticsStateBundler {
         loading -> Optional.absent(),
         loaded -> {
           Bundle bundle = new Bundle();
-          bundle.putInt("active_count", loaded.activeCount());
-          bundle.putInt("completed_count", loaded.completedCount());
+          TaskStatistics statistics = loaded.statistics();
+          bundle.putInt("active_count", statistics.activeCount());
+          bundle.putInt("completed_count", statistics.completedCount());
+          long[] days = new long[statistics.createdPerDay().size()];
+          int[] createdCounts = new int[days.length];
+          int i = 0;
+          for (Map.Entry<Long, Integer> entry : statistics.createdPerDay().entrySet()) {
+            days[i] = entry.getKey();
+            createdCounts[i] = entry.getValue();
+            i++;
+          }
+          bundle.putLongArray("created_days", days);
+          bundle.putIntArray("created_counts", createdCounts);
           return Optional.of(bundle);
         },
         failed -> Optional.absent());
@@ -47,8 +61,17 @@ class StatisticsStateBundler {
     bundle = checkNotNull(bundle.getBundle("statistics"));
 
     if (bundle.containsKey("active_count") && bundle.containsKey("completed_count")) {
+      Map<Long, Integer> createdPerDay = new HashMap<>();
+      long[] days = bundle.getLongArray("created_days");
+      int[] createdCounts = bundle.getIntArray("created_counts");
+      if (days != null && createdCounts != null) {
+        for (int i = 0; i < days.length; i++) {
+          createdPerDay.put(days[i], createdCounts[i]);
+        }
+      }
       return StatisticsState.loaded(
-          bundle.getInt("active_count"), bundle.getInt("completed_count"));
+          TaskStatistics.create(
+              bundle.getInt("active_count"), bundle.getInt("completed_count"), createdPerDay));
     }
 
     return StatisticsState.loading();
@@ -23,5 +23,5 @@ import com.spotify.dataenum.dataenum_case;
 
 @DataEnum
 public interface StatisticsEffect_dataenum {
-  dataenum_case LoadTasks();
+  dataenum_case ObserveStatistics();
 }
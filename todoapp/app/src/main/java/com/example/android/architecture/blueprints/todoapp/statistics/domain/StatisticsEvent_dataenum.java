@@ -18,14 +18,13 @@
  */
 package com.example.android.architecture.blueprints.todoapp.statistics.domain;
 
-import com.example.android.architecture.blueprints.todoapp.data.Task;
-import com.google.common.collect.ImmutableList;
+import com.example.android.architecture.blueprints.todoapp.data.TaskStatistics;
 import com.spotify.dataenum.DataEnum;
 import com.spotify.dataenum.dataenum_case;
 
 @DataEnum
 public interface StatisticsEvent_dataenum {
-  dataenum_case TasksLoaded(ImmutableList<Task> tasks);
+  dataenum_case StatisticsLoaded(TaskStatistics statistics);
 
   dataenum_case TasksLoadingFailed();
 }
@@ -18,16 +18,16 @@
  */
 package com.example.android.architecture.blueprints.todoapp.statistics.domain;
 
-import static com.example.android.architecture.blueprints.todoapp.statistics.domain.StatisticsEffect.loadTasks;
+import static com.example.android.architecture.blueprints.todoapp.statistics.domain.StatisticsEffect.observeStatistics;
 import static com.example.android.architecture.blueprints.todoapp.statistics.domain.StatisticsState.failed;
 import static com.example.android.architecture.blueprints.todoapp.statistics.domain.StatisticsState.loaded;
 import static com.example.android.architecture.blueprints.todoapp.statistics.domain.StatisticsState.loading;
 import static com.spotify.mobius.Effects.effects;
 import static com.spotify.mobius.First.first;
 import static com.spotify.mobius.Next.next;
+import static com.spotify.mobius.Next.noChange;
 
-import com.example.android.architecture.blueprints.todoapp.data.Task;
-import com.google.common.collect.ImmutableList;
+import com.example.android.architecture.blueprints.todoapp.data.TaskStatistics;
 import com.spotify.mobius.First;
 import com.spotify.mobius.Next;
 import javax.annotation.Nonnull;
@@ -36,27 +36,28 @@ public final class StatisticsLogic {
 
   private StatisticsLogic() {}
 
+  /**
+   * A loaded state, such as the last known statistics, is shown as it is while the statistics are
+   * observed for changes.
+   */
   @Nonnull
   public static First<StatisticsState, StatisticsEffect> init(StatisticsState state) {
     return state.map(
-        loading -> first(state, effects(loadTasks())),
-        First::first,
-        failed -> first(loading(), effects(loadTasks())));
+        loading -> first(state, effects(observeStatistics())),
+        loaded -> first(state, effects(observeStatistics())),
+        failed -> first(loading(), effects(observeStatistics())));
   }
 
   @Nonnull
   public static Next<StatisticsState, StatisticsEffect> update(
       StatisticsState state, StatisticsEvent event) {
     return event.map(
-        tasksLoaded -> {
-          ImmutableList<Task> tasks = tasksLoaded.tasks();
-          int activeCount = 0;
-          int completedCount = 0;
-          for (Task task : tasks) {
-            if (task.details().completed()) completedCount++;
-            else activeCount++;
+        statisticsLoaded -> {
+          TaskStatistics statistics = statisticsLoaded.statistics();
+          if (state.isLoaded() && state.asLoaded().statistics().equals(statistics)) {
+            return noChange();
           }
-          return next(loaded(activeCount, completedCount));
+          return next(loaded(statistics));
         },
         tasksLoadingFailed -> next(failed()));
   }
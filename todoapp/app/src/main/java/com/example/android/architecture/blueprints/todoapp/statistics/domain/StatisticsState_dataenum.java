@@ -18,6 +18,7 @@
  */
 package com.example.android.architecture.blueprints.todoapp.statistics.domain;
 
+import com.example.android.architecture.blueprints.todoapp.data.TaskStatistics;
 import com.spotify.dataenum.DataEnum;
 import com.spotify.dataenum.dataenum_case;
 
@@ -25,7 +26,7 @@ import com.spotify.dataenum.dataenum_case;
 public interface StatisticsState_dataenum {
   dataenum_case Loading();
 
-  dataenum_case Loaded(int activeCount, int completedCount);
+  dataenum_case Loaded(TaskStatistics statistics);
 
   dataenum_case Failed();
 }
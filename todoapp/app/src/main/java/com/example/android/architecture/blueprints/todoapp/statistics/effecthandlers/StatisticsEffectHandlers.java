@@ -21,36 +21,41 @@ package com.example.android.architecture.blueprints.todoapp.statistics.effecthan
 import static com.example.android.architecture.blueprints.todoapp.statistics.domain.StatisticsEvent.tasksLoadingFailed;
 
 import android.content.Context;
+import com.example.android.architecture.blueprints.todoapp.data.TaskStatistics;
+import com.example.android.architecture.blueprints.todoapp.data.source.local.TaskStatisticsAggregator;
 import com.example.android.architecture.blueprints.todoapp.data.source.local.TasksLocalDataSource;
 import com.example.android.architecture.blueprints.todoapp.statistics.domain.StatisticsEffect;
-import com.example.android.architecture.blueprints.todoapp.statistics.domain.StatisticsEffect.LoadTasks;
+import com.example.android.architecture.blueprints.todoapp.statistics.domain.StatisticsEffect.ObserveStatistics;
 import com.example.android.architecture.blueprints.todoapp.statistics.domain.StatisticsEvent;
 import com.example.android.architecture.blueprints.todoapp.util.schedulers.SchedulerProvider;
-import com.google.common.collect.ImmutableList;
 import com.spotify.mobius.rx2.RxMobius;
+import io.reactivex.Flowable;
 import io.reactivex.ObservableTransformer;
 
 public class StatisticsEffectHandlers {
   public static ObservableTransformer<StatisticsEffect, StatisticsEvent> createEffectHandler(
       Context context) {
-    TasksLocalDataSource localSource =
-        TasksLocalDataSource.getInstance(context, SchedulerProvider.getInstance());
     return RxMobius.<StatisticsEffect, StatisticsEvent>subtypeEffectHandler()
-        .addTransformer(LoadTasks.class, loadTasksHandler(localSource))
+        .addTransformer(
+            ObserveStatistics.class,
+            observeStatisticsHandler(getStatisticsAggregator(context).getStatistics()))
         .build();
   }
 
-  private static ObservableTransformer<LoadTasks, StatisticsEvent> loadTasksHandler(
-      TasksLocalDataSource localSource) {
+  public static TaskStatisticsAggregator getStatisticsAggregator(Context context) {
+    return TaskStatisticsAggregator.getInstance(
+        TasksLocalDataSource.getInstance(context, SchedulerProvider.getInstance()),
+        SchedulerProvider.getInstance());
+  }
+
+  static ObservableTransformer<ObserveStatistics, StatisticsEvent> observeStatisticsHandler(
+      Flowable<TaskStatistics> statistics) {
     return effects ->
-        effects.flatMap(
-            loadTasks ->
-                localSource
-                    .getTasks()
+        effects.switchMap(
+            observeStatistics ->
+                statistics
                     .toObservable()
-                    .take(1)
-                    .map(ImmutableList::copyOf)
-                    .map(StatisticsEvent::tasksLoaded)
+                    .map(StatisticsEvent::statisticsLoaded)
                     .onErrorReturnItem(tasksLoadingFailed()));
   }
 }
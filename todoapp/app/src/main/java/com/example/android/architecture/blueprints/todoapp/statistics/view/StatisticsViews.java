@@ -22,11 +22,13 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 import com.example.android.architecture.blueprints.todoapp.R;
+import com.example.android.architecture.blueprints.todoapp.data.TaskStatistics;
 import com.example.android.architecture.blueprints.todoapp.statistics.domain.StatisticsEvent;
 import com.example.android.architecture.blueprints.todoapp.statistics.domain.StatisticsState;
 import com.spotify.mobius.Connectable;
 import com.spotify.mobius.Connection;
 import com.spotify.mobius.functions.Consumer;
+import java.util.TimeZone;
 import javax.annotation.Nonnull;
 
 public class StatisticsViews implements Connectable<StatisticsState, StatisticsEvent> {
@@ -61,17 +63,32 @@ public class StatisticsViews implements Connectable<StatisticsState, StatisticsE
     state.match(
         loading -> mStatisticsTV.setText(R.string.loading),
         loaded -> {
-          int numberOfCompletedTasks = loaded.completedCount();
-          int numberOfIncompleteTasks = loaded.activeCount();
-          if (numberOfCompletedTasks == 0 && numberOfIncompleteTasks == 0) {
+          TaskStatistics statistics = loaded.statistics();
+          if (statistics.totalCount() == 0) {
             mStatisticsTV.setText(R.string.statistics_no_tasks);
           } else {
             Resources resources = mRoot.getContext().getResources();
             String activeTasksString =
-                resources.getString(R.string.statistics_active_tasks, numberOfIncompleteTasks);
+                resources.getString(R.string.statistics_active_tasks, statistics.activeCount());
             String completedTasksString =
-                resources.getString(R.string.statistics_completed_tasks, numberOfCompletedTasks);
-            String displayString = activeTasksString + "\n" + completedTasksString;
+                resources.getString(
+                    R.string.statistics_completed_tasks, statistics.completedCount());
+            String completionString =
+                resources.getString(
+                    R.string.statistics_completion_percentage,
+                    Math.round(statistics.completionRatio() * 100));
+            long today = TaskStatistics.epochDay(System.currentTimeMillis(), TimeZone.getDefault());
+            String createdTodayString =
+                resources.getString(
+                    R.string.statistics_created_today, statistics.createdOn(today));
+            String displayString =
+                activeTasksString
+                    + "\n"
+                    + completedTasksString
+                    + "\n"
+                    + completionString
+                    + "\n"
+                    + createdTodayString;
             mStatisticsTV.setText(displayString);
           }
         },
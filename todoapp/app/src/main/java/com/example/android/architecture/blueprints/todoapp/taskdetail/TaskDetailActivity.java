@@ -23,7 +23,6 @@ import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.Toolbar;
 import com.example.android.architecture.blueprints.todoapp.R;
 import com.example.android.architecture.blueprints.todoapp.data.Task;
-import com.example.android.architecture.blueprints.todoapp.data.TaskBundlePacker;
 import com.example.android.architecture.blueprints.todoapp.util.ActivityUtils;
 
 /** Displays task details screen. */
@@ -31,9 +30,13 @@ public class TaskDetailActivity extends AppCompatActivity {
 
   public static final String EXTRA_TASK_ID = "TASK_ID";
 
+  /**
+   * Only the task's id goes through the intent; the detail screen finds the task in memory, or
+   * loads it by id.
+   */
   public static Intent showTask(Context c, Task task) {
     Intent i = new Intent(c, TaskDetailActivity.class);
-    i.putExtra(EXTRA_TASK_ID, TaskBundlePacker.taskToBundle(task));
+    i.putExtra(EXTRA_TASK_ID, task.id());
     return i;
   }
 
@@ -51,13 +54,13 @@ public class TaskDetailActivity extends AppCompatActivity {
     ab.setDisplayShowHomeEnabled(true);
 
     // Get the requested task id
-    Task task = TaskBundlePacker.taskFromBundle(getIntent().getBundleExtra(EXTRA_TASK_ID));
+    String taskId = getIntent().getStringExtra(EXTRA_TASK_ID);
 
     TaskDetailFragment taskDetailFragment =
         (TaskDetailFragment) getSupportFragmentManager().findFragmentById(R.id.contentFrame);
 
     if (taskDetailFragment == null) {
-      taskDetailFragment = TaskDetailFragment.newInstance(task);
+      taskDetailFragment = TaskDetailFragment.newInstance(taskId);
 
       ActivityUtils.addFragmentToActivity(
           getSupportFragmentManager(), taskDetailFragment, R.id.contentFrame);
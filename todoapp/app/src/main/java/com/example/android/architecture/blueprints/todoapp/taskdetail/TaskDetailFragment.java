@@ -35,27 +35,38 @@ import com.example.android.architecture.blueprints.todoapp.R;
 import com.example.android.architecture.blueprints.todoapp.addedittask.AddEditTaskActivity;
 import com.example.android.architecture.blueprints.todoapp.data.Task;
 import com.example.android.architecture.blueprints.todoapp.data.TaskBundlePacker;
+import com.example.android.architecture.blueprints.todoapp.data.TaskPrefetchCache;
 import com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEvent;
 import com.example.android.architecture.blueprints.todoapp.taskdetail.effecthandlers.TaskDetailEffectHandlers;
 import com.example.android.architecture.blueprints.todoapp.taskdetail.view.TaskDetailViewDataMapper;
 import com.example.android.architecture.blueprints.todoapp.taskdetail.view.TaskDetailViews;
+import com.example.android.architecture.blueprints.todoapp.util.schedulers.SchedulerProvider;
 import com.spotify.mobius.MobiusLoop;
+import io.reactivex.disposables.Disposable;
 import io.reactivex.subjects.PublishSubject;
 
 /** Main UI for the task detail screen. */
 public class TaskDetailFragment extends Fragment {
 
+  @NonNull private static final String ARGUMENT_TASK_ID = "TASK_ID";
+
   @NonNull private static final String ARGUMENT_TASK = "TASK";
 
   @NonNull private static final int REQUEST_EDIT_TASK = 1;
 
-  private MobiusLoop.Controller<Task, TaskDetailEvent> mController;
+  // Null while the task is being loaded.
+  @Nullable private MobiusLoop.Controller<Task, TaskDetailEvent> mController;
+  @Nullable private Disposable mTaskLoading;
   private TaskDetailViews mTaskDetailsViews;
   private PublishSubject<TaskDetailEvent> mMenuEvents = PublishSubject.create();
 
-  public static TaskDetailFragment newInstance(Task task) {
+  /**
+   * The task itself is taken from {@link TaskPrefetchCache} if a held press prefetched it, else
+   * from the repository's cache, and only loaded by id if neither has it.
+   */
+  public static TaskDetailFragment newInstance(String taskId) {
     Bundle arguments = new Bundle();
-    arguments.putBundle(ARGUMENT_TASK, TaskBundlePacker.taskToBundle(task));
+    arguments.putString(ARGUMENT_TASK_ID, taskId);
     TaskDetailFragment fragment = new TaskDetailFragment();
     fragment.setArguments(arguments);
     return fragment;
@@ -68,47 +79,95 @@ public class TaskDetailFragment extends Fragment {
     setHasOptionsMenu(true);
     FloatingActionButton fab = getActivity().findViewById(R.id.fab_edit_task);
     mTaskDetailsViews = new TaskDetailViews(inflater, container, fab, mMenuEvents);
-    mController =
-        TaskDetailInjector.createController(
-            TaskDetailEffectHandlers.createEffectHandlers(
-                mTaskDetailsViews, getContext(), this::dismiss, this::openTaskEditor),
-            resolveDefaultModel(savedInstanceState));
-    mController.connect(contramap(TaskDetailViewDataMapper::taskToTaskViewData, mTaskDetailsViews));
+    Task task = resolveDefaultModel(savedInstanceState);
+    if (task != null) {
+      createController(task);
+    } else {
+      mTaskDetailsViews.showLoading();
+      mTaskLoading = loadTask(getArguments().getString(ARGUMENT_TASK_ID));
+    }
     return mTaskDetailsViews.getRootView();
   }
 
-  @NonNull
+  /**
+   * Tasks the list has read are usually still in the repository's cache. Neither cache holds the
+   * task when the app was restarted on this screen without saved state, so null is returned and
+   * the task has to be loaded first.
+   */
+  @Nullable
   private Task resolveDefaultModel(Bundle savedInstanceState) {
-    Task t;
     if (savedInstanceState != null && savedInstanceState.containsKey(ARGUMENT_TASK)) {
-      t = TaskBundlePacker.taskFromBundle(savedInstanceState.getBundle(ARGUMENT_TASK));
-    } else {
-      t = TaskBundlePacker.taskFromBundle(getArguments().getBundle(ARGUMENT_TASK));
+      return TaskBundlePacker.taskFromBundle(savedInstanceState.getBundle(ARGUMENT_TASK));
+    }
+    String taskId = getArguments().getString(ARGUMENT_TASK_ID);
+    Task t = TaskPrefetchCache.getInstance().take(taskId);
+    if (t == null) {
+      t = TaskDetailEffectHandlers.tasksRepository(getContext()).getCachedTask(taskId);
     }
     return t;
   }
 
+  /**
+   * The loop only starts once the task has been read, so that nothing can complete or edit a task
+   * whose fields aren't known yet and write blanks over the stored ones.
+   */
+  private Disposable loadTask(String taskId) {
+    return TaskDetailEffectHandlers.tasksRepository(getContext())
+        .getTask(taskId)
+        .firstElement()
+        .observeOn(SchedulerProvider.getInstance().ui())
+        .subscribe(
+            task -> {
+              mTaskLoading = null;
+              if (!task.isPresent()) {
+                dismiss();
+                return;
+              }
+              createController(task.get());
+              if (isResumed()) mController.start();
+            },
+            error -> dismiss());
+  }
+
+  private void createController(Task task) {
+    mController =
+        TaskDetailInjector.createController(
+            TaskDetailEffectHandlers.createEffectHandlers(
+                mTaskDetailsViews, getContext(), this::dismiss, this::openTaskEditor),
+            task);
+    mController.connect(contramap(TaskDetailViewDataMapper::taskToTaskViewData, mTaskDetailsViews));
+  }
+
   @Override
   public void onDestroyView() {
-    mController.disconnect();
+    if (mTaskLoading != null) {
+      mTaskLoading.dispose();
+      mTaskLoading = null;
+    }
+    if (mController != null) {
+      mController.disconnect();
+      mController = null;
+    }
     super.onDestroyView();
   }
 
   @Override
   public void onSaveInstanceState(Bundle outState) {
     super.onSaveInstanceState(outState);
-    outState.putBundle(ARGUMENT_TASK, TaskBundlePacker.taskToBundle(mController.getModel()));
+    if (mController != null) {
+      outState.putBundle(ARGUMENT_TASK, TaskBundlePacker.taskToBundle(mController.getModel()));
+    }
   }
 
   @Override
   public void onResume() {
     super.onResume();
-    mController.start();
+    if (mController != null) mController.start();
   }
 
   @Override
   public void onPause() {
-    mController.stop();
+    if (mController != null) mController.stop();
     super.onPause();
   }
 
@@ -22,8 +22,8 @@ import com.example.android.architecture.blueprints.todoapp.data.Task;
 import com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEffect;
 import com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEvent;
 import com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailLogic;
+import com.example.android.architecture.blueprints.todoapp.util.MetricsLogger;
 import com.spotify.mobius.MobiusLoop;
-import com.spotify.mobius.android.AndroidLogger;
 import com.spotify.mobius.android.MobiusAndroid;
 import com.spotify.mobius.rx2.RxMobius;
 import io.reactivex.ObservableTransformer;
@@ -38,6 +38,7 @@ public class TaskDetailInjector {
   private static MobiusLoop.Factory<Task, TaskDetailEvent, TaskDetailEffect> createLoop(
       ObservableTransformer<TaskDetailEffect, TaskDetailEvent> effectHandlers) {
     return RxMobius.loop(TaskDetailLogic::update, effectHandlers)
-        .logger(AndroidLogger.tag("Task Detail"));
+        .init(TaskDetailLogic::init)
+        .logger(MetricsLogger.tag("Task Detail"));
   }
 }
@@ -24,6 +24,8 @@ import com.spotify.dataenum.dataenum_case;
 
 @DataEnum
 interface TaskDetailEffect_dataenum {
+  dataenum_case ObserveTask(String taskId);
+
   dataenum_case DeleteTask(Task task);
 
   dataenum_case SaveTask(Task task);
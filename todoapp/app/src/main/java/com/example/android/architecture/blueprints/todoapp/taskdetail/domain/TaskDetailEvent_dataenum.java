@@ -18,6 +18,7 @@
  */
 package com.example.android.architecture.blueprints.todoapp.taskdetail.domain;
 
+import com.example.android.architecture.blueprints.todoapp.data.Task;
 import com.spotify.dataenum.DataEnum;
 import com.spotify.dataenum.dataenum_case;
 
@@ -40,4 +41,8 @@ interface TaskDetailEvent_dataenum {
   dataenum_case TaskSaveFailed();
 
   dataenum_case TaskDeletionFailed();
+
+  dataenum_case TaskChanged(Task task);
+
+  dataenum_case TaskRemoved();
 }
@@ -22,19 +22,27 @@ import static com.example.android.architecture.blueprints.todoapp.taskdetail.dom
 import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEffect.exit;
 import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEffect.notifyTaskMarkedActive;
 import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEffect.notifyTaskMarkedComplete;
+import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEffect.observeTask;
 import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEffect.openTaskEditor;
 import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEffect.saveTask;
 import static com.spotify.mobius.Effects.effects;
+import static com.spotify.mobius.First.first;
 import static com.spotify.mobius.Next.dispatch;
 import static com.spotify.mobius.Next.next;
 import static com.spotify.mobius.Next.noChange;
 
 import com.example.android.architecture.blueprints.todoapp.data.Task;
+import com.spotify.mobius.First;
 import com.spotify.mobius.Next;
 import javax.annotation.Nonnull;
 
 public class TaskDetailLogic {
 
+  @Nonnull
+  public static First<Task, TaskDetailEffect> init(Task task) {
+    return first(task, effects(observeTask(task.id())));
+  }
+
   @Nonnull
   public static Next<Task, TaskDetailEffect> update(Task task, TaskDetailEvent event) {
     return event.map(
@@ -46,7 +54,11 @@ public class TaskDetailLogic {
         taskCompleted -> dispatch(effects(notifyTaskMarkedComplete())),
         taskActivated -> dispatch(effects(notifyTaskMarkedActive())),
         taskSaveFailed -> noChange(),
-        taskDeletionFailed -> noChange());
+        // Observing stopped when the deletion was sent, but the task is still there.
+        taskDeletionFailed -> dispatch(effects(observeTask(task.id()))),
+        taskChanged -> taskChanged.task().equals(task) ? noChange() : next(taskChanged.task()),
+        // Deleted elsewhere; this screen's own deletion exits through taskDeleted.
+        taskRemoved -> dispatch(effects(exit())));
   }
 
   private static Next<Task, TaskDetailEffect> onActivateTaskRequested(Task task) {
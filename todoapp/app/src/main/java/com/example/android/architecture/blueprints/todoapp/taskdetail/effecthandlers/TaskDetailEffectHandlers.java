@@ -18,17 +18,21 @@
  */
 package com.example.android.architecture.blueprints.todoapp.taskdetail.effecthandlers;
 
+import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEvent.taskChanged;
 import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEvent.taskDeleted;
 import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEvent.taskDeletionFailed;
 import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEvent.taskMarkedActive;
 import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEvent.taskMarkedComplete;
+import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEvent.taskRemoved;
 import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEvent.taskSaveFailed;
 import static io.reactivex.android.schedulers.AndroidSchedulers.mainThread;
 
 import android.content.Context;
 import com.example.android.architecture.blueprints.todoapp.data.Task;
 import com.example.android.architecture.blueprints.todoapp.data.source.TasksDataSource;
+import com.example.android.architecture.blueprints.todoapp.data.source.TasksRepository;
 import com.example.android.architecture.blueprints.todoapp.data.source.local.TasksLocalDataSource;
+import com.example.android.architecture.blueprints.todoapp.data.source.local.TasksOutbox;
 import com.example.android.architecture.blueprints.todoapp.data.source.remote.TasksRemoteDataSource;
 import com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEffect;
 import com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEffect.DeleteTask;
@@ -37,28 +41,36 @@ import com.example.android.architecture.blueprints.todoapp.taskdetail.domain.Tas
 import com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEffect.NotifyTaskMarkedActive;
 import com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEffect.NotifyTaskMarkedComplete;
 import com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEffect.NotifyTaskSaveFailed;
+import com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEffect.ObserveTask;
 import com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEffect.OpenTaskEditor;
 import com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEffect.SaveTask;
 import com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEvent;
 import com.example.android.architecture.blueprints.todoapp.taskdetail.view.TaskDetailViewActions;
 import com.example.android.architecture.blueprints.todoapp.util.schedulers.SchedulerProvider;
+import com.google.common.base.Optional;
 import com.spotify.mobius.rx2.RxMobius;
+import io.reactivex.Flowable;
+import io.reactivex.Observable;
 import io.reactivex.ObservableTransformer;
 import io.reactivex.functions.Action;
 import io.reactivex.functions.Consumer;
 import io.reactivex.functions.Function;
+import io.reactivex.subjects.PublishSubject;
 
 public class TaskDetailEffectHandlers {
 
   public static ObservableTransformer<TaskDetailEffect, TaskDetailEvent> createEffectHandlers(
       TaskDetailViewActions view, Context context, Action dismiss, Consumer<Task> launchEditor) {
 
-    TasksRemoteDataSource remoteSource = TasksRemoteDataSource.getInstance();
     TasksLocalDataSource localSource =
         TasksLocalDataSource.getInstance(context, SchedulerProvider.getInstance());
+    TasksRepository repository = tasksRepository(context);
+    PublishSubject<String> deletionsSent = PublishSubject.create();
     return RxMobius.<TaskDetailEffect, TaskDetailEvent>subtypeEffectHandler()
-        .addFunction(DeleteTask.class, deleteTaskHandler(remoteSource, localSource))
-        .addFunction(SaveTask.class, saveTaskHandler(remoteSource, localSource))
+        .addTransformer(
+            ObserveTask.class, observeTaskHandler(localSource::observeTask, deletionsSent))
+        .addFunction(DeleteTask.class, deleteTaskHandler(repository, deletionsSent::onNext))
+        .addFunction(SaveTask.class, saveTaskHandler(repository))
         .addAction(NotifyTaskMarkedComplete.class, view::showTaskMarkedComplete, mainThread())
         .addAction(NotifyTaskMarkedActive.class, view::showTaskMarkedActive, mainThread())
         .addAction(NotifyTaskDeletionFailed.class, view::showTaskDeletionFailed, mainThread())
@@ -68,17 +80,43 @@ public class TaskDetailEffectHandlers {
         .build();
   }
 
+  /** Returns the repository shared with the other screens, which caches the tasks they read. */
+  public static TasksRepository tasksRepository(Context context) {
+    TasksLocalDataSource localSource =
+        TasksLocalDataSource.getInstance(context, SchedulerProvider.getInstance());
+    return TasksRepository.getInstance(
+        TasksOutbox.getInstance(
+            TasksRemoteDataSource.getInstance(), localSource, SchedulerProvider.getInstance()),
+        localSource);
+  }
+
+  /**
+   * Observes straight from local storage, which only re-reads the task when it changes. Stops once
+   * this screen sends its own deletion of the task, which exits by itself when it is done.
+   */
+  static ObservableTransformer<ObserveTask, TaskDetailEvent> observeTaskHandler(
+      Function<String, Flowable<Optional<Task>>> observeTask, Observable<String> deletionsSent) {
+    return observeTaskEffects ->
+        observeTaskEffects.switchMap(
+            effect ->
+                observeTask
+                    .apply(effect.taskId())
+                    .toObservable()
+                    .takeUntil(deletionsSent.filter(effect.taskId()::equals))
+                    .map(task -> task.isPresent() ? taskChanged(task.get()) : taskRemoved())
+                    // The screen keeps showing the task it has if storage can't be read.
+                    .onErrorResumeNext(Observable.empty()));
+  }
+
   private static Consumer<OpenTaskEditor> openTaskEditorHandler(
       Consumer<Task> launchEditorCommand) {
     return openEditorEffect -> launchEditorCommand.accept(openEditorEffect.task());
   }
 
-  private static Function<SaveTask, TaskDetailEvent> saveTaskHandler(
-      TasksDataSource remoteSource, TasksDataSource localSource) {
+  private static Function<SaveTask, TaskDetailEvent> saveTaskHandler(TasksDataSource dataSource) {
     return saveTask -> {
       try {
-        remoteSource.saveTask(saveTask.task());
-        localSource.saveTask(saveTask.task());
+        dataSource.saveTask(saveTask.task());
         return saveTask.task().details().completed() ? taskMarkedComplete() : taskMarkedActive();
       } catch (Exception e) {
         return taskSaveFailed();
@@ -86,12 +124,12 @@ public class TaskDetailEffectHandlers {
     };
   }
 
-  private static Function<DeleteTask, TaskDetailEvent> deleteTaskHandler(
-      TasksDataSource remoteSource, TasksDataSource localSource) {
+  static Function<DeleteTask, TaskDetailEvent> deleteTaskHandler(
+      TasksDataSource dataSource, Consumer<String> deletionSent) {
     return deleteTask -> {
       try {
-        remoteSource.deleteTask(deleteTask.task().id());
-        localSource.deleteTask(deleteTask.task().id());
+        deletionSent.accept(deleteTask.task().id());
+        dataSource.deleteTask(deleteTask.task().id());
         return taskDeleted();
       } catch (Exception e) {
         return taskDeletionFailed();
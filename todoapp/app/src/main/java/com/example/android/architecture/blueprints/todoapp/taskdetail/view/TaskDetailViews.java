@@ -86,7 +86,18 @@ public class TaskDetailViews
     Snackbar.make(mRootView, "Failed to save change", Snackbar.LENGTH_LONG).show();
   }
 
+  /** Shown until the task has been read; until then the screen offers nothing to change it. */
+  public void showLoading() {
+    mDetailCompleteStatus.setVisibility(View.GONE);
+    mDetailDescription.setVisibility(View.GONE);
+    mDetailTitle.setVisibility(View.VISIBLE);
+    mDetailTitle.setText(R.string.loading);
+    mFab.hide();
+  }
+
   private void render(TaskDetailViewData viewData) {
+    mDetailCompleteStatus.setVisibility(View.VISIBLE);
+    mFab.show();
     mDetailCompleteStatus.setChecked(viewData.completedChecked());
     bindTextViewData(mDetailTitle, viewData.title());
     bindTextViewData(mDetailDescription, viewData.description());
@@ -23,7 +23,7 @@ import static com.example.android.architecture.blueprints.todoapp.tasks.domain.T
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListModelBundlePacker.tasksListModelFromBundle;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListModelBundlePacker.tasksListModelToBundle;
 import static com.example.android.architecture.blueprints.todoapp.tasks.effecthandlers.TasksListEffectHandlers.createEffectHandler;
-import static com.spotify.mobius.extras.Connectables.contramap;
+import static com.example.android.architecture.blueprints.todoapp.util.AsyncConnectables.contramap;
 
 import android.app.Activity;
 import android.content.Intent;
@@ -43,11 +43,14 @@ import com.example.android.architecture.blueprints.todoapp.addedittask.AddEditTa
 import com.example.android.architecture.blueprints.todoapp.data.Task;
 import com.example.android.architecture.blueprints.todoapp.taskdetail.TaskDetailActivity;
 import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksFilterType;
+import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect;
 import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent;
 import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListModel;
 import com.example.android.architecture.blueprints.todoapp.tasks.view.DeferredEventSource;
 import com.example.android.architecture.blueprints.todoapp.tasks.view.TasksListViewDataMapper;
 import com.example.android.architecture.blueprints.todoapp.tasks.view.TasksViews;
+import com.example.android.architecture.blueprints.todoapp.util.MetricsLogger;
+import com.example.android.architecture.blueprints.todoapp.util.schedulers.SchedulerProvider;
 import com.spotify.mobius.MobiusLoop;
 import io.reactivex.subjects.BehaviorSubject;
 import io.reactivex.subjects.PublishSubject;
@@ -59,6 +62,7 @@ public class TasksFragment extends Fragment {
   private PublishSubject<TasksListEvent> mMenuEvents = PublishSubject.create();
   private TasksViews mViews;
   private DeferredEventSource<TasksListEvent> mEventSource = new DeferredEventSource<>();
+  private MetricsLogger<TasksListModel, TasksListEvent, TasksListEffect> mMetrics;
 
   public static TasksFragment newInstance() {
     return new TasksFragment();
@@ -70,15 +74,29 @@ public class TasksFragment extends Fragment {
       LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
 
     FloatingActionButton fab = getActivity().findViewById(R.id.fab_add_task);
-    mViews = new TasksViews(inflater, container, fab, mMenuEvents);
+    mMetrics = TasksInjector.createMetrics();
+    mViews = new TasksViews(inflater, container, fab, mMenuEvents, mMetrics::onRendered);
+    mMetrics.reportCount("skipped renders", mViews::getSkippedRenderCount);
+    mMetrics.reportCount("dropped deferred events", mEventSource::getDroppedCount);
+    mMetrics.reportCount("max deferred events", mEventSource::getMaxQueuedCount);
 
     mController =
         TasksInjector.createController(
-            createEffectHandler(getContext(), mViews, this::showAddTask, this::showTaskDetailsUi),
+            createEffectHandler(
+                getContext(), mViews, this::showAddTask, this::showTaskDetailsUi, mMetrics),
             mEventSource,
-            resolveDefaultModel(savedInstanceState));
-
-    mController.connect(contramap(TasksListViewDataMapper::tasksListModelToViewData, mViews));
+            resolveDefaultModel(savedInstanceState),
+            mMetrics);
+
+    // Filtering and mapping a large list is kept off the main thread, which only gets the result.
+    mController.connect(
+        mMetrics.countedConnectable(
+            contramap(
+                mMetrics.taggingRenders(
+                    TasksListViewDataMapper.memoizedTasksListModelToViewData()),
+                SchedulerProvider.getInstance().computation(),
+                SchedulerProvider.getInstance().ui(),
+                mViews)));
     setHasOptionsMenu(true);
     return mViews.getRootView();
   }
@@ -117,6 +135,7 @@ public class TasksFragment extends Fragment {
   @Override
   public void onDestroyView() {
     mController.disconnect();
+    mMetrics.logSummary();
     super.onDestroyView();
   }
 
@@ -22,9 +22,9 @@ import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksLis
 import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent;
 import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListLogic;
 import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListModel;
+import com.example.android.architecture.blueprints.todoapp.util.MetricsLogger;
 import com.spotify.mobius.EventSource;
 import com.spotify.mobius.MobiusLoop;
-import com.spotify.mobius.android.AndroidLogger;
 import com.spotify.mobius.android.MobiusAndroid;
 import com.spotify.mobius.rx2.RxMobius;
 import io.reactivex.ObservableTransformer;
@@ -34,18 +34,24 @@ public class TasksInjector {
   public static MobiusLoop.Controller<TasksListModel, TasksListEvent> createController(
       ObservableTransformer<TasksListEffect, TasksListEvent> effectHandler,
       EventSource<TasksListEvent> eventSource,
-      TasksListModel defaultModel) {
+      TasksListModel defaultModel,
+      MetricsLogger<TasksListModel, TasksListEvent, TasksListEffect> metrics) {
 
-    return MobiusAndroid.controller(createLoop(eventSource, effectHandler), defaultModel);
+    return MobiusAndroid.controller(createLoop(eventSource, effectHandler, metrics), defaultModel);
+  }
+
+  public static MetricsLogger<TasksListModel, TasksListEvent, TasksListEffect> createMetrics() {
+    return MetricsLogger.tag("TasksList");
   }
 
   private static MobiusLoop.Factory<TasksListModel, TasksListEvent, TasksListEffect> createLoop(
       EventSource<TasksListEvent> eventSource,
-      ObservableTransformer<TasksListEffect, TasksListEvent> effectHandler) {
+      ObservableTransformer<TasksListEffect, TasksListEvent> effectHandler,
+      MetricsLogger<TasksListModel, TasksListEvent, TasksListEffect> metrics) {
 
-    return RxMobius.loop(TasksListLogic::update, effectHandler)
+    return RxMobius.loop(TasksListLogic::update, metrics.countedEffectHandler(effectHandler))
         .init(TasksListLogic::init)
-        .eventSource(eventSource)
-        .logger(AndroidLogger.tag("TasksList"));
+        .eventSource(metrics.countedEventSource(eventSource))
+        .logger(metrics);
   }
 }
@@ -22,26 +22,46 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.example.android.architecture.blueprints.todoapp.data.Task;
 import com.google.common.collect.ImmutableList;
-import io.reactivex.Observable;
-import io.reactivex.functions.Predicate;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+/**
+ * Filters run inside update, so they make a counting pass and then copy the matches into an array
+ * of the right size. The result wraps that array without copying it again, so the only allocations
+ * are for the result.
+ */
 public class TaskFilters {
-  private static final HashMap<TasksFilterType, Predicate<Task>> FILTERS;
 
-  static {
-    FILTERS = new HashMap<>();
-    FILTERS.put(TasksFilterType.ALL_TASKS, t -> true);
-    FILTERS.put(TasksFilterType.ACTIVE_TASKS, t -> !t.details().completed());
-    FILTERS.put(TasksFilterType.COMPLETED_TASKS, t -> t.details().completed());
+  public static List<Task> filterTasks(List<Task> tasks, TasksFilterType filter) {
+    checkNotNull(tasks);
+    if (filter == TasksFilterType.ALL_TASKS) return ImmutableList.copyOf(tasks);
+
+    Task[] matches = new Task[countTasks(tasks, filter)];
+    int next = 0;
+    for (int i = 0; i < tasks.size(); i++) {
+      Task task = tasks.get(i);
+      if (matches(task, filter)) matches[next++] = task;
+    }
+    return Collections.unmodifiableList(Arrays.asList(matches));
+  }
+
+  public static int countTasks(List<Task> tasks, TasksFilterType filter) {
+    int count = 0;
+    for (int i = 0; i < tasks.size(); i++) {
+      if (matches(tasks.get(i), filter)) count++;
+    }
+    return count;
   }
 
-  public static ImmutableList<Task> filterTasks(List<Task> tasks, TasksFilterType filter) {
-    return Observable.fromIterable(checkNotNull(tasks))
-        .filter(FILTERS.get(filter))
-        .toList()
-        .map(ImmutableList::copyOf)
-        .blockingGet();
+  private static boolean matches(Task task, TasksFilterType filter) {
+    switch (filter) {
+      case ACTIVE_TASKS:
+        return !task.details().completed();
+      case COMPLETED_TASKS:
+        return task.details().completed();
+      default:
+        return true;
+    }
   }
 }
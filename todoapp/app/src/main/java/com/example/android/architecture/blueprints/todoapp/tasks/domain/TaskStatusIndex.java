@@ -0,0 +1,141 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.tasks.domain;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.example.android.architecture.blueprints.todoapp.data.Task;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Which positions of a task list hold completed tasks, as a bit per task. Counts are kept up to
+ * date as the index is updated, and filtering walks the set or clear bits instead of testing each
+ * task.
+ *
+ * <p>Immutable; {@link #withCompleted(int, boolean)} returns an updated copy. The bits are split
+ * into fixed-size chunks that copies share, so an update only copies the chunk it changes and the
+ * array of chunk references, rather than every bit.
+ */
+public final class TaskStatusIndex {
+
+  private static final int WORDS_PER_CHUNK = 64;
+  private static final int BITS_PER_CHUNK = WORDS_PER_CHUNK * Long.SIZE;
+
+  private final long[][] mChunks;
+  private final int mSize;
+  private final int mCompletedCount;
+
+  private TaskStatusIndex(long[][] chunks, int size, int completedCount) {
+    mChunks = chunks;
+    mSize = size;
+    mCompletedCount = completedCount;
+  }
+
+  public static TaskStatusIndex of(List<Task> tasks) {
+    long[][] chunks = new long[(tasks.size() + BITS_PER_CHUNK - 1) / BITS_PER_CHUNK][];
+    for (int i = 0; i < chunks.length; i++) {
+      chunks[i] = new long[WORDS_PER_CHUNK];
+    }
+    int completedCount = 0;
+    for (int i = 0; i < tasks.size(); i++) {
+      if (tasks.get(i).details().completed()) {
+        chunks[i / BITS_PER_CHUNK][(i % BITS_PER_CHUNK) / Long.SIZE] |= 1L << i;
+        completedCount++;
+      }
+    }
+    return new TaskStatusIndex(chunks, tasks.size(), completedCount);
+  }
+
+  /** Returns an index with the task at {@code index} marked completed or active. */
+  public TaskStatusIndex withCompleted(int index, boolean completed) {
+    checkArgument(index >= 0 && index < mSize, "Index out of bounds");
+    if (isCompleted(index) == completed) return this;
+
+    long[][] chunks = mChunks.clone();
+    long[] chunk = chunks[index / BITS_PER_CHUNK].clone();
+    chunk[(index % BITS_PER_CHUNK) / Long.SIZE] ^= 1L << index;
+    chunks[index / BITS_PER_CHUNK] = chunk;
+    return new TaskStatusIndex(chunks, mSize, mCompletedCount + (completed ? 1 : -1));
+  }
+
+  public int size() {
+    return mSize;
+  }
+
+  public int completedCount() {
+    return mCompletedCount;
+  }
+
+  public int activeCount() {
+    return mSize - mCompletedCount;
+  }
+
+  public int count(TasksFilterType filter) {
+    switch (filter) {
+      case ACTIVE_TASKS:
+        return activeCount();
+      case COMPLETED_TASKS:
+        return completedCount();
+      default:
+        return mSize;
+    }
+  }
+
+  /**
+   * Returns a read-only list of the tasks matching {@code filter}, given the list this index was
+   * built for.
+   */
+  public List<Task> filter(List<Task> tasks, TasksFilterType filter) {
+    checkArgument(tasks.size() == mSize, "Index is for a different task list");
+    if (filter == TasksFilterType.ALL_TASKS) return Collections.unmodifiableList(tasks);
+
+    boolean completed = filter == TasksFilterType.COMPLETED_TASKS;
+    Task[] matches = new Task[count(filter)];
+    int i = nextMatch(0, completed);
+    for (int next = 0; next < matches.length; next++) {
+      matches[next] = tasks.get(i);
+      i = nextMatch(i + 1, completed);
+    }
+    return Collections.unmodifiableList(Arrays.asList(matches));
+  }
+
+  private boolean isCompleted(int index) {
+    return (word(index / Long.SIZE) & (1L << index)) != 0;
+  }
+
+  // Bits past the end of the list are clear, so the caller stops after count(filter) matches.
+  private int nextMatch(int from, boolean completed) {
+    int word = from / Long.SIZE;
+    int wordCount = mChunks.length * WORDS_PER_CHUNK;
+    if (word >= wordCount) return mSize;
+
+    long bits = (completed ? word(word) : ~word(word)) & (-1L << from);
+    while (bits == 0) {
+      if (++word == wordCount) return mSize;
+      bits = completed ? word(word) : ~word(word);
+    }
+    return word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+  }
+
+  private long word(int word) {
+    return mChunks[word / WORDS_PER_CHUNK][word % WORDS_PER_CHUNK];
+  }
+}
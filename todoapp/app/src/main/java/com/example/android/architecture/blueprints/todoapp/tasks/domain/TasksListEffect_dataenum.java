@@ -19,7 +19,6 @@
 package com.example.android.architecture.blueprints.todoapp.tasks.domain;
 
 import com.example.android.architecture.blueprints.todoapp.data.Task;
-import com.google.common.collect.ImmutableList;
 import com.spotify.dataenum.DataEnum;
 import com.spotify.dataenum.dataenum_case;
 
@@ -27,15 +26,21 @@ import com.spotify.dataenum.dataenum_case;
 interface TasksListEffect_dataenum {
   dataenum_case RefreshTasks();
 
-  dataenum_case LoadTasks();
+  dataenum_case LoadTasks(TasksFilterType filter, int limit);
+
+  dataenum_case LoadTasksPage(TasksFilterType filter, long afterPosition, int limit);
+
+  dataenum_case ObserveTaskChanges();
 
   dataenum_case SaveTask(Task task);
 
-  dataenum_case DeleteTasks(ImmutableList<Task> tasks);
+  dataenum_case ClearCompletedTasks();
 
   dataenum_case ShowFeedback(FeedbackType feedbackType);
 
   dataenum_case NavigateToTaskDetails(Task task);
 
+  dataenum_case PrefetchTaskDetails(Task task);
+
   dataenum_case StartTaskCreationFlow();
 }
@@ -19,6 +19,7 @@
 package com.example.android.architecture.blueprints.todoapp.tasks.domain;
 
 import com.example.android.architecture.blueprints.todoapp.data.Task;
+import com.example.android.architecture.blueprints.todoapp.data.TaskChanges;
 import com.google.common.collect.ImmutableList;
 import com.spotify.dataenum.DataEnum;
 import com.spotify.dataenum.dataenum_case;
@@ -32,6 +33,8 @@ interface TasksListEvent_dataenum {
 
   dataenum_case NavigateToTaskDetailsRequested(String taskId);
 
+  dataenum_case TaskDetailsPrefetchRequested(String taskId);
+
   dataenum_case TaskMarkedComplete(String taskId);
 
   dataenum_case TaskMarkedActive(String taskId);
@@ -40,7 +43,15 @@ interface TasksListEvent_dataenum {
 
   dataenum_case FilterSelected(TasksFilterType filterType);
 
-  dataenum_case TasksLoaded(ImmutableList<Task> tasks);
+  dataenum_case LoadMoreTasksRequested();
+
+  dataenum_case TasksLoaded(
+      TasksFilterType filter, ImmutableList<Task> tasks, long dataVersion, long lastPosition);
+
+  dataenum_case TasksPageLoaded(
+      TasksFilterType filter, ImmutableList<Task> tasks, long lastPosition);
+
+  dataenum_case TasksChanged(TaskChanges changes);
 
   dataenum_case TaskCreated();
 
@@ -49,4 +60,6 @@ interface TasksListEvent_dataenum {
   dataenum_case TasksRefreshFailed();
 
   dataenum_case TasksLoadingFailed();
+
+  dataenum_case TasksPageLoadingFailed();
 }
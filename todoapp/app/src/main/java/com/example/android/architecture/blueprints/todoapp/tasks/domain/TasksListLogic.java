@@ -18,9 +18,12 @@
  */
 package com.example.android.architecture.blueprints.todoapp.tasks.domain;
 
-import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.deleteTasks;
+import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.clearCompletedTasks;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.loadTasks;
+import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.loadTasksPage;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.navigateToTaskDetails;
+import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.observeTaskChanges;
+import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.prefetchTaskDetails;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.refreshTasks;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.saveTask;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.showFeedback;
@@ -32,31 +35,45 @@ import static com.spotify.mobius.Next.dispatch;
 import static com.spotify.mobius.Next.next;
 import static com.spotify.mobius.Next.noChange;
 
+import android.support.annotation.Nullable;
 import com.example.android.architecture.blueprints.todoapp.data.Task;
+import com.example.android.architecture.blueprints.todoapp.data.TaskChanges;
+import com.example.android.architecture.blueprints.todoapp.data.TasksPage;
 import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.FilterSelected;
 import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.NavigateToTaskDetailsRequested;
+import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.TaskDetailsPrefetchRequested;
 import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.TaskMarkedActive;
 import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.TaskMarkedComplete;
+import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.TasksChanged;
 import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.TasksLoaded;
+import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.TasksPageLoaded;
+import com.example.android.architecture.blueprints.todoapp.util.PersistentVector;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.spotify.mobius.First;
 import com.spotify.mobius.Next;
-import io.reactivex.Observable;
-import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import javax.annotation.Nonnull;
 
 public final class TasksListLogic {
 
+  static final int PAGE_SIZE = 50;
+
   private TasksListLogic() {}
 
   @Nonnull
   public static First<TasksListModel, TasksListEffect> init(TasksListModel model) {
     if (model.tasks() == null) {
-      return first(model.withLoading(true), effects(refreshTasks(), loadTasks()));
+      return first(
+          model.withLoading(true),
+          effects(refreshTasks(), loadTasks(model.filter(), PAGE_SIZE), observeTaskChanges()));
     } else {
-      return first(model, effects(loadTasks()));
+      return first(
+          model, effects(loadTasks(model.filter(), loadedWindow(model)), observeTaskChanges()));
     }
   }
 
@@ -68,15 +85,21 @@ public final class TasksListLogic {
         newTaskClicked -> onNewTaskClicked(),
         navigateToTaskDetailsRequested ->
             onNavigateToTaskDetailsRequested(model, navigateToTaskDetailsRequested),
+        taskDetailsPrefetchRequested ->
+            onTaskDetailsPrefetchRequested(model, taskDetailsPrefetchRequested),
         taskCompleted -> onTaskCompleted(model, taskCompleted),
         taskActivated -> onTaskActivated(model, taskActivated),
         completedTasksCleared -> onCompletedTasksCleared(model),
         filterSelected -> onFilterSelected(model, filterSelected),
+        loadMoreTasksRequested -> onLoadMoreTasksRequested(model),
         tasksLoaded -> onTasksLoaded(model, tasksLoaded),
+        tasksPageLoaded -> onTasksPageLoaded(model, tasksPageLoaded),
+        tasksChanged -> onTasksChanged(model, tasksChanged),
         taskCreated -> onTaskCreated(),
         tasksRefreshed -> onTasksRefreshed(model),
         tasksRefreshFailed -> onTasksRefreshFailed(model),
-        tasksLoadingFailed -> onTasksLoadingFailed(model));
+        tasksLoadingFailed -> onTasksLoadingFailed(model),
+        tasksPageLoadingFailed -> onTasksPageLoadingFailed(model));
   }
 
   private static Next<TasksListModel, TasksListEffect> onRefreshRequested(TasksListModel model) {
@@ -95,6 +118,15 @@ public final class TasksListLogic {
     return dispatch(effects(navigateToTaskDetails(task.get())));
   }
 
+  private static Next<TasksListModel, TasksListEffect> onTaskDetailsPrefetchRequested(
+      TasksListModel model, TaskDetailsPrefetchRequested event) {
+    // A hint only, so a row that has just gone away is not an error.
+    Optional<Task> task = model.findTaskById(event.taskId());
+    if (!task.isPresent()) return noChange();
+
+    return dispatch(effects(prefetchTaskDetails(task.get())));
+  }
+
   private static Next<TasksListModel, TasksListEffect> onTaskCompleted(
       TasksListModel model, TaskMarkedComplete event) {
 
@@ -122,36 +154,211 @@ public final class TasksListLogic {
 
   private static Next<TasksListModel, TasksListEffect> onCompletedTasksCleared(
       TasksListModel model) {
-    ImmutableList<Task> allTasks = checkNotNull(model.tasks());
-    List<Task> completedTasks =
-        Observable.fromIterable(allTasks)
-            .filter(t -> t.details().completed())
-            .toList()
-            .blockingGet();
-
-    if (completedTasks.isEmpty()) return noChange();
+    PersistentVector<Task> allTasks = checkNotNull(model.tasks());
+    TaskStatusIndex statusIndex = model.statusIndex();
+    Set<TasksListEffect> clearEffects =
+        effects(clearCompletedTasks(), showFeedback(FeedbackType.CLEARED_COMPLETED));
+    if (statusIndex.completedCount() == 0) {
+      // Pages that haven't been loaded yet, or tasks filtered out by storage, may still be
+      // completed.
+      boolean mayHaveCompleted =
+          model.hasMoreTasks() || model.filter() == TasksFilterType.ACTIVE_TASKS;
+      return mayHaveCompleted ? dispatch(clearEffects) : noChange();
+    }
 
-    ArrayList<Task> newTasks = new ArrayList<>(allTasks);
-    newTasks.removeAll(completedTasks);
     return next(
-        model.withTasks(ImmutableList.copyOf(newTasks)),
-        effects(
-            deleteTasks(ImmutableList.copyOf(completedTasks)),
-            showFeedback(FeedbackType.CLEARED_COMPLETED)));
+        model.withTasks(statusIndex.filter(allTasks, TasksFilterType.ACTIVE_TASKS)), clearEffects);
   }
 
+  /**
+   * The loaded tasks are filtered in memory until the tasks matching the new filter have been
+   * loaded. Until then there are no pages to load, since the position of the last loaded task is
+   * only meaningful for the old filter.
+   */
   private static Next<TasksListModel, TasksListEffect> onFilterSelected(
       TasksListModel model, FilterSelected event) {
-    return next(model.withTasksFilter(event.filterType()));
+    TasksFilterType filter = event.filterType();
+    if (filter == model.filter()) return noChange();
+
+    return next(
+        model
+            .toBuilder()
+            .filter(filter)
+            .hasMoreTasks(false)
+            .loadingMore(false)
+            .dataVersion(TasksPage.NO_VERSION)
+            .lastPosition(TasksPage.START_POSITION)
+            .build(),
+        effects(loadTasks(filter, loadedWindow(model))));
   }
 
   private static Next<TasksListModel, TasksListEffect> onTasksLoaded(
       TasksListModel model, TasksLoaded event) {
+    // Loaded for a filter that has since been replaced.
+    if (event.filter() != model.filter()) {
+      return noChange();
+    }
     if (model.loading() && event.tasks().isEmpty()) {
       return noChange();
     }
 
-    return event.tasks().equals(model.tasks()) ? noChange() : next(model.withTasks(event.tasks()));
+    boolean hasMoreTasks = event.tasks().size() >= loadedWindow(model);
+    if (hasMoreTasks == model.hasMoreTasks()) {
+      // Loads at the version the tasks were last loaded at read the same data.
+      if (event.dataVersion() != TasksPage.NO_VERSION
+          && event.dataVersion() == model.dataVersion()) {
+        return noChange();
+      }
+      if (event.tasks().equals(model.tasks())) {
+        return event.dataVersion() == model.dataVersion()
+                && event.lastPosition() == model.lastPosition()
+            ? noChange()
+            : nextShowingTasks(
+                model
+                    .toBuilder()
+                    .dataVersion(event.dataVersion())
+                    .lastPosition(event.lastPosition())
+                    .build());
+      }
+    }
+
+    return nextShowingTasks(
+        model
+            .toBuilder()
+            .tasks(event.tasks())
+            .hasMoreTasks(hasMoreTasks)
+            .dataVersion(event.dataVersion())
+            .lastPosition(event.lastPosition())
+            .build());
+  }
+
+  private static Next<TasksListModel, TasksListEffect> onLoadMoreTasksRequested(
+      TasksListModel model) {
+    if (model.tasks() == null || !model.hasMoreTasks() || model.loadingMore()) {
+      return noChange();
+    }
+
+    return next(
+        model.withLoadingMore(true),
+        effects(loadTasksPage(model.filter(), model.lastPosition(), PAGE_SIZE)));
+  }
+
+  private static Next<TasksListModel, TasksListEffect> onTasksPageLoaded(
+      TasksListModel model, TasksPageLoaded event) {
+    PersistentVector<Task> tasks = model.tasks();
+    if (tasks == null || event.filter() != model.filter()) {
+      return noChange();
+    }
+
+    Set<String> loadedIds = new HashSet<>();
+    for (Task task : tasks) {
+      loadedIds.add(task.id());
+    }
+
+    // Tasks may already have been added through a change while the page was loading.
+    PersistentVector<Task> newTasks = tasks;
+    for (Task task : event.tasks()) {
+      if (!loadedIds.contains(task.id())) newTasks = newTasks.plus(task);
+    }
+
+    return nextShowingTasks(
+        model
+            .toBuilder()
+            .tasks(newTasks)
+            .hasMoreTasks(event.tasks().size() >= PAGE_SIZE)
+            .loadingMore(false)
+            .dataVersion(TasksPage.NO_VERSION)
+            .lastPosition(event.lastPosition())
+            .build());
+  }
+
+  /** The number of tasks to load so that everything that is currently loaded is reloaded. */
+  private static int loadedWindow(TasksListModel model) {
+    PersistentVector<Task> tasks = model.tasks();
+    return Math.max(PAGE_SIZE, tasks == null ? 0 : tasks.size());
+  }
+
+  private static Next<TasksListModel, TasksListEffect> onTasksChanged(
+      TasksListModel model, TasksChanged event) {
+    PersistentVector<Task> tasks = model.tasks();
+    if (tasks == null) {
+      // Nothing loaded yet; the pending load will include this change.
+      return noChange();
+    }
+
+    TaskChanges changes = event.changes();
+    if (!changes.allDeleted() && changes.deleted().isEmpty() && changes.inserted().isEmpty()) {
+      TasksListModel updated = withUpdatedTasks(model, changes.updated());
+      if (updated != null) {
+        return updated == model ? noChange() : nextShowingTasks(updated);
+      }
+    }
+
+    List<Task> oldTasks = changes.allDeleted() ? ImmutableList.of() : tasks;
+
+    Map<String, Task> changed = new HashMap<>();
+    for (Task task : changes.updated()) {
+      changed.put(task.id(), task);
+    }
+    for (Task task : changes.inserted()) {
+      changed.put(task.id(), task);
+    }
+
+    ImmutableList.Builder<Task> builder = ImmutableList.builder();
+    for (Task task : oldTasks) {
+      if (changes.deleted().contains(task.id())) continue;
+      Task replacement = changed.remove(task.id());
+      builder.add(replacement != null ? replacement : task);
+    }
+
+    // Whatever wasn't matched against an existing task is new to this list. New rows are stored
+    // last, so if there are pages left to load they will show up there instead.
+    if (!model.hasMoreTasks()) {
+      for (Task task : changes.inserted()) {
+        if (changed.remove(task.id()) != null) builder.add(task);
+      }
+      for (Task task : changes.updated()) {
+        if (changed.remove(task.id()) != null) builder.add(task);
+      }
+    }
+
+    ImmutableList<Task> newTasks = builder.build();
+    return newTasks.equals(tasks) ? noChange() : nextShowingTasks(model.withTasks(newTasks));
+  }
+
+  /**
+   * Replaces each updated task where it is, keeping the model's indexes, so that the cost follows
+   * the number of changed tasks rather than the number of loaded ones. Returns null if an updated
+   * task isn't loaded, since it may have to be appended.
+   */
+  @Nullable
+  private static TasksListModel withUpdatedTasks(TasksListModel model, List<Task> updatedTasks) {
+    TasksListModel updated = model;
+    for (Task task : updatedTasks) {
+      int index = updated.findTaskIndexById(task.id());
+      if (index < 0) return null;
+      if (!checkNotNull(updated.tasks()).get(index).equals(task)) {
+        updated = updated.withTaskAtIndex(task, index);
+      }
+    }
+    return updated;
+  }
+
+  /**
+   * The next page is only requested by scrolling, which can't happen while every loaded task is
+   * filtered out, so in that case it is requested right away.
+   */
+  private static Next<TasksListModel, TasksListEffect> nextShowingTasks(TasksListModel model) {
+    if (model.tasks() == null
+        || !model.hasMoreTasks()
+        || model.loadingMore()
+        || model.statusIndex().count(model.filter()) > 0) {
+      return next(model);
+    }
+
+    return next(
+        model.withLoadingMore(true),
+        effects(loadTasksPage(model.filter(), model.lastPosition(), PAGE_SIZE)));
   }
 
   private static Next<TasksListModel, TasksListEffect> onTaskCreated() {
@@ -159,7 +366,8 @@ public final class TasksListLogic {
   }
 
   private static Next<TasksListModel, TasksListEffect> onTasksRefreshed(TasksListModel model) {
-    return next(model.withLoading(false), effects(loadTasks()));
+    return next(
+        model.withLoading(false), effects(loadTasks(model.filter(), loadedWindow(model))));
   }
 
   private static Next<TasksListModel, TasksListEffect> onTasksRefreshFailed(TasksListModel model) {
@@ -169,4 +377,10 @@ public final class TasksListLogic {
   private static Next<TasksListModel, TasksListEffect> onTasksLoadingFailed(TasksListModel model) {
     return next(model.withLoading(false), effects(showFeedback(FeedbackType.LOADING_ERROR)));
   }
+
+  /** There are still more tasks, so scrolling on requests the page again. */
+  private static Next<TasksListModel, TasksListEffect> onTasksPageLoadingFailed(
+      TasksListModel model) {
+    return next(model.withLoadingMore(false), effects(showFeedback(FeedbackType.LOADING_ERROR)));
+  }
 }
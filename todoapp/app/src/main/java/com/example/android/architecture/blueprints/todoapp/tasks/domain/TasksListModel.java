@@ -21,34 +21,50 @@ package com.example.android.architecture.blueprints.todoapp.tasks.domain;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
 import com.example.android.architecture.blueprints.todoapp.data.Task;
+import com.example.android.architecture.blueprints.todoapp.data.TasksPage;
+import com.example.android.architecture.blueprints.todoapp.util.PersistentVector;
 import com.google.auto.value.AutoValue;
 import com.google.common.base.Optional;
-import com.google.common.collect.ImmutableList;
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @AutoValue
 public abstract class TasksListModel {
   public static final TasksListModel DEFAULT = TasksListModel.builder().build();
 
+  // Indexes over tasks(), built on first use and handed on to models whose tasks they still
+  // describe. Not part of equals/hashCode, since they are derived from tasks().
+  @Nullable private volatile Map<String, Integer> mTaskIndexById;
+  @Nullable private volatile TaskStatusIndex mStatusIndex;
+
   @Nullable
-  public abstract ImmutableList<Task> tasks();
+  public abstract PersistentVector<Task> tasks();
 
   public abstract TasksFilterType filter();
 
   public abstract boolean loading();
 
+  /** Whether there are stored tasks after the last one in {@link #tasks()}. */
+  public abstract boolean hasMoreTasks();
+
+  /** Whether the next page of tasks is being loaded. */
+  public abstract boolean loadingMore();
+
+  /**
+   * The data version {@link #tasks()} were loaded at, or {@link TasksPage#NO_VERSION} once they
+   * have been changed in any other way.
+   */
+  public abstract long dataVersion();
+
+  /** The storage position of the last loaded task, to load the next page after. */
+  public abstract long lastPosition();
+
   public int findTaskIndexById(String id) {
-    ImmutableList<Task> tasks = checkNotNull(tasks());
-    int taskIndex = -1;
-    for (int i = 0; i < tasks.size(); i++) {
-      if (tasks.get(i).id().equals(id)) {
-        taskIndex = i;
-        break;
-      }
-    }
-    return taskIndex;
+    Integer taskIndex = taskIndexById().get(id);
+    return taskIndex == null ? -1 : taskIndex;
   }
 
   public Optional<Task> findTaskById(String id) {
@@ -57,31 +73,91 @@ public abstract class TasksListModel {
     return Optional.of((checkNotNull(tasks()).get(taskIndex)));
   }
 
-  public TasksListModel withTasks(ImmutableList<Task> tasks) {
-    return toBuilder().tasks(tasks).build();
+  /** Which of {@link #tasks()} are completed, for counting and filtering them. */
+  public TaskStatusIndex statusIndex() {
+    TaskStatusIndex statusIndex = mStatusIndex;
+    if (statusIndex == null) {
+      statusIndex = TaskStatusIndex.of(checkNotNull(tasks()));
+      mStatusIndex = statusIndex;
+    }
+    return statusIndex;
+  }
+
+  public TasksListModel withTasks(List<Task> tasks) {
+    TasksListModel model = toBuilder().tasks(tasks).build();
+    if (model.tasks() == tasks()) return keepingIndexes(model);
+    return model.toBuilder().dataVersion(TasksPage.NO_VERSION).build();
   }
 
   public TasksListModel withLoading(boolean loading) {
-    return toBuilder().loading(loading).build();
+    return keepingIndexes(toBuilder().loading(loading).build());
+  }
+
+  public TasksListModel withHasMoreTasks(boolean hasMoreTasks) {
+    return keepingIndexes(toBuilder().hasMoreTasks(hasMoreTasks).build());
+  }
+
+  public TasksListModel withLoadingMore(boolean loadingMore) {
+    return keepingIndexes(toBuilder().loadingMore(loadingMore).build());
   }
 
   public TasksListModel withTasksFilter(TasksFilterType tasksFilter) {
-    return toBuilder().filter(tasksFilter).build();
+    return keepingIndexes(toBuilder().filter(tasksFilter).build());
   }
 
   public TasksListModel withTaskAtIndex(Task task, int index) {
-    ImmutableList<Task> tasks = checkNotNull(tasks());
+    PersistentVector<Task> tasks = checkNotNull(tasks());
     assertIndexWithinBounds(index, tasks);
 
-    ArrayList<Task> copy = new ArrayList<>(tasks);
-    copy.set(index, task);
-    return withTasks(ImmutableList.copyOf(copy));
+    TasksListModel model = withTasks(tasks.with(index, task));
+    if (model.tasks() == tasks) return model;
+
+    if (task.id().equals(tasks.get(index).id())) {
+      model.mTaskIndexById = mTaskIndexById;
+    }
+    TaskStatusIndex statusIndex = mStatusIndex;
+    if (statusIndex != null) {
+      model.mStatusIndex = statusIndex.withCompleted(index, task.details().completed());
+    }
+    return model;
+  }
+
+  @VisibleForTesting
+  Map<String, Integer> taskIndexById() {
+    Map<String, Integer> taskIndexById = mTaskIndexById;
+    if (taskIndexById == null) {
+      PersistentVector<Task> tasks = checkNotNull(tasks());
+      taskIndexById = new HashMap<>(tasks.size() * 4 / 3 + 1);
+      for (int i = 0; i < tasks.size(); i++) {
+        String id = tasks.get(i).id();
+        // Like the linear search this replaces, a duplicated id resolves to its first index.
+        if (!taskIndexById.containsKey(id)) {
+          taskIndexById.put(id, i);
+        }
+      }
+      mTaskIndexById = taskIndexById;
+    }
+    return taskIndexById;
+  }
+
+  private TasksListModel keepingIndexes(TasksListModel model) {
+    if (model.tasks() != null) {
+      model.mTaskIndexById = mTaskIndexById;
+      model.mStatusIndex = mStatusIndex;
+    }
+    return model;
   }
 
   public abstract Builder toBuilder();
 
   public static Builder builder() {
-    return new AutoValue_TasksListModel.Builder().loading(false).filter(TasksFilterType.ALL_TASKS);
+    return new AutoValue_TasksListModel.Builder()
+        .loading(false)
+        .hasMoreTasks(false)
+        .loadingMore(false)
+        .dataVersion(TasksPage.NO_VERSION)
+        .lastPosition(TasksPage.START_POSITION)
+        .filter(TasksFilterType.ALL_TASKS);
   }
 
   static void assertIndexWithinBounds(int index, List<?> items) {
@@ -102,12 +178,24 @@ public abstract class TasksListModel {
 
   @AutoValue.Builder
   public abstract static class Builder {
-    public abstract Builder tasks(ImmutableList<Task> tasks);
+    public abstract Builder tasks(PersistentVector<Task> tasks);
+
+    public Builder tasks(List<Task> tasks) {
+      return tasks(PersistentVector.copyOf(tasks));
+    }
 
     public abstract Builder filter(TasksFilterType filter);
 
     public abstract Builder loading(boolean loading);
 
+    public abstract Builder hasMoreTasks(boolean hasMoreTasks);
+
+    public abstract Builder loadingMore(boolean loadingMore);
+
+    public abstract Builder dataVersion(long dataVersion);
+
+    public abstract Builder lastPosition(long lastPosition);
+
     public abstract TasksListModel build();
   }
 }
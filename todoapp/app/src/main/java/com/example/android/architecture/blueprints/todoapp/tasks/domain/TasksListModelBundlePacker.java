@@ -18,32 +18,31 @@
  */
 package com.example.android.architecture.blueprints.todoapp.tasks.domain;
 
-import static com.example.android.architecture.blueprints.todoapp.data.TaskBundlePacker.taskFromBundle;
-import static com.example.android.architecture.blueprints.todoapp.data.TaskBundlePacker.taskToBundle;
-
 import android.os.Bundle;
 import com.example.android.architecture.blueprints.todoapp.data.Task;
-import com.google.common.collect.ImmutableList;
-import java.util.ArrayList;
+import com.example.android.architecture.blueprints.todoapp.data.TaskListCodec;
+import java.util.List;
 
 public class TasksListModelBundlePacker {
   private static class TasksListModelBundleIdentifiers {
     static final String FILTER = "model_filter";
     static final String LOADING = "model_loading";
-    static final String TASKS = "model_tasks";
+    static final String HAS_MORE_TASKS = "model_has_more_tasks";
+    static final String LAST_POSITION = "model_last_position";
+    // Encoded with TaskListCodec rather than as a bundle per task, which is slow to write and can
+    // make the saved state too large to parcel once there are thousands of tasks.
+    static final String TASKS = "model_tasks_encoded";
   }
 
   public static Bundle tasksListModelToBundle(TasksListModel tasksListModel) {
     Bundle b = new Bundle();
     b.putSerializable(TasksListModelBundleIdentifiers.FILTER, tasksListModel.filter());
     b.putBoolean(TasksListModelBundleIdentifiers.LOADING, tasksListModel.loading());
-    ImmutableList<Task> tasks = tasksListModel.tasks();
+    b.putBoolean(TasksListModelBundleIdentifiers.HAS_MORE_TASKS, tasksListModel.hasMoreTasks());
+    b.putLong(TasksListModelBundleIdentifiers.LAST_POSITION, tasksListModel.lastPosition());
+    List<Task> tasks = tasksListModel.tasks();
     if (tasks != null) {
-      ArrayList<Bundle> taskBundles = new ArrayList<>();
-      for (Task task : tasks) {
-        taskBundles.add(taskToBundle(task));
-      }
-      b.putParcelableArrayList(TasksListModelBundleIdentifiers.TASKS, taskBundles);
+      b.putByteArray(TasksListModelBundleIdentifiers.TASKS, TaskListCodec.encode(tasks));
     }
     return b;
   }
@@ -52,15 +51,13 @@ public class TasksListModelBundlePacker {
     TasksListModel.Builder builder =
         TasksListModel.builder()
             .filter((TasksFilterType) b.getSerializable(TasksListModelBundleIdentifiers.FILTER))
-            .loading(b.getBoolean(TasksListModelBundleIdentifiers.LOADING));
+            .loading(b.getBoolean(TasksListModelBundleIdentifiers.LOADING))
+            .hasMoreTasks(b.getBoolean(TasksListModelBundleIdentifiers.HAS_MORE_TASKS))
+            .lastPosition(b.getLong(TasksListModelBundleIdentifiers.LAST_POSITION));
 
-    ArrayList<Bundle> bundles = b.getParcelableArrayList(TasksListModelBundleIdentifiers.TASKS);
-    if (bundles == null) return builder.build();
+    byte[] tasks = b.getByteArray(TasksListModelBundleIdentifiers.TASKS);
+    if (tasks == null) return builder.build();
 
-    ImmutableList.Builder<Task> tasks = ImmutableList.builder();
-    for (Bundle bundle : bundles) {
-      tasks.add(taskFromBundle(bundle));
-    }
-    return builder.tasks(tasks.build()).build();
+    return builder.tasks(TaskListCodec.decode(tasks)).build();
   }
 }
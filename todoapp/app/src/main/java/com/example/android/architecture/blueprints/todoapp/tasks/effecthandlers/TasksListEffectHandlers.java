@@ -18,37 +18,56 @@
  */
 package com.example.android.architecture.blueprints.todoapp.tasks.effecthandlers;
 
+import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.tasksChanged;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.tasksLoaded;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.tasksLoadingFailed;
+import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.tasksPageLoaded;
+import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.tasksPageLoadingFailed;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.tasksRefreshed;
 import static io.reactivex.android.schedulers.AndroidSchedulers.mainThread;
 
 import android.content.Context;
 import com.example.android.architecture.blueprints.todoapp.data.Task;
+import com.example.android.architecture.blueprints.todoapp.data.TaskChanges;
+import com.example.android.architecture.blueprints.todoapp.data.TaskPrefetchCache;
+import com.example.android.architecture.blueprints.todoapp.data.TasksDelta;
+import com.example.android.architecture.blueprints.todoapp.data.TasksPage;
 import com.example.android.architecture.blueprints.todoapp.data.source.TasksDataSource;
+import com.example.android.architecture.blueprints.todoapp.data.source.TasksRepository;
+import com.example.android.architecture.blueprints.todoapp.data.source.TasksSyncDataSource;
+import com.example.android.architecture.blueprints.todoapp.data.source.TasksSyncStore;
+import com.example.android.architecture.blueprints.todoapp.data.source.VersionedTasksDataSource;
 import com.example.android.architecture.blueprints.todoapp.data.source.local.TasksLocalDataSource;
+import com.example.android.architecture.blueprints.todoapp.data.source.local.TasksOutbox;
 import com.example.android.architecture.blueprints.todoapp.data.source.remote.TasksRemoteDataSource;
+import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksFilterType;
 import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect;
-import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.DeleteTasks;
+import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.ClearCompletedTasks;
 import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.LoadTasks;
+import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.LoadTasksPage;
 import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.NavigateToTaskDetails;
+import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.ObserveTaskChanges;
+import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.PrefetchTaskDetails;
 import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.RefreshTasks;
 import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.SaveTask;
 import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.ShowFeedback;
 import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.StartTaskCreationFlow;
 import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent;
+import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListModel;
 import com.example.android.architecture.blueprints.todoapp.tasks.view.TasksListViewActions;
 import com.example.android.architecture.blueprints.todoapp.util.Either;
+import com.example.android.architecture.blueprints.todoapp.util.LatestWins;
+import com.example.android.architecture.blueprints.todoapp.util.MetricsLogger;
+import com.example.android.architecture.blueprints.todoapp.util.SingleFlight;
 import com.example.android.architecture.blueprints.todoapp.util.schedulers.SchedulerProvider;
-import com.google.common.collect.ImmutableList;
+import com.google.common.base.Optional;
 import com.spotify.mobius.rx2.RxMobius;
 import io.reactivex.Completable;
-import io.reactivex.Observable;
+import io.reactivex.Flowable;
 import io.reactivex.ObservableTransformer;
 import io.reactivex.Single;
 import io.reactivex.functions.Action;
 import io.reactivex.functions.Consumer;
-import java.util.List;
 
 public class TasksListEffectHandlers {
 
@@ -56,75 +75,127 @@ public class TasksListEffectHandlers {
       Context context,
       TasksListViewActions view,
       Action showAddTask,
-      Consumer<Task> showTaskDetails) {
+      Consumer<Task> showTaskDetails,
+      MetricsLogger<TasksListModel, TasksListEvent, TasksListEffect> metrics) {
 
     TasksRemoteDataSource remoteSource = TasksRemoteDataSource.getInstance();
     TasksLocalDataSource localSource =
         TasksLocalDataSource.getInstance(context, SchedulerProvider.getInstance());
+    TasksOutbox outbox =
+        TasksOutbox.getInstance(remoteSource, localSource, SchedulerProvider.getInstance());
+    TasksRepository repository = TasksRepository.getInstance(outbox, localSource);
+    SingleFlight<TasksListEvent> refreshes = refreshes(outbox, localSource);
+    metrics.reportCount("deduplicated refreshes", refreshes::getDeduplicatedCount);
+    LatestWins<LoadTasks, TasksListEvent> loadTasksHandler = loadTasksHandler(repository);
+    metrics.reportCount("cancelled loads", loadTasksHandler::getCancelledCount);
+    metrics.reportCount("task cache hits", repository::getCacheHits);
+    metrics.reportCount("task cache misses", repository::getCacheMisses);
 
     return RxMobius.<TasksListEffect, TasksListEvent>subtypeEffectHandler()
-        .addTransformer(RefreshTasks.class, refreshTasksHandler(remoteSource, localSource))
-        .addTransformer(LoadTasks.class, loadTasksHandler(localSource))
-        .addConsumer(SaveTask.class, saveTaskHandler(remoteSource, localSource))
-        .addConsumer(DeleteTasks.class, deleteTasksHandler(remoteSource, localSource))
+        .addTransformer(RefreshTasks.class, refreshTasksHandler(refreshes))
+        .addTransformer(LoadTasks.class, loadTasksHandler)
+        .addTransformer(LoadTasksPage.class, loadTasksPageHandler(repository))
+        .addTransformer(
+            ObserveTaskChanges.class, observeTaskChangesHandler(repository.getTaskChanges()))
+        .addConsumer(SaveTask.class, saveTaskHandler(repository))
+        .addAction(ClearCompletedTasks.class, clearCompletedTasksHandler(repository))
         .addConsumer(ShowFeedback.class, showFeedbackHandler(view), mainThread())
         .addConsumer(
             NavigateToTaskDetails.class, navigateToDetailsHandler(showTaskDetails), mainThread())
+        .addConsumer(
+            PrefetchTaskDetails.class, prefetchTaskDetailsHandler(TaskPrefetchCache.getInstance()))
         .addAction(StartTaskCreationFlow.class, showAddTask, mainThread())
         .build();
   }
 
-  static ObservableTransformer<RefreshTasks, TasksListEvent> refreshTasksHandler(
-      TasksDataSource remoteSource, TasksDataSource localSource) {
+  static SingleFlight<TasksListEvent> refreshes(
+      TasksSyncDataSource remoteSource, TasksSyncStore localStore) {
     Single<TasksListEvent> refreshTasksOperation =
-        remoteSource
-            .getTasks()
-            .singleOrError()
-            .map(Either::<Throwable, List<Task>>right)
+        Single.fromCallable(() -> Optional.fromNullable(localStore.getSyncToken()))
+            .flatMap(token -> remoteSource.getTasksChangedSince(token.orNull()).singleOrError())
+            .map(Either::<Throwable, TasksDelta>right)
             .onErrorReturn(Either::left)
             .flatMap(
                 either ->
                     either.map(
                         left -> Single.just(tasksLoadingFailed()),
                         right ->
-                            Observable.fromIterable(right.value())
-                                .concatMapCompletable(
-                                    t -> Completable.fromAction(() -> localSource.saveTask(t)))
+                            Completable.fromAction(() -> localStore.applyDelta(right.value()))
                                 .andThen(Single.just(tasksRefreshed()))
                                 .onErrorReturnItem(tasksLoadingFailed())));
 
-    return refreshTasks -> refreshTasks.flatMapSingle(__ -> refreshTasksOperation);
+    return new SingleFlight<>(refreshTasksOperation);
+  }
+
+  /**
+   * Refreshes started while another one is in flight join it rather than syncing again, and get
+   * the same result event.
+   */
+  static ObservableTransformer<RefreshTasks, TasksListEvent> refreshTasksHandler(
+      SingleFlight<TasksListEvent> refreshes) {
+    return refreshTasks -> refreshTasks.flatMapSingle(__ -> refreshes.get());
+  }
+
+  /**
+   * Pages are always read from local storage, since only storage can say which data version the
+   * tasks were read at. Each load replaces the whole list, so a load that is still in flight when
+   * another one is requested is cancelled.
+   */
+  static LatestWins<LoadTasks, TasksListEvent> loadTasksHandler(
+      VersionedTasksDataSource dataSource) {
+    return new LatestWins<>(
+        effect ->
+            readTasksPage(dataSource, effect.filter(), TasksPage.START_POSITION, effect.limit())
+                .toObservable()
+                .map(
+                    page ->
+                        tasksLoaded(
+                            effect.filter(), page.tasks(), page.dataVersion(), page.lastPosition()))
+                .onErrorReturnItem(tasksLoadingFailed()));
   }
 
-  static ObservableTransformer<LoadTasks, TasksListEvent> loadTasksHandler(
-      TasksDataSource dataSource) {
-    return loadTasks ->
-        loadTasks.flatMap(
+  static ObservableTransformer<LoadTasksPage, TasksListEvent> loadTasksPageHandler(
+      VersionedTasksDataSource dataSource) {
+    return loadTasksPage ->
+        loadTasksPage.flatMap(
             effect ->
-                dataSource
-                    .getTasks()
+                readTasksPage(dataSource, effect.filter(), effect.afterPosition(), effect.limit())
                     .toObservable()
-                    .take(1)
-                    .map(tasks -> tasksLoaded(ImmutableList.copyOf(tasks)))
-                    .onErrorReturnItem(tasksLoadingFailed()));
+                    .map(
+                        page ->
+                            tasksPageLoaded(effect.filter(), page.tasks(), page.lastPosition()))
+                    .onErrorReturnItem(tasksPageLoadingFailed()));
   }
 
-  static Consumer<SaveTask> saveTaskHandler(
-      TasksDataSource remoteSource, TasksDataSource localSource) {
-    return saveTaskEffect -> {
-      remoteSource.saveTask(saveTaskEffect.task());
-      localSource.saveTask(saveTaskEffect.task());
-    };
+  /** Active and completed tasks are filtered by storage, so only the tasks shown are read. */
+  private static Single<TasksPage> readTasksPage(
+      VersionedTasksDataSource dataSource,
+      TasksFilterType filter,
+      long afterPosition,
+      int limit) {
+    switch (filter) {
+      case ACTIVE_TASKS:
+        return dataSource.getVersionedTasksPageWithStatus(false, afterPosition, limit);
+      case COMPLETED_TASKS:
+        return dataSource.getVersionedTasksPageWithStatus(true, afterPosition, limit);
+      default:
+        return dataSource.getVersionedTasksPage(afterPosition, limit);
+    }
   }
 
-  static Consumer<DeleteTasks> deleteTasksHandler(
-      TasksDataSource remoteSource, TasksDataSource localSource) {
-    return deleteTasks -> {
-      for (Task task : deleteTasks.tasks()) {
-        remoteSource.deleteTask(task.id());
-        localSource.deleteTask(task.id());
-      }
-    };
+  static ObservableTransformer<ObserveTaskChanges, TasksListEvent> observeTaskChangesHandler(
+      Flowable<TaskChanges> taskChanges) {
+    return observeTaskChanges ->
+        observeTaskChanges.switchMap(
+            effect -> taskChanges.toObservable().map(changes -> tasksChanged(changes)));
+  }
+
+  static Consumer<SaveTask> saveTaskHandler(TasksDataSource dataSource) {
+    return saveTaskEffect -> dataSource.saveTask(saveTaskEffect.task());
+  }
+
+  static Action clearCompletedTasksHandler(TasksDataSource dataSource) {
+    return dataSource::clearCompletedTasks;
   }
 
   static Consumer<ShowFeedback> showFeedbackHandler(TasksListViewActions view) {
@@ -152,4 +223,8 @@ public class TasksListEffectHandlers {
   static Consumer<NavigateToTaskDetails> navigateToDetailsHandler(Consumer<Task> command) {
     return navigationEffect -> command.accept(navigationEffect.task());
   }
+
+  static Consumer<PrefetchTaskDetails> prefetchTaskDetailsHandler(TaskPrefetchCache cache) {
+    return prefetch -> cache.put(prefetch.task());
+  }
 }
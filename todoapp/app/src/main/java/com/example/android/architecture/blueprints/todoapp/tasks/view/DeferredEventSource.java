@@ -18,42 +18,138 @@
  */
 package com.example.android.architecture.blueprints.todoapp.tasks.view;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import com.spotify.mobius.EventSource;
 import com.spotify.mobius.disposables.Disposable;
 import com.spotify.mobius.functions.Consumer;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.atomic.AtomicBoolean;
+import io.reactivex.schedulers.Schedulers;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.annotation.Nonnull;
 
+/**
+ * An event source that events can be pushed into at any time. Events pushed while nothing is
+ * subscribed are kept and delivered on the next subscription. Events are delivered in order on a
+ * shared executor, which is only used while there is something to deliver. At most {@code
+ * capacity} events are queued; further events are dropped and counted.
+ */
 public class DeferredEventSource<E> implements EventSource<E> {
-  private BlockingQueue<E> events = new LinkedBlockingQueue<>();
+
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  private static final Executor SHARED_EXECUTOR =
+      command -> Schedulers.io().scheduleDirect(command);
+
+  private final Executor mExecutor;
+  private final int mCapacity;
+
+  private final Queue<E> mEvents = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger mQueuedCount = new AtomicInteger();
+  private final AtomicReference<Consumer<E>> mConsumer = new AtomicReference<>();
+  // Drain requests not yet handled. Whoever moves it away from zero starts the single drain.
+  private final AtomicInteger mDrainRequests = new AtomicInteger();
+
+  private final AtomicLong mDroppedCount = new AtomicLong();
+  private final AtomicInteger mMaxQueuedCount = new AtomicInteger();
+
+  public DeferredEventSource() {
+    this(SHARED_EXECUTOR, DEFAULT_CAPACITY);
+  }
+
+  public DeferredEventSource(Executor executor, int capacity) {
+    checkArgument(capacity > 0, "capacity must be positive");
+    mExecutor = checkNotNull(executor);
+    mCapacity = capacity;
+  }
 
   @Nonnull
   @Override
   public Disposable subscribe(Consumer<E> eventConsumer) {
-    AtomicBoolean run = new AtomicBoolean(true);
-    Thread t =
-        new Thread(
-            () -> {
-              while (run.get()) {
-                try {
-                  E e = events.take();
-                  if (run.get()) {
-                    eventConsumer.accept(e);
-                  }
-                } catch (InterruptedException e) {
-                }
-              }
-            });
-    t.start();
-    return () -> {
-      run.set(false);
-      t.interrupt();
-    };
-  }
-
-  public synchronized void notifyEvent(E e) {
-    events.offer(e);
+    checkNotNull(eventConsumer);
+    mConsumer.set(eventConsumer);
+    if (!mEvents.isEmpty()) {
+      requestDrain();
+    }
+    return () -> mConsumer.compareAndSet(eventConsumer, null);
+  }
+
+  /** Queues an event for delivery, or drops it if the queue is full. Safe on any thread. */
+  public void notifyEvent(E e) {
+    checkNotNull(e);
+    int queuedCount = mQueuedCount.incrementAndGet();
+    if (queuedCount > mCapacity) {
+      mQueuedCount.decrementAndGet();
+      mDroppedCount.incrementAndGet();
+      return;
+    }
+    recordQueuedCount(queuedCount);
+    mEvents.offer(e);
+    requestDrain();
+  }
+
+  /** Returns how many events were dropped because the queue was full. */
+  public long getDroppedCount() {
+    return mDroppedCount.get();
+  }
+
+  /** Returns the most events that have been waiting for delivery at the same time. */
+  public int getMaxQueuedCount() {
+    return mMaxQueuedCount.get();
+  }
+
+  private void recordQueuedCount(int queuedCount) {
+    while (true) {
+      int maxQueuedCount = mMaxQueuedCount.get();
+      if (queuedCount <= maxQueuedCount
+          || mMaxQueuedCount.compareAndSet(maxQueuedCount, queuedCount)) {
+        return;
+      }
+    }
+  }
+
+  private void requestDrain() {
+    if (mDrainRequests.getAndIncrement() == 0) {
+      mExecutor.execute(this::drain);
+    }
+  }
+
+  private void drain() {
+    int requests = mDrainRequests.get();
+    do {
+      boolean delivered = false;
+      try {
+        deliverQueuedEvents();
+        delivered = true;
+      } finally {
+        requests = mDrainRequests.addAndGet(-requests);
+        // A consumer threw, so this drain ends here. Another one takes over whatever is left, or
+        // no later event could ever start one.
+        if (!delivered) {
+          if (requests != 0) {
+            mExecutor.execute(this::drain);
+          } else if (!mEvents.isEmpty()) {
+            requestDrain();
+          }
+        }
+      }
+    } while (requests != 0);
+  }
+
+  private void deliverQueuedEvents() {
+    Consumer<E> consumer;
+    while ((consumer = mConsumer.get()) != null) {
+      E event = mEvents.poll();
+      if (event == null) {
+        return;
+      }
+      mQueuedCount.decrementAndGet();
+      consumer.accept(event);
+    }
   }
 }
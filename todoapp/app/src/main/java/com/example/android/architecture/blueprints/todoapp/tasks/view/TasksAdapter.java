@@ -18,8 +18,11 @@ package com.example.android.architecture.blueprints.todoapp.tasks.view;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import android.graphics.drawable.Drawable;
+import android.support.annotation.Nullable;
 import android.view.LayoutInflater;
+import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewConfiguration;
 import android.view.ViewGroup;
 import android.widget.BaseAdapter;
 import android.widget.CheckBox;
@@ -32,6 +35,7 @@ class TasksAdapter extends BaseAdapter {
 
   private ImmutableList<TaskViewData> mTasks;
   private TaskItemListener mItemListener;
+  @Nullable private Runnable mPendingTouch;
 
   public void setItemListener(TaskItemListener itemListener) {
     mItemListener = itemListener;
@@ -92,12 +96,42 @@ class TasksAdapter extends BaseAdapter {
         __ -> {
           if (mItemListener != null) mItemListener.onTaskClick(task.id());
         });
+    // A press that is held starts well before the click, which leaves time to prepare the task's
+    // details. Presses that are released early, or turn into a scroll, prepare nothing.
+    rowView.setOnTouchListener(
+        (v, event) -> {
+          switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+              cancelPendingTouch(v);
+              mPendingTouch =
+                  () -> {
+                    mPendingTouch = null;
+                    if (mItemListener != null) mItemListener.onTaskTouched(task.id());
+                  };
+              v.postDelayed(mPendingTouch, ViewConfiguration.getTapTimeout());
+              break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+              cancelPendingTouch(v);
+              break;
+          }
+          return false;
+        });
 
     return rowView;
   }
 
+  private void cancelPendingTouch(View view) {
+    if (mPendingTouch != null) {
+      view.removeCallbacks(mPendingTouch);
+      mPendingTouch = null;
+    }
+  }
+
   public interface TaskItemListener {
 
+    void onTaskTouched(String id);
+
     void onTaskClick(String id);
 
     void onCompleteTaskClick(String id);
@@ -29,10 +29,15 @@ import android.support.annotation.Nullable;
 import com.example.android.architecture.blueprints.todoapp.R;
 import com.example.android.architecture.blueprints.todoapp.data.Task;
 import com.example.android.architecture.blueprints.todoapp.tasks.TasksFragment;
-import com.example.android.architecture.blueprints.todoapp.tasks.domain.TaskFilters;
+import com.example.android.architecture.blueprints.todoapp.tasks.domain.TaskStatusIndex;
 import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksFilterType;
 import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListModel;
+import com.example.android.architecture.blueprints.todoapp.tasks.view.TasksListViewData.TaskViewData;
 import com.google.common.collect.ImmutableList;
+import com.spotify.mobius.functions.Function;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Listens to user actions from the UI ({@link TasksFragment}), retrieves the data and updates the
@@ -44,19 +49,87 @@ public class TasksListViewDataMapper {
     return TasksListViewData.builder()
         .loading(model.loading())
         .filterLabel(getFilterLabel(model.filter()))
-        .viewState(getViewState(model.tasks(), model.filter()))
+        .viewState(getViewState(model))
         .build();
   }
 
-  private static ViewState getViewState(
-      @Nullable ImmutableList<Task> tasks, TasksFilterType filter) {
+  /**
+   * Returns a mapper that remembers the last model's view state. A model with the same task list
+   * instance and filter gets the same view state back, and after a change only the tasks that are
+   * new instances are mapped again. The mapper must not be called concurrently; it need not be
+   * called on the main thread.
+   */
+  public static Function<TasksListModel, TasksListViewData> memoizedTasksListModelToViewData() {
+    ViewStateCache cache = new ViewStateCache();
+    return model ->
+        TasksListViewData.builder()
+            .loading(model.loading())
+            .filterLabel(getFilterLabel(model.filter()))
+            .viewState(cache.getViewState(model))
+            .build();
+  }
+
+  private static ViewState getViewState(TasksListModel model) {
+    List<Task> tasks = model.tasks();
     if (tasks == null) return awaitingTasks();
 
-    ImmutableList<Task> filteredTasks = TaskFilters.filterTasks(tasks, filter);
-    if (filteredTasks.isEmpty()) {
-      return emptyTasks(createEmptyTaskViewData(filter));
-    } else {
-      return hasTasks(copyOf(transform(filteredTasks, TaskViewDataMapper::createTaskViewData)));
+    TaskStatusIndex statusIndex = model.statusIndex();
+    if (statusIndex.count(model.filter()) == 0) {
+      return emptyTasks(createEmptyTaskViewData(model.filter()));
+    }
+    List<Task> filteredTasks = statusIndex.filter(tasks, model.filter());
+    return hasTasks(copyOf(transform(filteredTasks, TaskViewDataMapper::createTaskViewData)));
+  }
+
+  private static class ViewStateCache {
+    @Nullable private List<Task> mTasks;
+    @Nullable private TasksFilterType mFilter;
+    private ViewState mViewState = awaitingTasks();
+
+    // The view data mapped for each task in the last view state. Tasks are immutable, so a task
+    // that is the same instance maps to the same view data.
+    private Map<Task, TaskViewData> mTaskViewData = new IdentityHashMap<>();
+
+    ViewState getViewState(TasksListModel model) {
+      List<Task> tasks = model.tasks();
+      TasksFilterType filter = model.filter();
+      if (tasks == mTasks && filter == mFilter) return mViewState;
+
+      Map<Task, TaskViewData> taskViewData = new IdentityHashMap<>();
+      ViewState viewState;
+      if (tasks == null) {
+        viewState = awaitingTasks();
+      } else if (model.statusIndex().count(filter) == 0) {
+        viewState = emptyTasks(createEmptyTaskViewData(filter));
+      } else {
+        List<Task> filteredTasks = model.statusIndex().filter(tasks, filter);
+        TaskViewData[] items = new TaskViewData[filteredTasks.size()];
+        for (int i = 0; i < items.length; i++) {
+          Task task = filteredTasks.get(i);
+          TaskViewData item = mTaskViewData.get(task);
+          if (item == null) item = TaskViewDataMapper.createTaskViewData(task);
+          items[i] = item;
+          taskViewData.put(task, item);
+        }
+        viewState = sameItems(mViewState, items) ? mViewState : hasTasks(copyOf(items));
+      }
+
+      mTasks = tasks;
+      mFilter = filter;
+      mViewState = viewState;
+      mTaskViewData = taskViewData;
+      return viewState;
+    }
+
+    private static boolean sameItems(ViewState viewState, TaskViewData[] items) {
+      if (!viewState.isHasTasks()) return false;
+
+      ImmutableList<TaskViewData> previous = viewState.asHasTasks().taskViewData();
+      if (previous.size() != items.length) return false;
+      for (int i = 0; i < items.length; i++) {
+        if (previous.get(i) != items[i]) return false;
+      }
+      return true;
     }
   }
 
@@ -16,18 +16,22 @@
  */
 package com.example.android.architecture.blueprints.todoapp.tasks.view;
 
+import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.loadMoreTasksRequested;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.navigateToTaskDetailsRequested;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.newTaskClicked;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.refreshRequested;
+import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.taskDetailsPrefetchRequested;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.taskMarkedActive;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.taskMarkedComplete;
 
 import android.support.design.widget.FloatingActionButton;
 import android.support.design.widget.Snackbar;
 import android.support.v4.content.ContextCompat;
+import android.support.v4.view.ViewCompat;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.AbsListView;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
 import android.widget.ListView;
@@ -35,6 +39,7 @@ import android.widget.TextView;
 import com.example.android.architecture.blueprints.todoapp.R;
 import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent;
 import com.example.android.architecture.blueprints.todoapp.tasks.view.TasksListViewData.TaskViewData;
+import com.example.android.architecture.blueprints.todoapp.util.FrameCoalescer;
 import com.google.common.collect.ImmutableList;
 import com.spotify.mobius.Connectable;
 import com.spotify.mobius.Connection;
@@ -45,10 +50,17 @@ import javax.annotation.Nonnull;
 
 public class TasksViews
     implements TasksListViewActions, Connectable<TasksListViewData, TasksListEvent> {
+  // How many rows from the end of the list the next page of tasks is requested.
+  private static final int PREFETCH_DISTANCE = 20;
+
   private final View mRoot;
+  private final ListView mListView;
   private final ScrollChildSwipeRefreshLayout mSwipeRefreshLayout;
   private final FloatingActionButton mFab;
   private final Observable<TasksListEvent> menuEvents;
+  // A refresh or a burst of toggles emits several models within one frame; only the last is drawn.
+  private final FrameCoalescer<TasksListViewData> mRenderCoalescer;
+  private final Consumer<TasksListViewData> mOnRendered;
 
   private TasksAdapter mListAdapter;
 
@@ -68,13 +80,22 @@ public class TasksViews
       LayoutInflater inflater,
       ViewGroup parent,
       FloatingActionButton fab,
-      Observable<TasksListEvent> menuEvents) {
+      Observable<TasksListEvent> menuEvents,
+      Consumer<TasksListViewData> onRendered) {
     this.menuEvents = menuEvents;
+    mOnRendered = onRendered;
     mRoot = inflater.inflate(R.layout.tasks_frag, parent, false);
+    mRenderCoalescer =
+        new FrameCoalescer<>(
+            frame -> ViewCompat.postOnAnimation(mRoot, frame),
+            value -> {
+              render(value);
+              mOnRendered.accept(value);
+            });
     mListAdapter = new TasksAdapter();
     // Set up allTasks view
-    ListView listView = mRoot.findViewById(R.id.tasks_list);
-    listView.setAdapter(mListAdapter);
+    mListView = mRoot.findViewById(R.id.tasks_list);
+    mListView.setAdapter(mListAdapter);
     mFilteringLabelView = mRoot.findViewById(R.id.filteringLabel);
     mTasksView = mRoot.findViewById(R.id.tasksLL);
 
@@ -92,13 +113,18 @@ public class TasksViews
         ContextCompat.getColor(mRoot.getContext(), R.color.colorAccent),
         ContextCompat.getColor(mRoot.getContext(), R.color.colorPrimaryDark));
     // Set the scrolling view in the custom SwipeRefreshLayout.
-    mSwipeRefreshLayout.setScrollUpChild(listView);
+    mSwipeRefreshLayout.setScrollUpChild(mListView);
   }
 
   public View getRootView() {
     return mRoot;
   }
 
+  /** Returns how many view states were replaced by a later one before they could be rendered. */
+  public long getSkippedRenderCount() {
+    return mRenderCoalescer.getSkippedCount();
+  }
+
   @Override
   public void showSuccessfullySavedMessage() {
     showMessage(R.string.successfully_saved_task_message);
@@ -138,15 +164,17 @@ public class TasksViews
     return new Connection<TasksListViewData>() {
       @Override
       public void accept(TasksListViewData value) {
-        render(value);
+        mRenderCoalescer.accept(value);
       }
 
       @Override
       public void dispose() {
         disposable.dispose();
+        mRenderCoalescer.cancel();
         mNoTaskAddView.setOnClickListener(null);
         mFab.setOnClickListener(null);
         mSwipeRefreshLayout.setOnRefreshListener(null);
+        mListView.setOnScrollListener(null);
         mListAdapter.setItemListener(null);
       }
     };
@@ -156,8 +184,27 @@ public class TasksViews
     mNoTaskAddView.setOnClickListener(__ -> output.accept(newTaskClicked()));
     mFab.setOnClickListener(__ -> output.accept(newTaskClicked()));
     mSwipeRefreshLayout.setOnRefreshListener(() -> output.accept(refreshRequested()));
+    mListView.setOnScrollListener(
+        new AbsListView.OnScrollListener() {
+          @Override
+          public void onScrollStateChanged(AbsListView view, int scrollState) {}
+
+          @Override
+          public void onScroll(
+              AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+            if (totalItemCount > 0
+                && firstVisibleItem + visibleItemCount >= totalItemCount - PREFETCH_DISTANCE) {
+              output.accept(loadMoreTasksRequested());
+            }
+          }
+        });
     mListAdapter.setItemListener(
         new TasksAdapter.TaskItemListener() {
+          @Override
+          public void onTaskTouched(String id) {
+            output.accept(taskDetailsPrefetchRequested(id));
+          }
+
           @Override
           public void onTaskClick(String id) {
             output.accept(navigateToTaskDetailsRequested(id));
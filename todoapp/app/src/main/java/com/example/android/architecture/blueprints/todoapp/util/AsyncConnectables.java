@@ -0,0 +1,77 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.util;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Function;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.processors.PublishProcessor;
+import javax.annotation.Nonnull;
+
+/** Connectable adapters that move work off the thread values are delivered on. */
+public final class AsyncConnectables {
+
+  private AsyncConnectables() {}
+
+  /**
+   * Like {@code Connectables.contramap}, but runs the mapper on {@code mapScheduler} and passes its
+   * results to the target on {@code deliveryScheduler}. A value that arrives while an earlier one
+   * is still being mapped supersedes any other value waiting to be mapped, and a result that is
+   * superseded before it is delivered is dropped, so the target only sees the latest state. The
+   * mapper is never called concurrently with itself.
+   */
+  public static <A, B, O> Connectable<A, O> contramap(
+      Function<A, B> mapper,
+      Scheduler mapScheduler,
+      Scheduler deliveryScheduler,
+      Connectable<B, O> target) {
+    return new Connectable<A, O>() {
+      @Nonnull
+      @Override
+      public Connection<A> connect(Consumer<O> output) {
+        Connection<B> delegate = target.connect(output);
+        PublishProcessor<A> values = PublishProcessor.create();
+        Disposable mapping =
+            values
+                .onBackpressureLatest()
+                .observeOn(mapScheduler, false, 1)
+                .map(mapper::apply)
+                .onBackpressureLatest()
+                .observeOn(deliveryScheduler, false, 1)
+                .subscribe(delegate::accept);
+
+        return new Connection<A>() {
+          @Override
+          public void accept(A value) {
+            values.onNext(value);
+          }
+
+          @Override
+          public void dispose() {
+            mapping.dispose();
+            delegate.dispose();
+          }
+        };
+      }
+    };
+  }
+}
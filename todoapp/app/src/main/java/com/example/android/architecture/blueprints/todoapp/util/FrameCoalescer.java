@@ -0,0 +1,86 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.spotify.mobius.functions.Consumer;
+
+/**
+ * Coalesces values that arrive faster than they can be shown. Only the latest value is kept, and
+ * it is passed on when the next frame starts, so any number of values accepted within a frame
+ * cost a single render. Not thread safe; it is meant to be used on the main thread.
+ */
+public class FrameCoalescer<T> implements Consumer<T> {
+
+  @NonNull private final Consumer<Runnable> mNextFrame;
+
+  @NonNull private final Consumer<T> mTarget;
+
+  @NonNull private final Runnable mOnFrame = this::onFrame;
+
+  @Nullable private T mPending;
+
+  private boolean mFrameRequested;
+
+  private long mSkipped;
+
+  /**
+   * @param nextFrame runs the given callback at the start of the next frame, for example by
+   *     posting it with {@code ViewCompat.postOnAnimation}
+   * @param target receives at most one value per frame
+   */
+  public FrameCoalescer(@NonNull Consumer<Runnable> nextFrame, @NonNull Consumer<T> target) {
+    mNextFrame = checkNotNull(nextFrame);
+    mTarget = checkNotNull(target);
+  }
+
+  @Override
+  public void accept(T value) {
+    if (mPending != null) {
+      mSkipped++;
+    }
+    mPending = value;
+    if (!mFrameRequested) {
+      mFrameRequested = true;
+      mNextFrame.accept(mOnFrame);
+    }
+  }
+
+  /** Drops the value waiting for the next frame, if any. */
+  public void cancel() {
+    mPending = null;
+  }
+
+  /** Returns how many values were replaced by a later one before they could be passed on. */
+  public long getSkippedCount() {
+    return mSkipped;
+  }
+
+  private void onFrame() {
+    mFrameRequested = false;
+    T value = mPending;
+    mPending = null;
+    if (value != null) {
+      mTarget.accept(value);
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts non-negative values in power-of-two buckets, so recording is a couple of atomic updates
+ * and no allocation. Percentiles are only as precise as the buckets: the value returned is the
+ * upper bound of the bucket the percentile falls in. Safe to record from any thread.
+ */
+public class Histogram {
+
+  // Bucket 0 holds 0, and bucket i holds values in [2^(i-1), 2^i).
+  private static final int BUCKET_COUNT = 64;
+
+  private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKET_COUNT);
+
+  private final AtomicLong mCount = new AtomicLong();
+
+  private final AtomicLong mMax = new AtomicLong();
+
+  /** Records a value; negative values are recorded as 0. */
+  public void record(long value) {
+    long v = Math.max(0, value);
+    mBuckets.incrementAndGet(64 - Long.numberOfLeadingZeros(v));
+    mCount.incrementAndGet();
+
+    long max;
+    do {
+      max = mMax.get();
+    } while (v > max && !mMax.compareAndSet(max, v));
+  }
+
+  public long getCount() {
+    return mCount.get();
+  }
+
+  public long getMax() {
+    return mMax.get();
+  }
+
+  /**
+   * Returns an upper bound for the given percentile of the recorded values, never more than the
+   * largest recorded value, or 0 if nothing was recorded.
+   */
+  public long getPercentile(double percentile) {
+    checkArgument(percentile >= 0 && percentile <= 100, "percentile out of range: %s", percentile);
+    long count = mCount.get();
+    if (count == 0) return 0;
+
+    long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += mBuckets.get(i);
+      if (seen >= rank) {
+        return Math.min(upperBound(i), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  @Override
+  public String toString() {
+    return "count="
+        + getCount()
+        + " p50<="
+        + getPercentile(50)
+        + " p90<="
+        + getPercentile(90)
+        + " p99<="
+        + getPercentile(99)
+        + " max="
+        + getMax();
+  }
+
+  private static long upperBound(int bucket) {
+    return bucket == BUCKET_COUNT - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import android.support.annotation.NonNull;
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.functions.Function;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs an operation for each upstream item, cancelling the previous operation if it is still in
+ * flight when the next item arrives, so that only the latest operation delivers its results.
+ */
+public class LatestWins<T, R> implements ObservableTransformer<T, R> {
+
+  @NonNull private final Function<T, Observable<R>> mOperation;
+
+  private final AtomicLong mCancelled = new AtomicLong();
+
+  public LatestWins(@NonNull Function<T, Observable<R>> operation) {
+    mOperation = checkNotNull(operation);
+  }
+
+  @Override
+  public ObservableSource<R> apply(Observable<T> upstream) {
+    return upstream.switchMap(
+        item ->
+            Observable.defer(
+                () -> {
+                  AtomicBoolean terminated = new AtomicBoolean();
+                  return mOperation
+                      .apply(item)
+                      .doOnTerminate(() -> terminated.set(true))
+                      .doOnDispose(
+                          () -> {
+                            if (!terminated.get()) {
+                              mCancelled.incrementAndGet();
+                            }
+                          });
+                }));
+  }
+
+  /** Returns how many operations were cancelled before they finished. */
+  public long getCancelledCount() {
+    return mCancelled.get();
+  }
+}
@@ -0,0 +1,372 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+import com.example.android.architecture.blueprints.todoapp.BuildConfig;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.EventSource;
+import com.spotify.mobius.First;
+import com.spotify.mobius.MobiusLoop;
+import com.spotify.mobius.Next;
+import com.spotify.mobius.android.AndroidLogger;
+import com.spotify.mobius.disposables.Disposable;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Function;
+import io.reactivex.ObservableTransformer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+
+/**
+ * A loop logger that records how long updates take, how long it takes for an event to be
+ * rendered, how many effects of each type are dispatched and how many events are waiting when an
+ * update starts. Nothing is converted to a string per event, so it can stay attached in
+ * production. One debug session in {@link #DUMP_ONE_SESSION_IN} also logs every model, event and
+ * effect, like {@link AndroidLogger} does.
+ *
+ * <p>Queue depth is only known if every event passed to the loop is counted, by wrapping the
+ * event source, the effect handler and the view connectable with the {@code counted...} methods.
+ * Events that are submitted while the loop isn't running are never processed, and are counted as
+ * dropped instead. Render latency is only known if the view's input is mapped with {@link
+ * #taggingRenders} and the view calls {@link #onRendered} with what it rendered.
+ */
+public class MetricsLogger<M, E, F> implements MobiusLoop.Logger<M, E, F> {
+
+  @VisibleForTesting static final int DUMP_ONE_SESSION_IN = 10;
+
+  // Updates whose models were neither rendered nor replaced by a rendered model; older ones are
+  // merged into the next one rather than forgotten.
+  @VisibleForTesting static final int MAX_PENDING_RENDERS = 64;
+
+  private static final Random sSessionSampler = new Random();
+
+  /** A source of monotonic time in nanoseconds. */
+  @VisibleForTesting
+  interface Clock {
+    long nanoTime();
+  }
+
+  /** A count kept by something outside the loop, read when the summary is logged. */
+  public interface Count {
+    long get();
+  }
+
+  @NonNull private final String mTag;
+
+  @NonNull private final Clock mClock;
+
+  @Nullable private final MobiusLoop.Logger<M, E, F> mDump;
+
+  private final Histogram mUpdateMicros = new Histogram();
+
+  private final Histogram mRenderMicros = new Histogram();
+
+  private final Histogram mQueueDepth = new Histogram();
+
+  private final ConcurrentMap<Class<?>, AtomicLong> mEffectCounts = new ConcurrentHashMap<>();
+
+  private final AtomicBoolean mCountingEvents = new AtomicBoolean();
+
+  private final AtomicLong mSubmittedEvents = new AtomicLong();
+
+  private final AtomicLong mProcessedEvents = new AtomicLong();
+
+  private final AtomicLong mDroppedEvents = new AtomicLong();
+
+  // Oldest first. Guarded by itself.
+  private final Deque<PendingRender<M>> mPendingRenders = new ArrayDeque<>();
+
+  // In the order they were added. Guarded by itself.
+  private final Map<String, Count> mReportedCounts = new LinkedHashMap<>();
+
+  // The loop runs one update at a time, so the start of the current one can be kept in a field.
+  private volatile long mUpdateStart;
+
+  @VisibleForTesting
+  MetricsLogger(
+      @NonNull String tag, @NonNull Clock clock, @Nullable MobiusLoop.Logger<M, E, F> dump) {
+    mTag = checkNotNull(tag);
+    mClock = checkNotNull(clock);
+    mDump = dump;
+  }
+
+  public static <M, E, F> MetricsLogger<M, E, F> tag(@NonNull String tag) {
+    boolean dump = BuildConfig.DEBUG && sSessionSampler.nextInt(DUMP_ONE_SESSION_IN) == 0;
+    return new MetricsLogger<>(
+        tag, System::nanoTime, dump ? AndroidLogger.<M, E, F>tag(tag) : null);
+  }
+
+  @Override
+  public void beforeInit(M model) {
+    // A new loop starts with nothing queued.
+    resetEventCounts();
+    if (mDump != null) mDump.beforeInit(model);
+  }
+
+  @Override
+  public void afterInit(M model, First<M, F> result) {
+    countEffects(result.effects());
+    if (mDump != null) mDump.afterInit(model, result);
+  }
+
+  @Override
+  public void exceptionDuringInit(M model, Throwable exception) {
+    // Always logged, since the loop cannot start.
+    Log.e(mTag, "error initialising from model: '" + model + "'", exception);
+  }
+
+  @Override
+  public void beforeUpdate(M model, E event) {
+    mUpdateStart = mClock.nanoTime();
+    if (mCountingEvents.get()) {
+      long processed = mProcessedEvents.incrementAndGet();
+      mQueueDepth.record(mSubmittedEvents.get() - processed);
+    }
+    if (mDump != null) mDump.beforeUpdate(model, event);
+  }
+
+  @Override
+  public void afterUpdate(M model, E event, Next<M, F> result) {
+    long start = mUpdateStart;
+    mUpdateMicros.record((mClock.nanoTime() - start) / 1000);
+    if (result.hasModel()) {
+      addPendingRender(result.model(), start);
+    }
+    countEffects(result.effects());
+    if (mDump != null) mDump.afterUpdate(model, event, result);
+  }
+
+  @Override
+  public void exceptionDuringUpdate(M model, E event, Throwable exception) {
+    Log.e(mTag, "error updating model: '" + model + "' with event: '" + event + "'", exception);
+  }
+
+  /**
+   * Wraps the function that maps models to what the view renders, so that each rendered value can
+   * be traced back to the model it was mapped from.
+   */
+  public <V> Function<M, V> taggingRenders(Function<M, V> mapper) {
+    return model -> {
+      V rendered = mapper.apply(model);
+      synchronized (mPendingRenders) {
+        for (PendingRender<M> pending : mPendingRenders) {
+          if (pending.model == model) pending.rendered = rendered;
+        }
+      }
+      return rendered;
+    };
+  }
+
+  /**
+   * Called by the view after it has rendered a value, to record how long ago the oldest event that
+   * the value reflects, and that hasn't been rendered before, started being handled. Values that
+   * weren't mapped by {@link #taggingRenders}, or whose models were already rendered, record
+   * nothing.
+   */
+  public void onRendered(Object rendered) {
+    long since;
+    synchronized (mPendingRenders) {
+      PendingRender<M> last = null;
+      for (PendingRender<M> pending : mPendingRenders) {
+        if (pending.rendered == rendered) last = pending;
+      }
+      if (last == null) return;
+
+      since = mPendingRenders.peekFirst().start;
+      // Earlier models were replaced by this one, so they are rendered along with it.
+      while (mPendingRenders.pollFirst() != last) {}
+    }
+    mRenderMicros.record((mClock.nanoTime() - since) / 1000);
+  }
+
+  public EventSource<E> countedEventSource(EventSource<E> eventSource) {
+    mCountingEvents.set(true);
+    return eventConsumer -> {
+      AtomicBoolean disposed = new AtomicBoolean();
+      Disposable subscription = eventSource.subscribe(counting(eventConsumer, disposed));
+      return () -> {
+        disposed.set(true);
+        subscription.dispose();
+        resetEventCounts();
+      };
+    };
+  }
+
+  public ObservableTransformer<F, E> countedEffectHandler(ObservableTransformer<F, E> handler) {
+    mCountingEvents.set(true);
+    return effects -> handler.apply(effects).doOnNext(__ -> mSubmittedEvents.incrementAndGet());
+  }
+
+  public <I> Connectable<I, E> countedConnectable(Connectable<I, E> connectable) {
+    mCountingEvents.set(true);
+    return new Connectable<I, E>() {
+      @Nonnull
+      @Override
+      public Connection<I> connect(Consumer<E> output) {
+        AtomicBoolean disposed = new AtomicBoolean();
+        Connection<I> connection = connectable.connect(counting(output, disposed));
+        return new Connection<I>() {
+          @Override
+          public void accept(I value) {
+            connection.accept(value);
+          }
+
+          @Override
+          public void dispose() {
+            disposed.set(true);
+            connection.dispose();
+            resetEventCounts();
+          }
+        };
+      }
+    };
+  }
+
+  public Histogram getUpdateLatencyMicros() {
+    return mUpdateMicros;
+  }
+
+  public Histogram getRenderLatencyMicros() {
+    return mRenderMicros;
+  }
+
+  public Histogram getQueueDepth() {
+    return mQueueDepth;
+  }
+
+  /** Adds a count to the summary, under the given name. */
+  public void reportCount(@NonNull String name, @NonNull Count count) {
+    synchronized (mReportedCounts) {
+      mReportedCounts.put(checkNotNull(name), checkNotNull(count));
+    }
+  }
+
+  /** Returns the current value of each reported count, by name. */
+  public Map<String, Long> getReportedCounts() {
+    ImmutableMap.Builder<String, Long> counts = ImmutableMap.builder();
+    synchronized (mReportedCounts) {
+      for (Map.Entry<String, Count> entry : mReportedCounts.entrySet()) {
+        counts.put(entry.getKey(), entry.getValue().get());
+      }
+    }
+    return counts.build();
+  }
+
+  /** Returns how many events were submitted but never processed by the loop. */
+  public long getDroppedEventCount() {
+    return mDroppedEvents.get();
+  }
+
+  /** Returns how many effects of each type were dispatched, by simple class name. */
+  public Map<String, Long> getEffectCounts() {
+    ImmutableSortedMap.Builder<String, Long> counts = ImmutableSortedMap.naturalOrder();
+    for (Map.Entry<Class<?>, AtomicLong> entry : mEffectCounts.entrySet()) {
+      counts.put(entry.getKey().getSimpleName(), entry.getValue().get());
+    }
+    return counts.build();
+  }
+
+  /** Logs everything recorded so far as a single line. */
+  public void logSummary() {
+    Log.i(
+        mTag,
+        "update us: {"
+            + mUpdateMicros
+            + "} render us: {"
+            + mRenderMicros
+            + "} queue depth: {"
+            + mQueueDepth
+            + "} dropped events: "
+            + getDroppedEventCount()
+            + " effects: "
+            + getEffectCounts()
+            + " counts: "
+            + getReportedCounts());
+  }
+
+  private Consumer<E> counting(Consumer<E> consumer, AtomicBoolean disposed) {
+    return event -> {
+      if (disposed.get()) {
+        mDroppedEvents.incrementAndGet();
+        return;
+      }
+      mSubmittedEvents.incrementAndGet();
+      consumer.accept(event);
+    };
+  }
+
+  /** Counts events that were submitted but not processed as dropped, and starts counting over. */
+  private synchronized void resetEventCounts() {
+    long submitted = mSubmittedEvents.getAndSet(0);
+    long processed = mProcessedEvents.getAndSet(0);
+    if (submitted > processed) {
+      mDroppedEvents.addAndGet(submitted - processed);
+    }
+  }
+
+  private void addPendingRender(M model, long start) {
+    synchronized (mPendingRenders) {
+      mPendingRenders.addLast(new PendingRender<>(model, start));
+      if (mPendingRenders.size() > MAX_PENDING_RENDERS) {
+        PendingRender<M> oldest = mPendingRenders.pollFirst();
+        mPendingRenders.peekFirst().start = oldest.start;
+      }
+    }
+  }
+
+  private void countEffects(Iterable<F> effects) {
+    for (F effect : effects) {
+      Class<?> type = effect.getClass();
+      AtomicLong count = mEffectCounts.get(type);
+      if (count == null) {
+        AtomicLong newCount = new AtomicLong();
+        count = mEffectCounts.putIfAbsent(type, newCount);
+        if (count == null) count = newCount;
+      }
+      count.incrementAndGet();
+    }
+  }
+
+  private static class PendingRender<M> {
+    final M model;
+    long start;
+    @Nullable Object rendered;
+
+    PendingRender(M model, long start) {
+      this.model = model;
+      this.start = start;
+    }
+  }
+}
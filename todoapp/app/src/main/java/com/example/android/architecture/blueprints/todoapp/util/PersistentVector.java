@@ -0,0 +1,171 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.util;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+import android.support.annotation.NonNull;
+import com.google.common.base.Objects;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list stored as a 32-way trie. {@link #with(int, Object)} and {@link #plus(Object)}
+ * return a new vector that shares all but one path of nodes with this one, so updating a single
+ * element costs O(log N) rather than a copy of the whole list.
+ *
+ * <p>Equality follows {@link java.util.List}. Comparing two vectors that share structure skips the
+ * nodes they have in common.
+ */
+public final class PersistentVector<E> extends AbstractList<E> implements RandomAccess {
+
+  private static final int BITS = 5;
+  private static final int WIDTH = 1 << BITS;
+  private static final int MASK = WIDTH - 1;
+
+  private static final Object[] EMPTY_NODE = new Object[0];
+  private static final PersistentVector<?> EMPTY = new PersistentVector<>(0, 0, EMPTY_NODE);
+
+  private final int mSize;
+  // The number of index bits below the root; the root is a leaf when this is 0.
+  private final int mShift;
+  private final Object[] mRoot;
+
+  private int mHashCode;
+
+  private PersistentVector(int size, int shift, Object[] root) {
+    mSize = size;
+    mShift = shift;
+    mRoot = root;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <E> PersistentVector<E> empty() {
+    return (PersistentVector<E>) EMPTY;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <E> PersistentVector<E> copyOf(@NonNull Collection<? extends E> elements) {
+    if (elements instanceof PersistentVector) {
+      return (PersistentVector<E>) elements;
+    }
+
+    Object[] nodes = elements.toArray();
+    int size = nodes.length;
+    if (size == 0) return empty();
+
+    // Build the leaves, then each level of parents, until a single root is left.
+    int shift = 0;
+    while (true) {
+      Object[] parents = new Object[(nodes.length + MASK) >>> BITS];
+      for (int i = 0; i < parents.length; i++) {
+        parents[i] = Arrays.copyOfRange(nodes, i << BITS, Math.min(nodes.length, (i + 1) << BITS));
+      }
+      if (parents.length == 1) {
+        return new PersistentVector<>(size, shift, (Object[]) parents[0]);
+      }
+      nodes = parents;
+      shift += BITS;
+    }
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E get(int index) {
+    checkElementIndex(index, mSize);
+    Object[] node = mRoot;
+    for (int level = mShift; level > 0; level -= BITS) {
+      node = (Object[]) node[(index >>> level) & MASK];
+    }
+    return (E) node[index & MASK];
+  }
+
+  @Override
+  public int size() {
+    return mSize;
+  }
+
+  /** Returns a vector with the element at {@code index} replaced. */
+  public PersistentVector<E> with(int index, E element) {
+    checkElementIndex(index, mSize);
+    if (get(index) == element) return this;
+    return new PersistentVector<>(mSize, mShift, set(mShift, mRoot, index, element));
+  }
+
+  /** Returns a vector with {@code element} appended. */
+  public PersistentVector<E> plus(E element) {
+    int shift = mShift;
+    Object[] root = mRoot;
+    if (mSize == 1 << (shift + BITS)) {
+      // The trie is full; grow it by a level.
+      root = new Object[] {root};
+      shift += BITS;
+    }
+    return new PersistentVector<>(mSize + 1, shift, set(shift, root, mSize, element));
+  }
+
+  // Copies the path to index, extending it by a node where the index is one past the end.
+  private static Object[] set(int level, Object[] node, int index, Object element) {
+    int slot = (index >>> level) & MASK;
+    Object[] copy = Arrays.copyOf(node, Math.max(node.length, slot + 1));
+    if (level == 0) {
+      copy[slot] = element;
+    } else {
+      Object[] child = slot < node.length ? (Object[]) node[slot] : EMPTY_NODE;
+      copy[slot] = set(level - BITS, child, index, element);
+    }
+    return copy;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) return true;
+    if (o instanceof PersistentVector) {
+      PersistentVector<?> that = (PersistentVector<?>) o;
+      // Vectors of the same size have the same shape, so their nodes line up.
+      return mSize == that.mSize && nodesEqual(mShift, mRoot, that.mRoot);
+    }
+    return super.equals(o);
+  }
+
+  private static boolean nodesEqual(int level, Object[] a, Object[] b) {
+    if (a == b) return true;
+    for (int i = 0; i < a.length; i++) {
+      boolean equal =
+          level == 0
+              ? Objects.equal(a[i], b[i])
+              : nodesEqual(level - BITS, (Object[]) a[i], (Object[]) b[i]);
+      if (!equal) return false;
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    // Racy but idempotent, like String.hashCode().
+    int hashCode = mHashCode;
+    if (hashCode == 0) {
+      hashCode = super.hashCode();
+      mHashCode = hashCode;
+    }
+    return hashCode;
+  }
+}
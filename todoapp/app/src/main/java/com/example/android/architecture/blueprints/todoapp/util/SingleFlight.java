@@ -0,0 +1,89 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import io.reactivex.Single;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Coalesces concurrent requests for the same work. While a request to the upstream {@link Single}
+ * is in flight, further callers join it and get its result instead of starting another one. Once
+ * it completes, the next caller starts a new request.
+ */
+public class SingleFlight<T> {
+
+  @NonNull private final Single<T> mUpstream;
+
+  @NonNull private final Object mLock = new Object();
+
+  // Guarded by mLock, as are the counters below.
+  @Nullable private Single<T> mInFlight;
+
+  private long mRequests;
+  private long mDeduplicated;
+
+  public SingleFlight(@NonNull Single<T> upstream) {
+    mUpstream = checkNotNull(upstream);
+  }
+
+  public Single<T> get() {
+    return Single.defer(
+        () -> {
+          synchronized (mLock) {
+            mRequests++;
+            if (mInFlight != null) {
+              mDeduplicated++;
+              return mInFlight;
+            }
+
+            AtomicReference<Single<T>> inFlight = new AtomicReference<>();
+            // Cleared before the result is delivered, so that callers reacting to it start afresh.
+            inFlight.set(mUpstream.doOnEvent((value, error) -> finish(inFlight.get())).cache());
+            mInFlight = inFlight.get();
+            return mInFlight;
+          }
+        });
+  }
+
+  /** Returns how many times {@link #get()} has been subscribed to. */
+  public long getRequestCount() {
+    synchronized (mLock) {
+      return mRequests;
+    }
+  }
+
+  /** Returns how many requests joined one that was already in flight. */
+  public long getDeduplicatedCount() {
+    synchronized (mLock) {
+      return mDeduplicated;
+    }
+  }
+
+  private void finish(Single<T> inFlight) {
+    synchronized (mLock) {
+      if (mInFlight == inFlight) {
+        mInFlight = null;
+      }
+    }
+  }
+}
@@ -17,21 +17,24 @@
 package com.example.android.architecture.blueprints.todoapp.data;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
 import com.example.android.architecture.blueprints.todoapp.data.source.TasksDataSource;
+import com.example.android.architecture.blueprints.todoapp.data.source.TasksSyncDataSource;
+import com.example.android.architecture.blueprints.todoapp.data.source.remote.InMemoryTasksServer;
 import com.google.common.base.Optional;
 import io.reactivex.Flowable;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.LinkedHashMap;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
 /** Implementation of a remote data source with static access to the data for easy testing. */
-public class FakeTasksRemoteDataSource implements TasksDataSource {
+public class FakeTasksRemoteDataSource implements TasksDataSource, TasksSyncDataSource {
 
   private static FakeTasksRemoteDataSource INSTANCE;
 
-  private static final Map<String, Task> TASKS_SERVICE_DATA = new LinkedHashMap<>();
+  private static final InMemoryTasksServer TASKS_SERVICE = new InMemoryTasksServer();
 
   // Prevent direct instantiation.
   private FakeTasksRemoteDataSource() {}
@@ -45,35 +48,52 @@ public class FakeTasksRemoteDataSource implements TasksDataSource {
 
   @Override
   public Flowable<List<Task>> getTasks() {
-    Collection<Task> values = TASKS_SERVICE_DATA.values();
-    return Flowable.fromIterable(values).toList().toFlowable();
+    return Flowable.fromIterable(TASKS_SERVICE.getTasks()).toList().toFlowable();
+  }
+
+  @Override
+  public Flowable<TasksDelta> getTasksChangedSince(@Nullable String syncToken) {
+    return Flowable.just(TASKS_SERVICE.getTasksChangedSince(syncToken));
   }
 
   @Override
   public Flowable<Optional<Task>> getTask(@NonNull String taskId) {
-    Task task = TASKS_SERVICE_DATA.get(taskId);
+    Task task = TASKS_SERVICE.getTask(taskId);
     return Flowable.just(Optional.of(task));
   }
 
   @Override
   public void saveTask(@NonNull Task task) {
-    TASKS_SERVICE_DATA.put(task.id(), task);
+    TASKS_SERVICE.saveTasks(Collections.singletonList(task));
+  }
+
+  @Override
+  public void saveTasks(@NonNull Collection<Task> tasks) {
+    TASKS_SERVICE.saveTasks(tasks);
   }
 
   @Override
   public void deleteTask(@NonNull String taskId) {
-    TASKS_SERVICE_DATA.remove(taskId);
+    TASKS_SERVICE.deleteTasks(Collections.singletonList(taskId));
+  }
+
+  @Override
+  public void deleteTasks(@NonNull Collection<String> taskIds) {
+    TASKS_SERVICE.deleteTasks(taskIds);
   }
 
   @Override
   public void deleteAllTasks() {
-    TASKS_SERVICE_DATA.clear();
+    TASKS_SERVICE.deleteAllTasks();
+  }
+
+  @Override
+  public void clearCompletedTasks() {
+    TASKS_SERVICE.clearCompletedTasks();
   }
 
   @VisibleForTesting
   public void addTasks(Task... tasks) {
-    for (Task task : tasks) {
-      TASKS_SERVICE_DATA.put(task.id(), task);
-    }
+    TASKS_SERVICE.saveTasks(Arrays.asList(tasks));
   }
 }
@@ -0,0 +1,92 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.data;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class TaskListCodecTest {
+
+  @Test
+  public void tasksSurviveARoundTrip() {
+    List<Task> tasks =
+        ImmutableList.of(
+            Task.create("1", TaskDetails.create("Title", "Description", false)),
+            Task.create("2", TaskDetails.create("", "Only a description", true)),
+            Task.create("3", TaskDetails.create("\u00dcn\u00efc\u00f6d\u00e9 \u2713", "", true)));
+
+    assertThat(TaskListCodec.decode(TaskListCodec.encode(tasks)), is(tasks));
+  }
+
+  @Test
+  public void anEmptyListSurvivesARoundTrip() {
+    assertThat(TaskListCodec.decode(TaskListCodec.encode(ImmutableList.of())).isEmpty(), is(true));
+  }
+
+  @Test
+  public void completionIsKeptForEveryTaskAcrossByteBoundaries() {
+    List<Task> tasks = new ArrayList<>();
+    for (int i = 0; i < 21; i++) {
+      tasks.add(Task.create("t" + i, TaskDetails.create("", "", i % 3 == 0)));
+    }
+
+    assertThat(TaskListCodec.decode(TaskListCodec.encode(tasks)), is(tasks));
+  }
+
+  @Test
+  public void longStringsSurviveARoundTrip() {
+    char[] description = new char[100_000];
+    Arrays.fill(description, 'x');
+    List<Task> tasks =
+        ImmutableList.of(Task.create("1", TaskDetails.create("", new String(description))));
+
+    assertThat(TaskListCodec.decode(TaskListCodec.encode(tasks)), is(tasks));
+  }
+
+  @Test
+  public void eachTaskCostsLittleMoreThanItsText() {
+    List<Task> tasks = new ArrayList<>();
+    int textBytes = 0;
+    for (int i = 0; i < 10_000; i++) {
+      Task task = Task.create("task-" + i, TaskDetails.create("Title " + i, "Description " + i));
+      tasks.add(task);
+      textBytes += task.id().length() + task.details().title().length();
+      textBytes += task.details().description().length();
+    }
+
+    // One length byte per string and one bit for the completed flag.
+    assertThat(TaskListCodec.encode(tasks).length, lessThan(textBytes + 10_000 * 4));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void truncatedInputIsRejected() {
+    byte[] bytes =
+        TaskListCodec.encode(
+            ImmutableList.of(Task.create("1", TaskDetails.create("Title", "Description"))));
+
+    TaskListCodec.decode(Arrays.copyOf(bytes, bytes.length - 5));
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.data;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import org.junit.Test;
+
+public class TaskPrefetchCacheTest {
+
+  private final TaskPrefetchCache mCache = new TaskPrefetchCache();
+
+  @Test
+  public void aPrefetchedTaskIsHandedOutOnce() {
+    Task task = Task.create("t1", TaskDetails.create("Title", "", false));
+    mCache.put(task);
+
+    assertThat(mCache.take("t1"), is(task));
+    assertThat(mCache.take("t1"), is(nullValue()));
+  }
+
+  @Test
+  public void aTaskThatWasNotPrefetchedIsNotFound() {
+    assertThat(mCache.take("t1"), is(nullValue()));
+  }
+
+  @Test
+  public void theLeastRecentlyTouchedTaskIsEvictedFirst() {
+    for (int i = 0; i <= TaskPrefetchCache.MAX_SIZE; i++) {
+      mCache.put(Task.create("t" + i, TaskDetails.DEFAULT));
+    }
+
+    String newest = "t" + TaskPrefetchCache.MAX_SIZE;
+    assertThat(mCache.take("t0"), is(nullValue()));
+    assertThat(mCache.take(newest).id(), is(newest));
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.data.source;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.android.architecture.blueprints.todoapp.data.Task;
+import com.example.android.architecture.blueprints.todoapp.data.TaskChanges;
+import com.example.android.architecture.blueprints.todoapp.data.TaskDetails;
+import com.example.android.architecture.blueprints.todoapp.data.TasksPage;
+import com.example.android.architecture.blueprints.todoapp.data.source.TasksRepository.EvictionPolicy;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.reactivex.processors.PublishProcessor;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TasksRepositoryTest {
+
+  private static final Task TASK_1 = Task.create("1", TaskDetails.create("T1", "D1", false));
+  private static final Task TASK_2 = Task.create("2", TaskDetails.create("T2", "D2", true));
+  private static final Task TASK_3 = Task.create("3", TaskDetails.create("T3", "D3", false));
+
+  private TasksDataSource remote;
+  private TasksDataSource local;
+  private VersionedTasksDataSource localPages;
+  private PublishProcessor<TaskChanges> changes;
+
+  @Before
+  public void setUp() throws Exception {
+    remote = mock(TasksDataSource.class);
+    local = mock(TasksDataSource.class);
+    localPages = mock(VersionedTasksDataSource.class);
+    changes = PublishProcessor.create();
+    when(local.getTasks()).thenReturn(Flowable.just(ImmutableList.of(TASK_1, TASK_2)));
+  }
+
+  @Test
+  public void writesGoThroughToBothDataSources() {
+    TasksRepository repository = repository(10, EvictionPolicy.LRU);
+    repository.saveTask(TASK_1);
+    repository.deleteTasks(ImmutableList.of(TASK_2.id()));
+
+    verify(remote).saveTask(TASK_1);
+    verify(local).saveTask(TASK_1);
+    verify(remote).deleteTasks(ImmutableList.of(TASK_2.id()));
+    verify(local).deleteTasks(ImmutableList.of(TASK_2.id()));
+  }
+
+  @Test
+  public void readsAreServedFromMemoryOnceAllTasksAreLoaded() {
+    TasksRepository repository = repository(10, EvictionPolicy.LRU);
+    repository.getTasks().blockingFirst();
+    List<Task> tasks = repository.getTasks().blockingFirst();
+    Optional<Task> task = repository.getTask(TASK_2.id()).blockingFirst();
+
+    assertThat(tasks, contains(TASK_1, TASK_2));
+    assertThat(task, is(Optional.of(TASK_2)));
+    verify(local, times(1)).getTasks();
+    assertThat(repository.getCacheMisses(), is(1L));
+    assertThat(repository.getCacheHits(), is(2L));
+  }
+
+  @Test
+  public void changesToTheLocalDataSourceAreAppliedToTheCache() {
+    TasksRepository repository = repository(10, EvictionPolicy.LRU);
+    repository.getTasks().blockingFirst();
+
+    Task completed = TASK_1.complete();
+    changes.onNext(TaskChanges.saved(ImmutableList.of(TASK_3), ImmutableList.of(completed)));
+    changes.onNext(TaskChanges.deleted(ImmutableList.of(TASK_2.id())));
+
+    assertThat(repository.getTasks().blockingFirst(), contains(completed, TASK_3));
+  }
+
+  @Test
+  public void readsThatRaceWithAWriteAreNotCached() {
+    PublishProcessor<List<Task>> pendingRead = PublishProcessor.create();
+    when(local.getTasks()).thenReturn(pendingRead);
+    TasksRepository repository = repository(10, EvictionPolicy.LRU);
+
+    Flowable<List<Task>> read = repository.getTasks();
+    changes.onNext(TaskChanges.saved(ImmutableList.of(TASK_3), ImmutableList.of()));
+    read.subscribe();
+    pendingRead.onNext(ImmutableList.of(TASK_1, TASK_2));
+
+    when(local.getTasks()).thenReturn(Flowable.just(ImmutableList.of(TASK_1, TASK_2, TASK_3)));
+    assertThat(repository.getTasks().blockingFirst(), contains(TASK_1, TASK_2, TASK_3));
+    assertThat(repository.getCacheMisses(), is(2L));
+  }
+
+  @Test
+  public void tablesLargerThanTheBoundAreReadFromTheLocalDataSource() {
+    TasksRepository repository = repository(1, EvictionPolicy.LRU);
+    repository.getTasks().blockingFirst();
+    repository.getTasks().blockingFirst();
+
+    verify(local, times(2)).getTasks();
+    assertThat(repository.getCacheHits(), is(0L));
+  }
+
+  @Test
+  public void lruEvictsTheLeastRecentlyUsedTask() {
+    TasksRepository repository = repository(2, EvictionPolicy.LRU);
+    changes.onNext(TaskChanges.saved(ImmutableList.of(TASK_1, TASK_2), ImmutableList.of()));
+
+    repository.getTask(TASK_1.id()).blockingFirst();
+    changes.onNext(TaskChanges.saved(ImmutableList.of(TASK_3), ImmutableList.of()));
+
+    assertThat(repository.getTask(TASK_1.id()).blockingFirst(), is(Optional.of(TASK_1)));
+    assertThat(repository.getTask(TASK_3.id()).blockingFirst(), is(Optional.of(TASK_3)));
+    assertThat(repository.getCacheHits(), is(3L));
+  }
+
+  @Test
+  public void fifoEvictsTheFirstCachedTask() {
+    when(local.getTask(TASK_1.id())).thenReturn(Flowable.just(Optional.of(TASK_1)));
+    TasksRepository repository = repository(2, EvictionPolicy.FIFO);
+    changes.onNext(TaskChanges.saved(ImmutableList.of(TASK_1, TASK_2), ImmutableList.of()));
+
+    repository.getTask(TASK_1.id()).blockingFirst();
+    changes.onNext(TaskChanges.saved(ImmutableList.of(TASK_3), ImmutableList.of()));
+    repository.getTask(TASK_1.id()).blockingFirst();
+
+    assertThat(repository.getCacheHits(), is(1L));
+    assertThat(repository.getCacheMisses(), is(1L));
+    verify(local).getTask(TASK_1.id());
+  }
+
+  @Test
+  public void pagesReadThroughTheRepositoryAreCached() {
+    when(localPages.getVersionedTasksPage(TasksPage.START_POSITION, 2))
+        .thenReturn(Single.just(TasksPage.create(ImmutableList.of(TASK_1, TASK_2), 1, 2)));
+    TasksRepository repository = repository(10, EvictionPolicy.LRU);
+
+    repository.getVersionedTasksPage(TasksPage.START_POSITION, 2).blockingGet();
+
+    assertThat(repository.getCachedTask(TASK_2.id()), is(TASK_2));
+    assertThat(repository.getCacheHits(), is(1L));
+  }
+
+  @Test
+  public void aFirstPageThatIsNotFullServesWholeTableReads() {
+    when(localPages.getVersionedTasksPage(TasksPage.START_POSITION, 10))
+        .thenReturn(Single.just(TasksPage.create(ImmutableList.of(TASK_1, TASK_2), 1, 2)));
+    TasksRepository repository = repository(10, EvictionPolicy.LRU);
+
+    repository.getVersionedTasksPage(TasksPage.START_POSITION, 10).blockingGet();
+
+    assertThat(repository.getTasks().blockingFirst(), contains(TASK_1, TASK_2));
+    assertThat(repository.getTask(TASK_3.id()).blockingFirst(), is(Optional.<Task>absent()));
+    verify(local, times(0)).getTasks();
+  }
+
+  @Test
+  public void cachedTaskLookupsDoNotReadStorage() {
+    TasksRepository repository = repository(10, EvictionPolicy.LRU);
+
+    assertThat(repository.getCachedTask(TASK_1.id()), is(nullValue()));
+    assertThat(repository.getCacheMisses(), is(1L));
+    verify(local, times(0)).getTask(TASK_1.id());
+  }
+
+  private TasksRepository repository(int maxCachedTasks, EvictionPolicy evictionPolicy) {
+    return new TasksRepository(remote, local, localPages, changes, maxCachedTasks, evictionPolicy);
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.data.source.local;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import com.example.android.architecture.blueprints.todoapp.data.Task;
+import com.example.android.architecture.blueprints.todoapp.data.TaskChanges;
+import com.example.android.architecture.blueprints.todoapp.data.TaskDetails;
+import com.example.android.architecture.blueprints.todoapp.data.TaskStatistics;
+import com.example.android.architecture.blueprints.todoapp.data.TaskSummary;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.reactivex.Single;
+import io.reactivex.processors.PublishProcessor;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.SingleSubject;
+import io.reactivex.subscribers.TestSubscriber;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TaskStatisticsAggregatorTest {
+
+  private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+  private PublishProcessor<TaskChanges> mTaskChanges;
+  private SingleSubject<TaskStatistics> mSeed;
+  private TestScheduler mClock;
+  private TaskStatisticsAggregator mAggregator;
+
+  @Before
+  public void setUp() {
+    mTaskChanges = PublishProcessor.create();
+    mSeed = SingleSubject.create();
+    mClock = new TestScheduler();
+    mClock.advanceTimeTo(20 * DAY_MILLIS + 5, TimeUnit.MILLISECONDS);
+    mAggregator =
+        new TaskStatisticsAggregator(mTaskChanges, mSeed, mClock, TimeZone.getTimeZone("UTC"));
+  }
+
+  @Test
+  public void nothingIsKnownBeforeStorageIsRead() {
+    assertThat(mAggregator.getLastKnownStatistics(), is(nullValue()));
+    mAggregator.getStatistics().test().assertNoValues();
+  }
+
+  @Test
+  public void statisticsAreSeededFromStorage() {
+    TaskStatistics counted = TaskStatistics.create(1, 2, ImmutableMap.of(3L, 2, 7L, 1));
+
+    mSeed.onSuccess(counted);
+
+    assertThat(mAggregator.getLastKnownStatistics(), is(counted));
+  }
+
+  @Test
+  public void aFailedSeedIsRetried() {
+    AtomicInteger attempts = new AtomicInteger();
+    Single<TaskStatistics> seed =
+        Single.defer(
+            () ->
+                attempts.incrementAndGet() == 1
+                    ? Single.<TaskStatistics>error(new RuntimeException("disk"))
+                    : Single.just(TaskStatistics.create(0, 1, ImmutableMap.of(0L, 1))));
+    TaskStatisticsAggregator aggregator =
+        new TaskStatisticsAggregator(mTaskChanges, seed, mClock, TimeZone.getTimeZone("UTC"));
+    TestSubscriber<TaskStatistics> subscriber = aggregator.getStatistics().test();
+
+    subscriber.assertNoValues().assertNoErrors();
+
+    mClock.advanceTimeBy(TaskStatisticsAggregator.SEED_RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+
+    subscriber.assertValue(TaskStatistics.create(0, 1, ImmutableMap.of(0L, 1)));
+    assertThat(attempts.get(), is(2));
+  }
+
+  @Test
+  public void changesAreAppliedAsTheyArePublished() {
+    mSeed.onSuccess(TaskStatistics.create(1, 0, ImmutableMap.of(3L, 1)));
+
+    mTaskChanges.onNext(TaskChanges.saved(ImmutableList.of(task("b", false)), ImmutableList.of()));
+    mTaskChanges.onNext(
+        TaskChanges.create(
+            ImmutableList.of(),
+            ImmutableList.of(task("a", true)),
+            ImmutableList.of(),
+            false,
+            ImmutableMap.of("a", TaskSummary.create("a", false, 3 * DAY_MILLIS))));
+
+    assertThat(
+        mAggregator.getLastKnownStatistics(),
+        is(TaskStatistics.create(1, 1, ImmutableMap.of(3L, 1, 20L, 1))));
+
+    mTaskChanges.onNext(
+        TaskChanges.create(
+            ImmutableList.of(),
+            ImmutableList.of(),
+            ImmutableList.of("a"),
+            false,
+            ImmutableMap.of("a", TaskSummary.create("a", true, 3 * DAY_MILLIS))));
+
+    assertThat(
+        mAggregator.getLastKnownStatistics(),
+        is(TaskStatistics.create(1, 0, ImmutableMap.of(20L, 1))));
+
+    mTaskChanges.onNext(TaskChanges.allTasksDeleted());
+
+    assertThat(mAggregator.getLastKnownStatistics(), is(TaskStatistics.EMPTY));
+  }
+
+  @Test
+  public void theSeedIsReadAgainIfTasksChangeWhileItIsRead() {
+    List<SingleSubject<TaskStatistics>> reads = new ArrayList<>();
+    Single<TaskStatistics> seed =
+        Single.defer(
+            () -> {
+              SingleSubject<TaskStatistics> read = SingleSubject.create();
+              reads.add(read);
+              return read;
+            });
+    TaskStatisticsAggregator aggregator =
+        new TaskStatisticsAggregator(mTaskChanges, seed, mClock, TimeZone.getTimeZone("UTC"));
+
+    mTaskChanges.onNext(TaskChanges.saved(ImmutableList.of(task("a", false)), ImmutableList.of()));
+    reads.get(0).onSuccess(TaskStatistics.EMPTY);
+
+    assertThat(aggregator.getLastKnownStatistics(), is(nullValue()));
+
+    reads.get(1).onSuccess(TaskStatistics.create(1, 0, ImmutableMap.of(20L, 1)));
+
+    assertThat(
+        aggregator.getLastKnownStatistics(),
+        is(TaskStatistics.create(1, 0, ImmutableMap.of(20L, 1))));
+  }
+
+  @Test
+  public void subscribersGetTheLatestStatisticsAndThenEveryChange() {
+    mSeed.onSuccess(TaskStatistics.EMPTY);
+    TestSubscriber<TaskStatistics> subscriber = mAggregator.getStatistics().test();
+
+    mTaskChanges.onNext(TaskChanges.saved(ImmutableList.of(task("a", false)), ImmutableList.of()));
+
+    subscriber
+        .assertValues(TaskStatistics.EMPTY, TaskStatistics.create(1, 0, ImmutableMap.of(20L, 1)))
+        .assertNotComplete();
+  }
+
+  @Test
+  public void completionRatioIsTheFractionOfCompletedTasks() {
+    assertThat(TaskStatistics.create(3, 1, ImmutableMap.of()).completionRatio(), is(0.25f));
+    assertThat(TaskStatistics.EMPTY.completionRatio(), is(0f));
+  }
+
+  private static Task task(String id, boolean completed) {
+    return Task.create(id, TaskDetails.create(id, "", completed));
+  }
+}
@@ -18,20 +18,20 @@
  */
 package com.example.android.architecture.blueprints.todoapp.statistics.domain;
 
-import static com.example.android.architecture.blueprints.todoapp.statistics.domain.StatisticsEffect.loadTasks;
-import static com.example.android.architecture.blueprints.todoapp.statistics.domain.StatisticsEvent.tasksLoaded;
+import static com.example.android.architecture.blueprints.todoapp.statistics.domain.StatisticsEffect.observeStatistics;
+import static com.example.android.architecture.blueprints.todoapp.statistics.domain.StatisticsEvent.statisticsLoaded;
 import static com.example.android.architecture.blueprints.todoapp.statistics.domain.StatisticsEvent.tasksLoadingFailed;
 import static com.example.android.architecture.blueprints.todoapp.statistics.domain.StatisticsState.failed;
 import static com.example.android.architecture.blueprints.todoapp.statistics.domain.StatisticsState.loaded;
 import static com.example.android.architecture.blueprints.todoapp.statistics.domain.StatisticsState.loading;
-import static com.google.common.collect.ImmutableList.of;
 import static com.spotify.mobius.test.InitSpec.assertThatFirst;
 import static com.spotify.mobius.test.NextMatchers.hasModel;
 import static com.spotify.mobius.test.NextMatchers.hasNoEffects;
+import static com.spotify.mobius.test.NextMatchers.hasNoModel;
 import static com.spotify.mobius.test.UpdateSpec.assertThatNext;
 
-import com.example.android.architecture.blueprints.todoapp.data.Task;
-import com.example.android.architecture.blueprints.todoapp.data.TaskDetails;
+import com.example.android.architecture.blueprints.todoapp.data.TaskStatistics;
+import com.google.common.collect.ImmutableMap;
 import com.spotify.mobius.test.FirstMatchers;
 import com.spotify.mobius.test.InitSpec;
 import com.spotify.mobius.test.UpdateSpec;
@@ -45,57 +45,53 @@ public class StatisticsLogicTest {
       new UpdateSpec<>(StatisticsLogic::update);
 
   @Test
-  public void initDispatchLoadTaskEffectWhenLoadingOrFailed() {
+  public void initObservesStatisticsWhenLoadingOrFailed() {
     initSpec
         .when(loading())
         .then(
             assertThatFirst(
-                FirstMatchers.hasModel(loading()), FirstMatchers.hasEffects(loadTasks())));
+                FirstMatchers.hasModel(loading()), FirstMatchers.hasEffects(observeStatistics())));
 
     initSpec
         .when(failed())
         .then(
             assertThatFirst(
-                FirstMatchers.hasModel(loading()), FirstMatchers.hasEffects(loadTasks())));
+                FirstMatchers.hasModel(loading()), FirstMatchers.hasEffects(observeStatistics())));
   }
 
   @Test
-  public void initDispatchesNoEffectsOnStateRestore() {
+  public void initShowsLoadedStatisticsImmediatelyAndKeepsThemCurrent() {
     initSpec
-        .when(loaded(5, 10))
-        .then(assertThatFirst(FirstMatchers.hasModel(loaded(5, 10)), FirstMatchers.hasNoEffects()));
-  }
-
-  @Test
-  public void tasksLoadedShouldUpdateStateWithTaskCounts() {
-    updateSpec
-        .given(loading())
-        .when(tasksLoaded(of(task("t1"), task("t2"), task("t3", true))))
-        .then(assertThatNext(hasModel(loaded(2, 1)), hasNoEffects()));
+        .when(loaded(statistics(5, 10)))
+        .then(
+            assertThatFirst(
+                FirstMatchers.hasModel(loaded(statistics(5, 10))),
+                FirstMatchers.hasEffects(observeStatistics())));
   }
 
   @Test
-  public void noTasksShouldHaveZeroCounts() {
+  public void statisticsLoadedShouldUpdateStateWithTheStatistics() {
+    TaskStatistics statistics = TaskStatistics.create(7, 3, ImmutableMap.of(17000L, 10));
     updateSpec
         .given(loading())
-        .when(tasksLoaded(of()))
-        .then(assertThatNext(hasModel(loaded(0, 0)), hasNoEffects()));
+        .when(statisticsLoaded(statistics))
+        .then(assertThatNext(hasModel(loaded(statistics)), hasNoEffects()));
   }
 
   @Test
-  public void noActiveTasksShouldHaveZeroForActiveCount() {
+  public void changedStatisticsReplaceTheLoadedOnes() {
     updateSpec
-        .given(loading())
-        .when(tasksLoaded(of(task("t3", true))))
-        .then(assertThatNext(hasModel(loaded(0, 1)), hasNoEffects()));
+        .given(loaded(statistics(7, 3)))
+        .when(statisticsLoaded(statistics(6, 4)))
+        .then(assertThatNext(hasModel(loaded(statistics(6, 4))), hasNoEffects()));
   }
 
   @Test
-  public void noCompletedTasksShouldHaveZeroForCompletedCount() {
+  public void unchangedStatisticsAreIgnored() {
     updateSpec
-        .given(loading())
-        .when(tasksLoaded(of(task("t1"), task("t2"))))
-        .then(assertThatNext(hasModel(loaded(2, 0)), hasNoEffects()));
+        .given(loaded(statistics(7, 3)))
+        .when(statisticsLoaded(statistics(7, 3)))
+        .then(assertThatNext(hasNoModel(), hasNoEffects()));
   }
 
   @Test
@@ -106,13 +102,7 @@ public class StatisticsLogicTest {
         .then(assertThatNext(hasModel(failed()), hasNoEffects()));
   }
 
-  private Task task(String title) {
-    return task(title, false);
-  }
-
-  private Task task(String title, boolean completed) {
-    return Task.create(
-        title.toLowerCase(),
-        TaskDetails.create(title, title.concat(title).concat(title), completed));
+  private static TaskStatistics statistics(int activeCount, int completedCount) {
+    return TaskStatistics.create(activeCount, completedCount, ImmutableMap.of());
   }
 }
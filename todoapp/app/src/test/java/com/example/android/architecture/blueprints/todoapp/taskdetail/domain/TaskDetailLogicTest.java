@@ -22,23 +22,31 @@ import static com.example.android.architecture.blueprints.todoapp.taskdetail.dom
 import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEffect.exit;
 import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEffect.notifyTaskMarkedActive;
 import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEffect.notifyTaskMarkedComplete;
+import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEffect.observeTask;
 import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEffect.openTaskEditor;
 import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEffect.saveTask;
 import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEvent.activateTaskRequested;
 import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEvent.completeTaskRequested;
 import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEvent.deleteTaskRequested;
 import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEvent.editTaskRequested;
+import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEvent.taskChanged;
 import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEvent.taskDeleted;
+import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEvent.taskDeletionFailed;
 import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEvent.taskMarkedActive;
 import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEvent.taskMarkedComplete;
+import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEvent.taskRemoved;
+import static com.spotify.mobius.test.InitSpec.assertThatFirst;
 import static com.spotify.mobius.test.NextMatchers.hasEffects;
 import static com.spotify.mobius.test.NextMatchers.hasModel;
+import static com.spotify.mobius.test.NextMatchers.hasNoEffects;
 import static com.spotify.mobius.test.NextMatchers.hasNothing;
 import static com.spotify.mobius.test.UpdateSpec.assertThatNext;
 
 import android.support.annotation.NonNull;
 import com.example.android.architecture.blueprints.todoapp.data.Task;
 import com.example.android.architecture.blueprints.todoapp.data.TaskDetails;
+import com.spotify.mobius.test.FirstMatchers;
+import com.spotify.mobius.test.InitSpec;
 import com.spotify.mobius.test.UpdateSpec;
 import org.junit.Before;
 import org.junit.Test;
@@ -124,6 +132,47 @@ public class TaskDetailLogicTest {
         .then(assertThatNext(hasEffects(notifyTaskMarkedActive())));
   }
 
+  @Test
+  public void initObservesTheTask() {
+    Task someTask = createTask();
+    new InitSpec<Task, TaskDetailEffect>(TaskDetailLogic::init)
+        .when(someTask)
+        .then(
+            assertThatFirst(
+                FirstMatchers.hasModel(someTask),
+                FirstMatchers.hasEffects(observeTask(someTask.id()))));
+  }
+
+  @Test
+  public void changesToTheTaskAreShown() {
+    Task someTask = createTask();
+    spec.given(someTask)
+        .when(taskChanged(someTask.complete()))
+        .then(assertThatNext(hasModel(someTask.complete()), hasNoEffects()));
+  }
+
+  @Test
+  public void anUnchangedTaskIsIgnored() {
+    Task someTask = createTask();
+    spec.given(someTask)
+        .when(taskChanged(createTask()))
+        .then(assertThatNext(hasNothing()));
+  }
+
+  @Test
+  public void failingToDeleteTheTaskObservesItAgain() {
+    Task someTask = createTask();
+    spec.given(someTask)
+        .when(taskDeletionFailed())
+        .then(assertThatNext(hasEffects(observeTask(someTask.id()))));
+  }
+
+  @Test
+  public void removingTheTaskExitsDetailsFeature() {
+    Task someTask = createTask();
+    spec.given(someTask).when(taskRemoved()).then(assertThatNext(hasEffects(exit())));
+  }
+
   @NonNull
   private Task createTask() {
     TaskDetails details = TaskDetails.create("T1", "description");
@@ -0,0 +1,132 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.taskdetail.effecthandlers;
+
+import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEffect.deleteTask;
+import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEffect.observeTask;
+import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEvent.taskChanged;
+import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEvent.taskDeleted;
+import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEvent.taskDeletionFailed;
+import static com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEvent.taskRemoved;
+import static com.example.android.architecture.blueprints.todoapp.taskdetail.effecthandlers.TaskDetailEffectHandlers.deleteTaskHandler;
+import static com.example.android.architecture.blueprints.todoapp.taskdetail.effecthandlers.TaskDetailEffectHandlers.observeTaskHandler;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.example.android.architecture.blueprints.todoapp.data.Task;
+import com.example.android.architecture.blueprints.todoapp.data.TaskDetails;
+import com.example.android.architecture.blueprints.todoapp.data.source.TasksDataSource;
+import com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEffect.ObserveTask;
+import com.example.android.architecture.blueprints.todoapp.taskdetail.domain.TaskDetailEvent;
+import com.google.common.base.Optional;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.processors.PublishProcessor;
+import io.reactivex.subjects.PublishSubject;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TaskDetailEffectHandlersTest {
+
+  private static final Task TASK = Task.create("1234", TaskDetails.create("Title", "", false));
+
+  private PublishProcessor<Optional<Task>> mStoredTask;
+  private PublishSubject<String> mDeletionsSent;
+  private PublishSubject<ObserveTask> mObserveTaskEffects;
+  private TestObserver<TaskDetailEvent> mEvents;
+
+  @Before
+  public void setUp() {
+    mStoredTask = PublishProcessor.create();
+    mDeletionsSent = PublishSubject.create();
+    mObserveTaskEffects = PublishSubject.create();
+    mEvents =
+        mObserveTaskEffects
+            .compose(observeTaskHandler(taskId -> mStoredTask, mDeletionsSent))
+            .test();
+  }
+
+  @Test
+  public void observingForwardsChangesAndRemovalOfTheTask() {
+    mObserveTaskEffects.onNext(observeTask(TASK.id()).asObserveTask());
+    Task completed = TASK.complete();
+    mStoredTask.onNext(Optional.of(completed));
+    mStoredTask.onNext(Optional.absent());
+
+    mEvents.assertValues(taskChanged(completed), taskRemoved());
+  }
+
+  @Test
+  public void observingStopsOnceThisScreenSendsItsOwnDeletion() {
+    mObserveTaskEffects.onNext(observeTask(TASK.id()).asObserveTask());
+    mDeletionsSent.onNext(TASK.id());
+    mStoredTask.onNext(Optional.absent());
+
+    assertThat(mStoredTask.hasSubscribers(), is(false));
+    mEvents.assertNoValues();
+  }
+
+  @Test
+  public void deletionsOfOtherTasksDoNotStopObserving() {
+    mObserveTaskEffects.onNext(observeTask(TASK.id()).asObserveTask());
+    mDeletionsSent.onNext("other");
+    mStoredTask.onNext(Optional.absent());
+
+    mEvents.assertValues(taskRemoved());
+  }
+
+  @Test
+  public void observingAgainAfterADeletionWasSentResumes() {
+    mObserveTaskEffects.onNext(observeTask(TASK.id()).asObserveTask());
+    mDeletionsSent.onNext(TASK.id());
+    mObserveTaskEffects.onNext(observeTask(TASK.id()).asObserveTask());
+    mStoredTask.onNext(Optional.of(TASK));
+
+    mEvents.assertValues(taskChanged(TASK));
+  }
+
+  @Test
+  public void deletingAnnouncesTheDeletionAndDeletesTheTask() throws Exception {
+    List<String> announced = new ArrayList<>();
+    TasksDataSource dataSource = mock(TasksDataSource.class);
+
+    TaskDetailEvent event =
+        deleteTaskHandler(dataSource, announced::add).apply(deleteTask(TASK).asDeleteTask());
+
+    assertThat(announced, contains(TASK.id()));
+    verify(dataSource).deleteTask(TASK.id());
+    assertThat(event, is(taskDeleted()));
+  }
+
+  @Test
+  public void failingToDeleteResultsInAFailureEvent() throws Exception {
+    TasksDataSource dataSource = mock(TasksDataSource.class);
+    doThrow(new RuntimeException("Failed to delete")).when(dataSource).deleteTask(TASK.id());
+
+    TaskDetailEvent event =
+        deleteTaskHandler(dataSource, taskId -> {}).apply(deleteTask(TASK).asDeleteTask());
+
+    assertThat(event, is(taskDeletionFailed()));
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.tasks.domain;
+
+import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.clearCompletedTasksRequested;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import com.example.android.architecture.blueprints.todoapp.data.Task;
+import com.example.android.architecture.blueprints.todoapp.data.TaskDetails;
+import com.google.common.collect.ImmutableList;
+import com.spotify.mobius.Next;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class TaskFiltersTest {
+
+  private static final int TASK_COUNT = 50_000;
+  private static final int COMPLETED_COUNT = 10;
+
+  // Covers the fixed cost of a call: the result's wrapper objects, effects and so on.
+  private static final long CONSTANT_ALLOCATION_BUDGET = 4_096;
+
+  @Test
+  public void filtersByStatus() {
+    ImmutableList<Task> tasks =
+        ImmutableList.of(task("t1", false), task("t2", true), task("t3", false));
+
+    assertThat(
+        TaskFilters.filterTasks(tasks, TasksFilterType.ACTIVE_TASKS),
+        contains(tasks.get(0), tasks.get(2)));
+    assertThat(
+        TaskFilters.filterTasks(tasks, TasksFilterType.COMPLETED_TASKS), contains(tasks.get(1)));
+    assertThat(TaskFilters.filterTasks(tasks, TasksFilterType.ALL_TASKS), is(tasks));
+    assertThat(TaskFilters.countTasks(tasks, TasksFilterType.ACTIVE_TASKS), is(2));
+  }
+
+  @Test
+  public void filteringAllocatesForTheResultOnly() {
+    ThreadMXBean threads = allocationCountingThreadMXBean();
+    TasksListModel model = modelWithCompletedTasks();
+    List<Task> tasks = model.tasks();
+    TaskFilters.filterTasks(tasks, TasksFilterType.COMPLETED_TASKS);
+
+    long before = allocatedBytes(threads);
+    List<Task> completed = TaskFilters.filterTasks(tasks, TasksFilterType.COMPLETED_TASKS);
+    long allocated = allocatedBytes(threads) - before;
+
+    assertThat(completed.size(), is(COMPLETED_COUNT));
+    assertThat(allocated, is(lessThan(CONSTANT_ALLOCATION_BUDGET)));
+  }
+
+  @Test
+  public void clearingCompletedTasksAllocatesInProportionToTheResult() {
+    ThreadMXBean threads = allocationCountingThreadMXBean();
+    TasksListModel model = modelWithCompletedTasks();
+    TasksListLogic.update(model, clearCompletedTasksRequested());
+
+    long before = allocatedBytes(threads);
+    Next<TasksListModel, TasksListEffect> next =
+        TasksListLogic.update(model, clearCompletedTasksRequested());
+    long allocated = allocatedBytes(threads) - before;
+
+    int remaining = next.modelUnsafe().tasks().size();
+    assertThat(remaining, is(TASK_COUNT - COMPLETED_COUNT));
+    // The new model needs an array of the remaining tasks plus the trie holding them; 32 bytes a
+    // task leaves room for that with uncompressed references, but not for extra copies of the list.
+    assertThat(allocated, is(lessThan(32L * remaining + CONSTANT_ALLOCATION_BUDGET)));
+  }
+
+  private static TasksListModel modelWithCompletedTasks() {
+    ImmutableList.Builder<Task> tasks = ImmutableList.builder();
+    for (int i = 0; i < TASK_COUNT; i++) {
+      tasks.add(task("t" + i, i % (TASK_COUNT / COMPLETED_COUNT) == 0));
+    }
+    return TasksListModel.DEFAULT.withTasks(tasks.build());
+  }
+
+  private static ThreadMXBean allocationCountingThreadMXBean() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+    return threads;
+  }
+
+  private static long allocatedBytes(ThreadMXBean threads) {
+    return ((com.sun.management.ThreadMXBean) threads)
+        .getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  private static Task task(String id, boolean completed) {
+    return Task.create(id, TaskDetails.create("title", "description", completed));
+  }
+}
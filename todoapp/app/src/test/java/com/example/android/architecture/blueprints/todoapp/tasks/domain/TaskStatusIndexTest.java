@@ -0,0 +1,110 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.tasks.domain;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+import com.example.android.architecture.blueprints.todoapp.data.Task;
+import com.example.android.architecture.blueprints.todoapp.data.TaskDetails;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+public class TaskStatusIndexTest {
+
+  private final ImmutableList<Task> tasks =
+      ImmutableList.of(task("t1", false), task("t2", true), task("t3", false), task("t4", true));
+
+  @Test
+  public void countsTasksByStatus() {
+    TaskStatusIndex index = TaskStatusIndex.of(tasks);
+
+    assertThat(index.activeCount(), is(2));
+    assertThat(index.completedCount(), is(2));
+    assertThat(index.count(TasksFilterType.ALL_TASKS), is(4));
+  }
+
+  @Test
+  public void filtersInListOrder() {
+    TaskStatusIndex index = TaskStatusIndex.of(tasks);
+
+    assertThat(
+        index.filter(tasks, TasksFilterType.ACTIVE_TASKS), contains(tasks.get(0), tasks.get(2)));
+    assertThat(
+        index.filter(tasks, TasksFilterType.COMPLETED_TASKS),
+        contains(tasks.get(1), tasks.get(3)));
+    assertThat(index.filter(tasks, TasksFilterType.ALL_TASKS), is((Object) tasks));
+  }
+
+  @Test
+  public void updatesCountsAsTasksChangeStatus() {
+    TaskStatusIndex index = TaskStatusIndex.of(tasks);
+
+    TaskStatusIndex updated = index.withCompleted(0, true);
+
+    assertThat(updated.completedCount(), is(3));
+    assertThat(index.completedCount(), is(2));
+    assertThat(index.withCompleted(1, true), is(sameInstance(index)));
+  }
+
+  @Test
+  public void updatesAndFiltersAcrossChunks() {
+    ImmutableList.Builder<Task> builder = ImmutableList.builder();
+    for (int i = 0; i < 10_000; i++) {
+      builder.add(task("t" + i, false));
+    }
+    ImmutableList<Task> manyTasks = builder.build();
+
+    TaskStatusIndex index =
+        TaskStatusIndex.of(manyTasks)
+            .withCompleted(4095, true)
+            .withCompleted(4096, true)
+            .withCompleted(9999, true);
+
+    assertThat(index.completedCount(), is(3));
+    assertThat(
+        index.filter(manyTasks, TasksFilterType.COMPLETED_TASKS),
+        contains(manyTasks.get(4095), manyTasks.get(4096), manyTasks.get(9999)));
+    assertThat(index.filter(manyTasks, TasksFilterType.ACTIVE_TASKS).size(), is(9997));
+    assertThat(index.withCompleted(4096, false).completedCount(), is(2));
+  }
+
+  @Test
+  public void theModelKeepsItsIndexInStepWithToggles() {
+    TasksListModel model = TasksListModel.DEFAULT.withTasks(tasks);
+    model.statusIndex();
+
+    TasksListModel updated =
+        model
+            .withTaskAtIndex(tasks.get(0).complete(), 0)
+            .withTaskAtIndex(tasks.get(3).activate(), 3)
+            .withLoading(true);
+
+    assertThat(
+        updated.statusIndex().filter(updated.tasks(), TasksFilterType.COMPLETED_TASKS),
+        contains(updated.tasks().get(0), updated.tasks().get(1)));
+    assertThat(updated.statusIndex().activeCount(), is(2));
+  }
+
+  private static Task task(String id, boolean completed) {
+    return Task.create(id, TaskDetails.create("title", "description", completed));
+  }
+}
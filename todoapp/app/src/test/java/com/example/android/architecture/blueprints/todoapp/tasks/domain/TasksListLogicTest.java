@@ -18,19 +18,31 @@
  */
 package com.example.android.architecture.blueprints.todoapp.tasks.domain;
 
+import static com.example.android.architecture.blueprints.todoapp.data.TasksPage.NO_VERSION;
+import static com.example.android.architecture.blueprints.todoapp.data.TasksPage.START_POSITION;
+import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksFilterType.ALL_TASKS;
+import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.clearCompletedTasks;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.loadTasks;
+import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.loadTasksPage;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.navigateToTaskDetails;
+import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.observeTaskChanges;
+import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.prefetchTaskDetails;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.refreshTasks;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.saveTask;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.showFeedback;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.clearCompletedTasksRequested;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.filterSelected;
+import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.loadMoreTasksRequested;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.navigateToTaskDetailsRequested;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.refreshRequested;
+import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.taskDetailsPrefetchRequested;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.taskCreated;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.taskMarkedActive;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.taskMarkedComplete;
+import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.tasksChanged;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.tasksLoaded;
+import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.tasksPageLoaded;
+import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.tasksPageLoadingFailed;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.tasksRefreshed;
 import static com.google.common.collect.ImmutableList.of;
 import static com.spotify.mobius.test.InitSpec.assertThatFirst;
@@ -40,10 +52,15 @@ import static com.spotify.mobius.test.NextMatchers.hasNoEffects;
 import static com.spotify.mobius.test.NextMatchers.hasNoModel;
 import static com.spotify.mobius.test.NextMatchers.hasNothing;
 import static com.spotify.mobius.test.UpdateSpec.assertThatNext;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 
 import com.example.android.architecture.blueprints.todoapp.data.Task;
+import com.example.android.architecture.blueprints.todoapp.data.TaskChanges;
 import com.example.android.architecture.blueprints.todoapp.data.TaskDetails;
 import com.google.common.collect.ImmutableList;
+import com.spotify.mobius.Next;
 import com.spotify.mobius.test.FirstMatchers;
 import com.spotify.mobius.test.InitSpec;
 import com.spotify.mobius.test.UpdateSpec;
@@ -63,7 +80,10 @@ public class TasksListLogicTest {
         .then(
             assertThatFirst(
                 FirstMatchers.hasModel(TasksListModel.DEFAULT.withLoading(true)),
-                FirstMatchers.hasEffects(refreshTasks(), loadTasks())));
+                FirstMatchers.hasEffects(
+                    refreshTasks(),
+                    loadTasks(ALL_TASKS, TasksListLogic.PAGE_SIZE),
+                    observeTaskChanges())));
   }
 
   @Test
@@ -73,7 +93,8 @@ public class TasksListLogicTest {
         .then(
             assertThatFirst(
                 FirstMatchers.hasModel(modelWithTasks(task("t1"), task("t2"), task("t3"))),
-                FirstMatchers.hasEffects(loadTasks())));
+                FirstMatchers.hasEffects(
+                    loadTasks(ALL_TASKS, TasksListLogic.PAGE_SIZE), observeTaskChanges())));
   }
 
   @Test
@@ -96,6 +117,23 @@ public class TasksListLogicTest {
         .then(assertThatNext(hasNoModel(), hasEffects(navigateToTaskDetails(task("t3")))));
   }
 
+  @Test
+  public void touchingATaskPrefetchesItsDetails() {
+    TasksListModel stateWithSomeTasks = modelWithTasks(task("t1"), task("t2"), task("t3"));
+    updateSpec
+        .given(stateWithSomeTasks)
+        .when(taskDetailsPrefetchRequested("t2"))
+        .then(assertThatNext(hasNoModel(), hasEffects(prefetchTaskDetails(task("t2")))));
+  }
+
+  @Test
+  public void touchingATaskThatIsNoLongerListedDoesNothing() {
+    updateSpec
+        .given(modelWithTasks(task("t1")))
+        .when(taskDetailsPrefetchRequested("t9"))
+        .then(assertThatNext(hasNothing()));
+  }
+
   @Test
   public void completingTasksUpdatesModelAndDispatchesSaveTaskEffect() {
     TasksListModel stateWithSomeTasks = modelWithTasks(task("t1"), task("t2"), task("t3"));
@@ -138,16 +176,55 @@ public class TasksListLogicTest {
   }
 
   @Test
-  public void addingAFilterUpdatesTheCurrentFilter() {
-    TasksListModel stateWithSomeTasks = modelWithTasks(task("t1", true), task("t2"), task("t3"));
+  public void selectingAFilterUpdatesTheCurrentFilterAndLoadsTheMatchingTasks() {
+    TasksListModel stateWithSomeTasks =
+        modelWithTasks(task("t1", true), task("t2"), task("t3"))
+            .toBuilder()
+            .hasMoreTasks(true)
+            .dataVersion(3)
+            .lastPosition(3)
+            .build();
 
     updateSpec
         .given(stateWithSomeTasks)
         .when(filterSelected(TasksFilterType.COMPLETED_TASKS))
         .then(
             assertThatNext(
-                hasModel(stateWithSomeTasks.withTasksFilter(TasksFilterType.COMPLETED_TASKS)),
-                hasNoEffects()));
+                hasModel(
+                    modelWithTasks(task("t1", true), task("t2"), task("t3"))
+                        .withTasksFilter(TasksFilterType.COMPLETED_TASKS)),
+                hasEffects(
+                    loadTasks(TasksFilterType.COMPLETED_TASKS, TasksListLogic.PAGE_SIZE))));
+  }
+
+  @Test
+  public void selectingTheCurrentFilterDoesNothing() {
+    updateSpec
+        .given(modelWithTasks(task("t1")))
+        .when(filterSelected(ALL_TASKS))
+        .then(assertThatNext(hasNothing()));
+  }
+
+  @Test
+  public void tasksLoadedForAReplacedFilterAreIgnored() {
+    TasksListModel stateWithSomeTasks =
+        modelWithTasks(task("t1")).withTasksFilter(TasksFilterType.ACTIVE_TASKS);
+
+    updateSpec
+        .given(stateWithSomeTasks)
+        .when(tasksLoaded(ALL_TASKS, of(task("t2")), 2, 1))
+        .then(assertThatNext(hasNothing()));
+  }
+
+  @Test
+  public void aPageLoadedForAReplacedFilterIsIgnored() {
+    TasksListModel stateWithSomeTasks =
+        modelWithTasks(task("t1")).withTasksFilter(TasksFilterType.ACTIVE_TASKS);
+
+    updateSpec
+        .given(stateWithSomeTasks)
+        .when(tasksPageLoaded(ALL_TASKS, of(task("t2")), 2))
+        .then(assertThatNext(hasNothing()));
   }
 
   @Test
@@ -157,7 +234,7 @@ public class TasksListLogicTest {
     ImmutableList<Task> receivedList = of(task("t4"), task("t5"));
     updateSpec
         .given(stateWithSomeTasks)
-        .when(tasksLoaded(receivedList))
+        .when(tasksLoaded(ALL_TASKS, receivedList, NO_VERSION, START_POSITION))
         .then(assertThatNext(hasModel(stateWithSomeTasks.withTasks(receivedList)), hasNoEffects()));
   }
 
@@ -166,17 +243,68 @@ public class TasksListLogicTest {
     ImmutableList<Task> receivedList = of(task("t4"), task("t5"));
     updateSpec
         .given(TasksListModel.DEFAULT)
-        .when(tasksLoaded(receivedList))
+        .when(tasksLoaded(ALL_TASKS, receivedList, NO_VERSION, START_POSITION))
         .then(
             assertThatNext(
                 hasModel(TasksListModel.DEFAULT.withTasks(receivedList)), hasNoEffects()));
   }
 
+  @Test
+  public void loadedTasksRecordTheirDataVersionAndPosition() {
+    ImmutableList<Task> receivedList = of(task("t4"), task("t5"));
+    TasksListModel expected =
+        TasksListModel.DEFAULT
+            .withTasks(receivedList)
+            .toBuilder()
+            .dataVersion(7)
+            .lastPosition(12)
+            .build();
+    updateSpec
+        .given(TasksListModel.DEFAULT)
+        .when(tasksLoaded(ALL_TASKS, receivedList, 7, 12))
+        .then(assertThatNext(hasModel(expected), hasNoEffects()));
+  }
+
+  @Test
+  public void loadsAtTheSameDataVersionAreNotCompared() {
+    TasksListModel model =
+        modelWithTasks(task("t1"), task("t2")).toBuilder().dataVersion(7).build();
+
+    // The version says nothing changed, so the tasks aren't looked at.
+    updateSpec
+        .given(model)
+        .when(tasksLoaded(ALL_TASKS, of(task("t3")), 7, START_POSITION))
+        .then(assertThatNext(hasNothing()));
+  }
+
+  @Test
+  public void unchangedTasksAtANewDataVersionOnlyUpdateTheVersion() {
+    TasksListModel model =
+        modelWithTasks(task("t1"), task("t2")).toBuilder().dataVersion(7).build();
+
+    updateSpec
+        .given(model)
+        .when(tasksLoaded(ALL_TASKS, of(task("t1"), task("t2")), 8, START_POSITION))
+        .then(
+            assertThatNext(hasModel(model.toBuilder().dataVersion(8).build()), hasNoEffects()));
+  }
+
+  @Test
+  public void changingATaskForgetsTheDataVersion() {
+    TasksListModel model =
+        modelWithTasks(task("t1"), task("t2")).toBuilder().dataVersion(7).build();
+
+    Next<TasksListModel, TasksListEffect> next =
+        TasksListLogic.update(model, taskMarkedComplete("t1"));
+
+    assertThat(next.modelUnsafe().dataVersion(), is(NO_VERSION));
+  }
+
   @Test
   public void loadingEmptyTaskListLocallyWhileRefreshingShouldNotUpdateModel() {
     updateSpec
         .given(TasksListModel.DEFAULT.withLoading(true))
-        .when(tasksLoaded(ImmutableList.of()))
+        .when(tasksLoaded(ALL_TASKS, ImmutableList.of(), NO_VERSION, START_POSITION))
         .then(assertThatNext(hasNothing()));
   }
 
@@ -184,12 +312,176 @@ public class TasksListLogicTest {
   public void loadingEmptyTaskListLocallyWhenNotRefreshingUpdatesModel() {
     updateSpec
         .given(TasksListModel.DEFAULT)
-        .when(tasksLoaded(ImmutableList.of()))
+        .when(tasksLoaded(ALL_TASKS, ImmutableList.of(), NO_VERSION, START_POSITION))
         .then(
             assertThatNext(
                 hasModel(TasksListModel.DEFAULT.withTasks(ImmutableList.of())), hasNoEffects()));
   }
 
+  @Test
+  public void changedTasksAreReplacedInPlace() {
+    updateSpec
+        .given(modelWithTasks(task("t1"), task("t2"), task("t3")))
+        .when(tasksChanged(TaskChanges.saved(of(), of(task("t2", true)))))
+        .then(
+            assertThatNext(
+                hasModel(modelWithTasks(task("t1"), task("t2", true), task("t3"))),
+                hasNoEffects()));
+  }
+
+  @Test
+  public void insertedTasksAreAppendedAndDeletedTasksRemoved() {
+    updateSpec
+        .given(modelWithTasks(task("t1"), task("t2")))
+        .when(tasksChanged(TaskChanges.create(of(task("t3")), of(), of("t1"), false)))
+        .then(assertThatNext(hasModel(modelWithTasks(task("t2"), task("t3"))), hasNoEffects()));
+  }
+
+  @Test
+  public void deletingAllTasksEmptiesTheList() {
+    updateSpec
+        .given(modelWithTasks(task("t1"), task("t2")))
+        .when(tasksChanged(TaskChanges.allTasksDeleted()))
+        .then(assertThatNext(hasModel(modelWithTasks()), hasNoEffects()));
+  }
+
+  @Test
+  public void changesThatMatchTheCurrentListAreIgnored() {
+    updateSpec
+        .given(modelWithTasks(task("t1", true), task("t2")))
+        .when(tasksChanged(TaskChanges.saved(of(), of(task("t1", true)))))
+        .then(assertThatNext(hasNothing()));
+  }
+
+  @Test
+  public void updatingATaskKeepsTheModelsIndexes() {
+    TasksListModel model = modelWithTasks(task("t1"), task("t2"), task("t3"));
+    model.findTaskIndexById("t1");
+    TaskStatusIndex statusIndex = model.statusIndex();
+    Task edited = task("t2").withDetails(TaskDetails.create("edited", "description"));
+
+    TasksListModel updated =
+        TasksListLogic.update(model, tasksChanged(TaskChanges.saved(of(), of(edited)))).model();
+
+    assertThat(updated.findTaskById("t2").get(), is(edited));
+    assertThat(updated.taskIndexById(), is(sameInstance(model.taskIndexById())));
+    assertThat(updated.statusIndex(), is(sameInstance(statusIndex)));
+  }
+
+  @Test
+  public void changesBeforeTheFirstLoadAreIgnored() {
+    updateSpec
+        .given(TasksListModel.DEFAULT)
+        .when(tasksChanged(TaskChanges.saved(of(task("t1")), of())))
+        .then(assertThatNext(hasNothing()));
+  }
+
+  @Test
+  public void loadingAFullPageMeansThereAreMoreTasks() {
+    ImmutableList<Task> fullPage = tasks(0, TasksListLogic.PAGE_SIZE);
+    updateSpec
+        .given(TasksListModel.DEFAULT)
+        .when(tasksLoaded(ALL_TASKS, fullPage, NO_VERSION, START_POSITION))
+        .then(
+            assertThatNext(
+                hasModel(TasksListModel.DEFAULT.withTasks(fullPage).withHasMoreTasks(true)),
+                hasNoEffects()));
+  }
+
+  @Test
+  public void requestingMoreTasksLoadsThePageAfterTheLastPosition() {
+    TasksListModel model =
+        modelWithTasks(task("t1"), task("t2"))
+            .toBuilder()
+            .hasMoreTasks(true)
+            .lastPosition(9)
+            .build();
+    updateSpec
+        .given(model)
+        .when(loadMoreTasksRequested())
+        .then(
+            assertThatNext(
+                hasModel(model.withLoadingMore(true)),
+                hasEffects(loadTasksPage(ALL_TASKS, 9, TasksListLogic.PAGE_SIZE))));
+  }
+
+  @Test
+  public void requestingMoreTasksWhileAPageIsLoadingDoesNothing() {
+    updateSpec
+        .given(modelWithTasks(task("t1")).withHasMoreTasks(true).withLoadingMore(true))
+        .when(loadMoreTasksRequested())
+        .then(assertThatNext(hasNothing()));
+  }
+
+  @Test
+  public void aPageThatFailsToLoadCanBeRequestedAgain() {
+    TasksListModel model = modelWithTasks(task("t1")).withHasMoreTasks(true);
+    updateSpec
+        .given(model.withLoadingMore(true))
+        .when(tasksPageLoadingFailed())
+        .then(
+            assertThatNext(
+                hasModel(model), hasEffects(showFeedback(FeedbackType.LOADING_ERROR))));
+  }
+
+  @Test
+  public void requestingMoreTasksWhenThereAreNoneDoesNothing() {
+    updateSpec
+        .given(modelWithTasks(task("t1"), task("t2")))
+        .when(loadMoreTasksRequested())
+        .then(assertThatNext(hasNothing()));
+  }
+
+  @Test
+  public void loadedPagesAreAppendedWithoutDuplicates() {
+    ImmutableList<Task> fullPage = tasks(2, TasksListLogic.PAGE_SIZE);
+    TasksListModel model = TasksListModel.builder().tasks(tasks(0, 3)).build();
+
+    updateSpec
+        .given(model)
+        .when(tasksPageLoaded(ALL_TASKS, fullPage, 60))
+        .then(
+            assertThatNext(
+                hasModel(
+                    model
+                        .withTasks(tasks(0, TasksListLogic.PAGE_SIZE + 2))
+                        .toBuilder()
+                        .hasMoreTasks(true)
+                        .lastPosition(60)
+                        .build()),
+                hasNoEffects()));
+  }
+
+  @Test
+  public void insertedTasksAreNotAppendedWhileThereAreMoreTasksToLoad() {
+    updateSpec
+        .given(modelWithTasks(task("t1")).withHasMoreTasks(true))
+        .when(tasksChanged(TaskChanges.saved(of(task("t2")), of())))
+        .then(assertThatNext(hasNothing()));
+  }
+
+  @Test
+  public void theNextPageIsLoadedWhenNoLoadedTaskMatchesTheFilter() {
+    TasksListModel model =
+        modelWithTasks(task("t1"))
+            .toBuilder()
+            .filter(TasksFilterType.ACTIVE_TASKS)
+            .hasMoreTasks(true)
+            .lastPosition(5)
+            .build();
+    TasksListModel expected =
+        model.withTasks(of(task("t1", true))).toBuilder().loadingMore(true).build();
+
+    updateSpec
+        .given(model)
+        .when(tasksChanged(TaskChanges.saved(of(), of(task("t1", true)))))
+        .then(
+            assertThatNext(
+                hasModel(expected),
+                hasEffects(
+                    loadTasksPage(TasksFilterType.ACTIVE_TASKS, 5, TasksListLogic.PAGE_SIZE))));
+  }
+
   @Test
   public void createdTasksEndAtTailOfTheList() {
     TasksListModel stateWithSomeTasks = modelWithTasks(task("t1", true), task("t2"), task("t3"));
@@ -203,7 +495,7 @@ public class TasksListLogicTest {
   }
 
   @Test
-  public void clearingCompletedTasksShouldRemoveThemFromTheListAndDeleteThem() {
+  public void clearingCompletedTasksShouldRemoveThemFromTheListAndClearThemFromStorage() {
     TasksListModel stateWithSomeTasks =
         modelWithTasks(task("t1", true), task("t2", true), task("t3"));
 
@@ -213,9 +505,37 @@ public class TasksListLogicTest {
         .then(
             assertThatNext(
                 hasModel(modelWithTasks(task("t3"))),
-                hasEffects(
-                    deleteTasks(task("t1", true), task("t2", true)),
-                    showFeedback(FeedbackType.CLEARED_COMPLETED))));
+                hasEffects(clearCompletedTasks(), showFeedback(FeedbackType.CLEARED_COMPLETED))));
+  }
+
+  @Test
+  public void clearingCompletedTasksClearsStorageEvenIfNoneAreLoaded() {
+    updateSpec
+        .given(modelWithTasks(task("t1")).withHasMoreTasks(true))
+        .when(clearCompletedTasksRequested())
+        .then(
+            assertThatNext(
+                hasNoModel(),
+                hasEffects(clearCompletedTasks(), showFeedback(FeedbackType.CLEARED_COMPLETED))));
+  }
+
+  @Test
+  public void clearingCompletedTasksClearsStorageWhenOnlyActiveTasksAreLoaded() {
+    updateSpec
+        .given(modelWithTasks(task("t1")).withTasksFilter(TasksFilterType.ACTIVE_TASKS))
+        .when(clearCompletedTasksRequested())
+        .then(
+            assertThatNext(
+                hasNoModel(),
+                hasEffects(clearCompletedTasks(), showFeedback(FeedbackType.CLEARED_COMPLETED))));
+  }
+
+  @Test
+  public void clearingCompletedTasksWhenAllAreLoadedAndNoneAreCompletedDoesNothing() {
+    updateSpec
+        .given(modelWithTasks(task("t1")))
+        .when(clearCompletedTasksRequested())
+        .then(assertThatNext(hasNothing()));
   }
 
   @Test
@@ -227,17 +547,22 @@ public class TasksListLogicTest {
         .when(tasksRefreshed())
         .then(
             assertThatNext(
-                hasModel(stateWithSomeTasks.withLoading(false)), hasEffects(loadTasks())));
-  }
-
-  private TasksListEffect deleteTasks(Task... tasks) {
-    return TasksListEffect.deleteTasks(ImmutableList.copyOf(tasks));
+                hasModel(stateWithSomeTasks.withLoading(false)),
+                hasEffects(loadTasks(ALL_TASKS, TasksListLogic.PAGE_SIZE))));
   }
 
   private TasksListModel modelWithTasks(Task... tasks) {
     return TasksListModel.builder().tasks(ImmutableList.copyOf(tasks)).build();
   }
 
+  private ImmutableList<Task> tasks(int from, int to) {
+    ImmutableList.Builder<Task> tasks = ImmutableList.builder();
+    for (int i = from; i < to; i++) {
+      tasks.add(task("t" + i));
+    }
+    return tasks.build();
+  }
+
   private Task task(String title) {
     return task(title, false);
   }
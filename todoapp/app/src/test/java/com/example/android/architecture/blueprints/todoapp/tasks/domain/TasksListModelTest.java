@@ -0,0 +1,109 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.tasks.domain;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+import com.example.android.architecture.blueprints.todoapp.data.Task;
+import com.example.android.architecture.blueprints.todoapp.data.TaskDetails;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+public class TasksListModelTest {
+
+  // Enough tasks for the vector to need more than one level of nodes.
+  private static final int SHARED_TASK_COUNT = 5_000;
+
+  @Test
+  public void findsTasksById() {
+    TasksListModel model = TasksListModel.DEFAULT.withTasks(tasks(3));
+
+    assertThat(model.findTaskIndexById("t0"), is(0));
+    assertThat(model.findTaskIndexById("t2"), is(2));
+    assertThat(model.findTaskIndexById("missing"), is(-1));
+  }
+
+  @Test
+  public void lookupsStayCorrectAcrossTaskUpdates() {
+    TasksListModel model = TasksListModel.DEFAULT.withTasks(tasks(3));
+    model.findTaskIndexById("t0");
+
+    TasksListModel updated =
+        model
+            .withTaskAtIndex(model.tasks().get(1).complete(), 1)
+            .withLoading(true)
+            .withTaskAtIndex(task("other"), 2);
+
+    assertThat(updated.findTaskIndexById("t1"), is(1));
+    assertThat(updated.findTaskIndexById("other"), is(2));
+    assertThat(updated.findTaskIndexById("t2"), is(-1));
+    assertThat(updated.findTaskById("t1").get().details().completed(), is(true));
+  }
+
+  @Test
+  public void lookupsStayCorrectWhenTasksAreReplaced() {
+    TasksListModel model = TasksListModel.DEFAULT.withTasks(tasks(3));
+    model.findTaskIndexById("t0");
+
+    TasksListModel replaced = model.withTasks(ImmutableList.of(task("t2"), task("t0")));
+
+    assertThat(replaced.findTaskIndexById("t0"), is(1));
+    assertThat(replaced.findTaskIndexById("t1"), is(-1));
+  }
+
+  @Test
+  public void lookupIndexIsNotPartOfEquality() {
+    TasksListModel model = TasksListModel.DEFAULT.withTasks(tasks(3));
+    TasksListModel indexed = TasksListModel.DEFAULT.withTasks(tasks(3));
+    indexed.findTaskIndexById("t0");
+
+    assertThat(indexed, is(model));
+    assertThat(indexed.hashCode(), is(model.hashCode()));
+  }
+
+  @Test
+  public void updatingATaskSharesEveryOtherTaskWithThePreviousModel() {
+    TasksListModel model = TasksListModel.DEFAULT.withTasks(tasks(SHARED_TASK_COUNT));
+    int updatedIndex = SHARED_TASK_COUNT / 2;
+    Task updatedTask = model.tasks().get(updatedIndex).complete();
+
+    TasksListModel updated = model.withTaskAtIndex(updatedTask, updatedIndex);
+
+    assertThat(updated.tasks().get(updatedIndex), is(sameInstance(updatedTask)));
+    assertThat(model.tasks().get(updatedIndex).details().completed(), is(false));
+    for (int i = 0; i < SHARED_TASK_COUNT; i++) {
+      if (i == updatedIndex) continue;
+      assertThat(updated.tasks().get(i), is(sameInstance(model.tasks().get(i))));
+    }
+  }
+
+  private static ImmutableList<Task> tasks(int count) {
+    ImmutableList.Builder<Task> tasks = ImmutableList.builder();
+    for (int i = 0; i < count; i++) {
+      tasks.add(task("t" + i));
+    }
+    return tasks.build();
+  }
+
+  private static Task task(String id) {
+    return Task.create(id, TaskDetails.create("title", "description"));
+  }
+}
@@ -18,52 +18,74 @@
  */
 package com.example.android.architecture.blueprints.todoapp.tasks.effecthandlers;
 
-import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.deleteTasks;
+import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksFilterType.ACTIVE_TASKS;
+import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksFilterType.ALL_TASKS;
+import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksFilterType.COMPLETED_TASKS;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.loadTasks;
+import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.loadTasksPage;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.navigateToTaskDetails;
+import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.observeTaskChanges;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.refreshTasks;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.saveTask;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.showFeedback;
+import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.tasksChanged;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.tasksLoaded;
 import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.tasksLoadingFailed;
-import static com.example.android.architecture.blueprints.todoapp.tasks.effecthandlers.TasksListEffectHandlers.deleteTasksHandler;
+import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.tasksPageLoaded;
+import static com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent.tasksPageLoadingFailed;
+import static com.example.android.architecture.blueprints.todoapp.tasks.effecthandlers.TasksListEffectHandlers.clearCompletedTasksHandler;
 import static com.example.android.architecture.blueprints.todoapp.tasks.effecthandlers.TasksListEffectHandlers.loadTasksHandler;
+import static com.example.android.architecture.blueprints.todoapp.tasks.effecthandlers.TasksListEffectHandlers.loadTasksPageHandler;
 import static com.example.android.architecture.blueprints.todoapp.tasks.effecthandlers.TasksListEffectHandlers.navigateToDetailsHandler;
+import static com.example.android.architecture.blueprints.todoapp.tasks.effecthandlers.TasksListEffectHandlers.observeTaskChangesHandler;
 import static com.example.android.architecture.blueprints.todoapp.tasks.effecthandlers.TasksListEffectHandlers.refreshTasksHandler;
+import static com.example.android.architecture.blueprints.todoapp.tasks.effecthandlers.TasksListEffectHandlers.refreshes;
 import static com.example.android.architecture.blueprints.todoapp.tasks.effecthandlers.TasksListEffectHandlers.saveTaskHandler;
 import static com.example.android.architecture.blueprints.todoapp.tasks.effecthandlers.TasksListEffectHandlers.showFeedbackHandler;
-import static org.hamcrest.CoreMatchers.hasItems;
 import static org.hamcrest.MatcherAssert.assertThat;
-import static org.hamcrest.Matchers.allOf;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
-import static org.hamcrest.Matchers.not;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import com.example.android.architecture.blueprints.todoapp.data.FakeTasksRemoteDataSource;
 import com.example.android.architecture.blueprints.todoapp.data.Task;
+import com.example.android.architecture.blueprints.todoapp.data.TaskChanges;
 import com.example.android.architecture.blueprints.todoapp.data.TaskDetails;
+import com.example.android.architecture.blueprints.todoapp.data.TasksDelta;
+import com.example.android.architecture.blueprints.todoapp.data.TasksPage;
 import com.example.android.architecture.blueprints.todoapp.data.source.TasksDataSource;
+import com.example.android.architecture.blueprints.todoapp.data.source.TasksSyncDataSource;
+import com.example.android.architecture.blueprints.todoapp.data.source.TasksSyncStore;
+import com.example.android.architecture.blueprints.todoapp.data.source.VersionedTasksDataSource;
 import com.example.android.architecture.blueprints.todoapp.tasks.domain.FeedbackType;
 import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect;
 import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.LoadTasks;
+import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.LoadTasksPage;
+import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.ObserveTaskChanges;
 import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.RefreshTasks;
 import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEffect.SaveTask;
 import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksListEvent;
 import com.example.android.architecture.blueprints.todoapp.tasks.view.TasksListViewActions;
+import com.example.android.architecture.blueprints.todoapp.util.LatestWins;
+import com.example.android.architecture.blueprints.todoapp.util.SingleFlight;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.spotify.mobius.test.RecordingConsumer;
 import io.reactivex.Flowable;
 import io.reactivex.ObservableTransformer;
+import io.reactivex.Single;
 import io.reactivex.functions.Consumer;
 import io.reactivex.observers.TestObserver;
+import io.reactivex.processors.PublishProcessor;
 import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.SingleSubject;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import org.junit.After;
 import org.junit.Before;
@@ -88,7 +110,7 @@ public class TasksListEffectHandlersTest {
       FakeDataSource localSource = new FakeDataSource();
 
       ObservableTransformer<RefreshTasks, TasksListEvent> underTest =
-          refreshTasksHandler(remoteSource, localSource);
+          refreshTasksHandler(refreshes(remoteSource, localSource));
 
       TestCase<RefreshTasks, TasksListEvent> testCase = new TestCase<>(underTest);
       testCase.dispatchEffect(refreshTasks().asRefreshTasks());
@@ -97,12 +119,100 @@ public class TasksListEffectHandlersTest {
       testCase.assertEvents(TasksListEvent.tasksRefreshed());
     }
 
+    @Test
+    public void storesAllRefreshedTasksInASingleWrite() {
+      FakeTasksRemoteDataSource remoteSource = FakeTasksRemoteDataSource.getInstance();
+      remoteSource.addTasks(TASK_2, TASK_3);
+      FakeDataSource localSource = new FakeDataSource();
+
+      TestCase<RefreshTasks, TasksListEvent> testCase =
+          new TestCase<>(refreshTasksHandler(refreshes(remoteSource, localSource)));
+      testCase.dispatchEffect(refreshTasks().asRefreshTasks());
+
+      assertThat(localSource.tasks, contains(TASK_1, TASK_2, TASK_3));
+      assertThat(localSource.bulkWrites, is(1));
+      testCase.assertEvents(TasksListEvent.tasksRefreshed());
+    }
+
+    @Test
+    public void theFirstRefreshRemovesTasksThatAreGoneRemotely() {
+      FakeTasksRemoteDataSource remoteSource = FakeTasksRemoteDataSource.getInstance();
+      FakeDataSource localSource = new FakeDataSource();
+      localSource.addTasks(TASK_3);
+
+      TestCase<RefreshTasks, TasksListEvent> testCase =
+          new TestCase<>(refreshTasksHandler(refreshes(remoteSource, localSource)));
+      testCase.dispatchEffect(refreshTasks().asRefreshTasks());
+
+      assertThat(localSource.lastDelta.complete(), is(true));
+      assertThat(localSource.tasks, contains(TASK_1));
+    }
+
+    @Test
+    public void laterRefreshesOnlyApplyWhatChangedSinceTheLastOne() {
+      FakeTasksRemoteDataSource remoteSource = FakeTasksRemoteDataSource.getInstance();
+      remoteSource.addTasks(TASK_2);
+      FakeDataSource localSource = new FakeDataSource();
+
+      TestCase<RefreshTasks, TasksListEvent> testCase =
+          new TestCase<>(refreshTasksHandler(refreshes(remoteSource, localSource)));
+      testCase.dispatchEffect(refreshTasks().asRefreshTasks());
+
+      Task completedTask = TASK_2.complete();
+      remoteSource.saveTask(completedTask);
+      remoteSource.deleteTask(TASK_1.id());
+      testCase.dispatchEffect(refreshTasks().asRefreshTasks());
+
+      assertThat(localSource.lastDelta.changed(), contains(completedTask));
+      assertThat(localSource.lastDelta.deleted(), contains(TASK_1.id()));
+      assertThat(localSource.tasks, contains(completedTask));
+      testCase.assertEvents(TasksListEvent.tasksRefreshed(), TasksListEvent.tasksRefreshed());
+    }
+
+    @Test
+    public void concurrentRefreshesShareOneSync() {
+      SingleSubject<TasksListEvent> sync = SingleSubject.create();
+      SingleFlight<TasksListEvent> refreshes = new SingleFlight<>(sync);
+
+      TestCase<RefreshTasks, TasksListEvent> testCase =
+          new TestCase<>(refreshTasksHandler(refreshes));
+      testCase.dispatchEffect(refreshTasks().asRefreshTasks());
+      testCase.dispatchEffect(refreshTasks().asRefreshTasks());
+      sync.onSuccess(TasksListEvent.tasksRefreshed());
+
+      testCase.assertEvents(TasksListEvent.tasksRefreshed(), TasksListEvent.tasksRefreshed());
+      assertThat(refreshes.getDeduplicatedCount(), is(1L));
+    }
+
+    @Test
+    public void refreshesStartedDuringASyncAreCountedAsDeduplicated() {
+      PublishProcessor<TasksDelta> changes = PublishProcessor.create();
+      FakeDataSource localSource = new FakeDataSource();
+      SingleFlight<TasksListEvent> refreshes = refreshes(syncToken -> changes, localSource);
+
+      TestCase<RefreshTasks, TasksListEvent> testCase =
+          new TestCase<>(refreshTasksHandler(refreshes));
+      testCase.dispatchEffect(refreshTasks().asRefreshTasks());
+      testCase.dispatchEffect(refreshTasks().asRefreshTasks());
+      testCase.dispatchEffect(refreshTasks().asRefreshTasks());
+      changes.onNext(TasksDelta.create(ImmutableList.of(TASK_2), ImmutableList.of(), "1"));
+      changes.onComplete();
+
+      assertThat(refreshes.getDeduplicatedCount(), is(2L));
+      assertThat(localSource.bulkWrites, is(1));
+      assertThat(localSource.tasks, contains(TASK_2));
+      testCase.assertEvents(
+          TasksListEvent.tasksRefreshed(),
+          TasksListEvent.tasksRefreshed(),
+          TasksListEvent.tasksRefreshed());
+    }
+
     @Test
     public void failureToStoreTasksResultsInErrorEvent() {
       FakeDataSource localSource = new FakeDataSource();
       localSource.fail = true;
       ObservableTransformer<RefreshTasks, TasksListEvent> underTest =
-          refreshTasksHandler(FakeTasksRemoteDataSource.getInstance(), localSource);
+          refreshTasksHandler(refreshes(FakeTasksRemoteDataSource.getInstance(), localSource));
 
       TestCase<RefreshTasks, TasksListEvent> testCase = new TestCase<>(underTest);
 
@@ -117,7 +227,7 @@ public class TasksListEffectHandlersTest {
       FakeDataSource remoteSource = new FakeDataSource();
       remoteSource.fail = true;
       ObservableTransformer<RefreshTasks, TasksListEvent> underTest =
-          refreshTasksHandler(remoteSource, localSource);
+          refreshTasksHandler(refreshes(remoteSource, localSource));
       TestCase<RefreshTasks, TasksListEvent> testCase = new TestCase<>(underTest);
       testCase.dispatchEffect(refreshTasks().asRefreshTasks());
       assertThat(localSource.tasks.isEmpty(), is(true));
@@ -139,8 +249,66 @@ public class TasksListEffectHandlersTest {
 
       ImmutableList<Task> result = ImmutableList.of(TASK_1);
       TestCase<LoadTasks, TasksListEvent> testCase = new TestCase<>(loadTasksHandler(dataSource));
-      testCase.dispatchEffect(loadTasks().asLoadTasks());
-      testCase.assertEvents(tasksLoaded(result));
+      testCase.dispatchEffect(loadTasks(ALL_TASKS, 10).asLoadTasks());
+      testCase.assertEvents(tasksLoaded(ALL_TASKS, result, dataSource.dataVersion, 1));
+    }
+
+    @Test
+    public void loadingTasksOnlyLoadsTheFirstPage() {
+      FakeDataSource dataSource = new FakeDataSource();
+      dataSource.addTasks(TASK_1, TASK_2, TASK_3);
+
+      TestCase<LoadTasks, TasksListEvent> testCase = new TestCase<>(loadTasksHandler(dataSource));
+      testCase.dispatchEffect(loadTasks(ALL_TASKS, 2).asLoadTasks());
+      testCase.assertEvents(
+          tasksLoaded(ALL_TASKS, ImmutableList.of(TASK_1, TASK_2), dataSource.dataVersion, 2));
+    }
+
+    @Test
+    public void loadingFilteredTasksOnlyReadsTheMatchingTasks() {
+      FakeDataSource dataSource = new FakeDataSource();
+      Task completed = TASK_2.complete();
+      dataSource.addTasks(TASK_1, completed, TASK_3);
+
+      TestCase<LoadTasks, TasksListEvent> testCase = new TestCase<>(loadTasksHandler(dataSource));
+      testCase.dispatchEffect(loadTasks(COMPLETED_TASKS, 10).asLoadTasks());
+      testCase.dispatchEffect(loadTasks(ACTIVE_TASKS, 1).asLoadTasks());
+      testCase.assertEvents(
+          tasksLoaded(COMPLETED_TASKS, ImmutableList.of(completed), dataSource.dataVersion, 2),
+          tasksLoaded(ACTIVE_TASKS, ImmutableList.of(TASK_1), dataSource.dataVersion, 1));
+    }
+
+    @Test
+    public void loadingAFilteredPageContinuesAfterTheGivenPosition() {
+      FakeDataSource dataSource = new FakeDataSource();
+      dataSource.addTasks(TASK_1, TASK_2.complete(), TASK_3);
+
+      TestCase<LoadTasksPage, TasksListEvent> testCase =
+          new TestCase<>(loadTasksPageHandler(dataSource));
+      testCase.dispatchEffect(loadTasksPage(ACTIVE_TASKS, 1, 10).asLoadTasksPage());
+      testCase.assertEvents(tasksPageLoaded(ACTIVE_TASKS, ImmutableList.of(TASK_3), 3));
+    }
+
+    @Test
+    public void loadingAPageEmitsTheTasksAfterTheGivenPosition() {
+      FakeDataSource dataSource = new FakeDataSource();
+      dataSource.addTasks(TASK_1, TASK_2, TASK_3);
+
+      TestCase<LoadTasksPage, TasksListEvent> testCase =
+          new TestCase<>(loadTasksPageHandler(dataSource));
+      testCase.dispatchEffect(loadTasksPage(ALL_TASKS, 1, 10).asLoadTasksPage());
+      testCase.assertEvents(tasksPageLoaded(ALL_TASKS, ImmutableList.of(TASK_2, TASK_3), 3));
+    }
+
+    @Test
+    public void failingToLoadAPageEmitsAPageErrorEvent() {
+      FakeDataSource dataSource = new FakeDataSource();
+      dataSource.fail = true;
+
+      TestCase<LoadTasksPage, TasksListEvent> testCase =
+          new TestCase<>(loadTasksPageHandler(dataSource));
+      testCase.dispatchEffect(loadTasksPage(ALL_TASKS, 1, 10).asLoadTasksPage());
+      testCase.assertEvents(tasksPageLoadingFailed());
     }
 
     @Test
@@ -149,7 +317,7 @@ public class TasksListEffectHandlersTest {
       dataSource.fail = true;
 
       TestCase<LoadTasks, TasksListEvent> testCase = new TestCase<>(loadTasksHandler(dataSource));
-      testCase.dispatchEffect(loadTasks().asLoadTasks());
+      testCase.dispatchEffect(loadTasks(ALL_TASKS, 10).asLoadTasks());
       testCase.assertEvents(tasksLoadingFailed());
     }
 
@@ -160,40 +328,90 @@ public class TasksListEffectHandlersTest {
       dataSource.fail = true;
 
       TestCase<LoadTasks, TasksListEvent> testCase = new TestCase<>(loadTasksHandler(dataSource));
-      testCase.dispatchEffect(loadTasks().asLoadTasks());
+      testCase.dispatchEffect(loadTasks(ALL_TASKS, 10).asLoadTasks());
 
       dataSource.fail = false;
-      testCase.dispatchEffect(loadTasks().asLoadTasks());
-      testCase.assertEvents(tasksLoadingFailed(), tasksLoaded(ImmutableList.of(TASK_1)));
+      testCase.dispatchEffect(loadTasks(ALL_TASKS, 10).asLoadTasks());
+      testCase.assertEvents(
+          tasksLoadingFailed(),
+          tasksLoaded(ALL_TASKS, ImmutableList.of(TASK_1), dataSource.dataVersion, 1));
+    }
+
+    @Test
+    public void aNewerLoadCancelsTheOneInFlight() {
+      List<SingleSubject<TasksPage>> loads = new ArrayList<>();
+      LatestWins<LoadTasks, TasksListEvent> handler =
+          loadTasksHandler(
+              new FakeDataSource() {
+                @Override
+                public Single<TasksPage> getVersionedTasksPage(long afterPosition, int limit) {
+                  SingleSubject<TasksPage> load = SingleSubject.create();
+                  loads.add(load);
+                  return load;
+                }
+              });
+
+      TestCase<LoadTasks, TasksListEvent> testCase = new TestCase<>(handler);
+      testCase.dispatchEffect(loadTasks(ALL_TASKS, 10).asLoadTasks());
+      testCase.dispatchEffect(loadTasks(ALL_TASKS, 10).asLoadTasks());
+      loads.get(1).onSuccess(TasksPage.create(ImmutableList.of(TASK_2), 2, 1));
+
+      assertThat(loads.get(0).hasObservers(), is(false));
+      assertThat(handler.getCancelledCount(), is(1L));
+      testCase.assertEvents(tasksLoaded(ALL_TASKS, ImmutableList.of(TASK_2), 2, 1));
+    }
+  }
+
+  public static class ObservingTaskChanges {
+
+    @Test
+    public void forwardsEveryChangeAsAnEvent() {
+      PublishProcessor<TaskChanges> changes = PublishProcessor.create();
+      TestCase<ObserveTaskChanges, TasksListEvent> testCase =
+          new TestCase<>(observeTaskChangesHandler(changes));
+      testCase.dispatchEffect(observeTaskChanges().asObserveTaskChanges());
+
+      TaskChanges saved = TaskChanges.saved(ImmutableList.of(TASK_1), ImmutableList.of());
+      TaskChanges deleted = TaskChanges.deleted(ImmutableList.of(TASK_1.id()));
+      changes.onNext(saved);
+      changes.onNext(deleted);
+
+      testCase.assertEvents(tasksChanged(saved), tasksChanged(deleted));
+    }
+
+    @Test
+    public void observingAgainReplacesThePreviousSubscription() {
+      PublishProcessor<TaskChanges> changes = PublishProcessor.create();
+      TestCase<ObserveTaskChanges, TasksListEvent> testCase =
+          new TestCase<>(observeTaskChangesHandler(changes));
+      testCase.dispatchEffect(observeTaskChanges().asObserveTaskChanges());
+      testCase.dispatchEffect(observeTaskChanges().asObserveTaskChanges());
+
+      TaskChanges saved = TaskChanges.saved(ImmutableList.of(TASK_1), ImmutableList.of());
+      changes.onNext(saved);
+
+      testCase.assertEvents(tasksChanged(saved));
     }
   }
 
   public static class SavingAndDeletingTasks {
 
     @Test
-    public void savingTasksAddsThemToBothLocalAndRemoteDataSources() throws Exception {
-      FakeDataSource remote = new FakeDataSource();
-      FakeDataSource local = new FakeDataSource();
-      Consumer<SaveTask> saveTaskConsumer = saveTaskHandler(remote, local);
+    public void savingTasksAddsThemToTheDataSource() throws Exception {
+      FakeDataSource dataSource = new FakeDataSource();
+      Consumer<SaveTask> saveTaskConsumer = saveTaskHandler(dataSource);
       saveTaskConsumer.accept(saveTask(TASK_1).asSaveTask());
-      assertThat(remote.tasks, contains(TASK_1));
-      assertThat(local.tasks, contains(TASK_1));
+      assertThat(dataSource.tasks, contains(TASK_1));
     }
 
     @Test
-    public void deletingTasksRemovesThemFromBothLocalAndRemoteDataSources() throws Exception {
-      FakeDataSource remote = new FakeDataSource();
-      FakeDataSource local = new FakeDataSource();
-      remote.addTasks(TASK_1, TASK_2, TASK_3);
-      local.addTasks(TASK_1, TASK_2, TASK_3);
-      Consumer<TasksListEffect.DeleteTasks> saveTaskConsumer = deleteTasksHandler(remote, local);
-      saveTaskConsumer.accept(deleteTasks(ImmutableList.of(TASK_1, TASK_3)).asDeleteTasks());
+    public void clearingCompletedTasksRemovesThemFromTheDataSource() throws Exception {
+      FakeDataSource dataSource = new FakeDataSource();
+      dataSource.addTasks(TASK_1.complete(), TASK_2, TASK_3.complete());
 
-      assertThat(remote.tasks, allOf(not(hasItems(TASK_1)), not(hasItems(TASK_3))));
-      assertThat(local.tasks, allOf(not(hasItems(TASK_1)), not(hasItems(TASK_3))));
+      clearCompletedTasksHandler(dataSource).run();
 
-      assertThat(remote.tasks, hasItems(TASK_2));
-      assertThat(local.tasks, hasItems(TASK_2));
+      assertThat(dataSource.tasks, contains(TASK_2));
     }
   }
 
@@ -250,10 +468,15 @@ public class TasksListEffectHandlersTest {
     }
   }
 
-  static class FakeDataSource implements TasksDataSource {
+  static class FakeDataSource
+      implements TasksDataSource, TasksSyncDataSource, TasksSyncStore, VersionedTasksDataSource {
 
     public List<Task> tasks = new ArrayList<>();
+    public long dataVersion = 1;
     public boolean fail = false;
+    public int bulkWrites = 0;
+    @Nullable public String syncToken;
+    @Nullable public TasksDelta lastDelta;
 
     @Override
     public Flowable<List<Task>> getTasks() {
@@ -261,6 +484,30 @@ public class TasksListEffectHandlersTest {
       return Flowable.just(tasks);
     }
 
+    // A task's position is its index in tasks, plus one.
+    @Override
+    public Single<TasksPage> getVersionedTasksPage(long afterPosition, int limit) {
+      if (fail) return Single.error(new RuntimeException("Could not load tasks"));
+      int from = (int) afterPosition;
+      List<Task> page = tasks.subList(from, Math.min(from + limit, tasks.size()));
+      return Single.just(TasksPage.create(page, dataVersion, from + page.size()));
+    }
+
+    @Override
+    public Single<TasksPage> getVersionedTasksPageWithStatus(
+        boolean completed, long afterPosition, int limit) {
+      if (fail) return Single.error(new RuntimeException("Could not load tasks"));
+      List<Task> page = new ArrayList<>();
+      long lastPosition = afterPosition;
+      for (int i = (int) afterPosition; i < tasks.size() && page.size() < limit; i++) {
+        if (tasks.get(i).details().completed() == completed) {
+          page.add(tasks.get(i));
+          lastPosition = i + 1;
+        }
+      }
+      return Single.just(TasksPage.create(page, dataVersion, lastPosition));
+    }
+
     @Override
     public Flowable<Optional<Task>> getTask(@NonNull String taskId) {
       if (fail) return Flowable.error(new RuntimeException("Could not load task"));
@@ -283,12 +530,31 @@ public class TasksListEffectHandlersTest {
       }
     }
 
+    @Override
+    public void saveTasks(@NonNull Collection<Task> tasks) {
+      if (fail) throw new RuntimeException("Failed to operate");
+      bulkWrites++;
+      for (Task task : tasks) {
+        saveTask(task);
+      }
+    }
+
     @Override
     public void deleteAllTasks() {
       if (fail) throw new RuntimeException("Failed to operate");
       tasks = new ArrayList<>();
     }
 
+    @Override
+    public void clearCompletedTasks() {
+      if (fail) throw new RuntimeException("Failed to operate");
+      List<Task> activeTasks = new ArrayList<>();
+      for (Task task : tasks) {
+        if (!task.details().completed()) activeTasks.add(task);
+      }
+      tasks = activeTasks;
+    }
+
     @Override
     public void deleteTask(@NonNull String taskId) {
       if (fail) throw new RuntimeException("Failed to operate");
@@ -298,6 +564,54 @@ public class TasksListEffectHandlersTest {
       tasks.remove(taskOptional.get());
     }
 
+    @Override
+    public void deleteTasks(@NonNull Collection<String> taskIds) {
+      if (fail) throw new RuntimeException("Failed to operate");
+      bulkWrites++;
+      for (String taskId : taskIds) {
+        deleteTask(taskId);
+      }
+    }
+
+    @Override
+    public Flowable<TasksDelta> getTasksChangedSince(@Nullable String syncToken) {
+      if (fail) return Flowable.error(new RuntimeException("Could not load changes"));
+      return Flowable.just(TasksDelta.create(tasks, ImmutableList.of(), "1"));
+    }
+
+    @Nullable
+    @Override
+    public String getSyncToken() {
+      return syncToken;
+    }
+
+    @Override
+    public void applyDelta(@NonNull TasksDelta delta) {
+      if (fail) throw new RuntimeException("Failed to operate");
+      bulkWrites++;
+      lastDelta = delta;
+      if (delta.complete()) {
+        tasks = new ArrayList<>();
+      }
+      for (Task task : delta.changed()) {
+        removeTask(task.id());
+        tasks.add(task);
+      }
+      for (String taskId : delta.deleted()) {
+        removeTask(taskId);
+      }
+      syncToken = delta.syncToken();
+    }
+
+    private void removeTask(String taskId) {
+      for (int i = 0; i < tasks.size(); i++) {
+        if (tasks.get(i).id().equals(taskId)) {
+          tasks.remove(i);
+          return;
+        }
+      }
+    }
+
     public void addTasks(Task... testTasks) {
       tasks.addAll(Arrays.asList(testTasks));
     }
@@ -0,0 +1,136 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.tasks.view;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+import com.spotify.mobius.disposables.Disposable;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DeferredEventSourceTest {
+
+  private List<Runnable> tasks;
+  private List<String> received;
+  private DeferredEventSource<String> underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    tasks = new ArrayList<>();
+    received = new ArrayList<>();
+    underTest = new DeferredEventSource<>(tasks::add, 3);
+  }
+
+  @Test
+  public void eventsAreDeliveredOnTheExecutorInOrder() {
+    underTest.subscribe(received::add);
+    underTest.notifyEvent("a");
+    underTest.notifyEvent("b");
+
+    assertThat(received, is(empty()));
+
+    runTasks();
+
+    assertThat(received, contains("a", "b"));
+  }
+
+  @Test
+  public void onlyOneDrainIsScheduledAtATime() {
+    underTest.subscribe(received::add);
+    underTest.notifyEvent("a");
+    underTest.notifyEvent("b");
+    underTest.notifyEvent("c");
+
+    assertThat(tasks.size(), is(1));
+  }
+
+  @Test
+  public void subscribingWithNothingQueuedDoesNotUseTheExecutor() {
+    Disposable subscription = underTest.subscribe(received::add);
+    subscription.dispose();
+
+    assertThat(tasks, is(empty()));
+  }
+
+  @Test
+  public void eventsWithoutASubscriberAreKeptForTheNextOne() {
+    underTest.notifyEvent("a");
+    runTasks();
+
+    underTest.subscribe(received::add);
+    runTasks();
+
+    assertThat(received, contains("a"));
+  }
+
+  @Test
+  public void disposedSubscribersGetNoMoreEvents() {
+    Disposable subscription = underTest.subscribe(received::add);
+    subscription.dispose();
+    underTest.notifyEvent("a");
+    runTasks();
+
+    assertThat(received, is(empty()));
+  }
+
+  @Test
+  public void eventsBeyondTheCapacityAreDroppedAndCounted() {
+    for (String event : new String[] {"a", "b", "c", "d", "e"}) {
+      underTest.notifyEvent(event);
+    }
+    underTest.subscribe(received::add);
+    runTasks();
+
+    assertThat(received, contains("a", "b", "c"));
+    assertThat(underTest.getDroppedCount(), is(2L));
+    assertThat(underTest.getMaxQueuedCount(), is(3));
+  }
+
+  @Test
+  public void aThrowingConsumerDoesNotStopLaterDeliveries() {
+    underTest.subscribe(
+        event -> {
+          if (event.equals("a")) throw new IllegalStateException("a");
+          received.add(event);
+        });
+    underTest.notifyEvent("a");
+    underTest.notifyEvent("b");
+
+    try {
+      tasks.remove(0).run();
+    } catch (IllegalStateException expected) {
+    }
+    runTasks();
+    underTest.notifyEvent("c");
+    runTasks();
+
+    assertThat(received, contains("b", "c"));
+  }
+
+  private void runTasks() {
+    while (!tasks.isEmpty()) {
+      tasks.remove(0).run();
+    }
+  }
+}
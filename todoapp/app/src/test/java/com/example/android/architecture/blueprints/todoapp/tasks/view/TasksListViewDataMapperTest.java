@@ -23,6 +23,8 @@ import static com.example.android.architecture.blueprints.todoapp.tasks.view.Tas
 import static com.example.android.architecture.blueprints.todoapp.tasks.view.TasksListViewDataMapper.tasksListModelToViewData;
 import static com.example.android.architecture.blueprints.todoapp.tasks.view.ViewState.awaitingTasks;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 import android.view.View;
@@ -34,6 +36,7 @@ import com.example.android.architecture.blueprints.todoapp.tasks.domain.TasksLis
 import com.example.android.architecture.blueprints.todoapp.tasks.view.TasksListViewData.EmptyTasksViewData;
 import com.example.android.architecture.blueprints.todoapp.tasks.view.TasksListViewData.TaskViewData;
 import com.google.common.collect.ImmutableList;
+import com.spotify.mobius.functions.Function;
 import org.junit.Test;
 
 /** Unit tests for the implementation of {@link TasksListViewDataMapper} */
@@ -152,15 +155,71 @@ public class TasksListViewDataMapperTest {
       assertThat(viewData.filterLabel(), is(R.string.label_active));
       assertThat(viewData.viewState().isEmptyTasks(), is(true));
     }
+  }
+
+  public static class MemoizedTaskListViewDataMapperTests {
+    private final Function<TasksListModel, TasksListViewData> mapper =
+        TasksListViewDataMapper.memoizedTasksListModelToViewData();
 
-    private Task task(String title) {
-      return task(title, false);
+    private final TasksListModel model =
+        TasksListModel.DEFAULT.withTasks(
+            ImmutableList.of(task("t1"), task("t2", true), task("t3")));
+
+    @Test
+    public void mapsLikeTheUnmemoizedMapper() {
+      TasksListModel filtered = model.withTasksFilter(TasksFilterType.COMPLETED_TASKS);
+
+      assertThat(mapper.apply(model), is(tasksListModelToViewData(model)));
+      assertThat(mapper.apply(filtered), is(tasksListModelToViewData(filtered)));
+      assertThat(
+          mapper.apply(TasksListModel.DEFAULT),
+          is(tasksListModelToViewData(TasksListModel.DEFAULT)));
     }
 
-    private Task task(String title, boolean completed) {
-      return Task.create(
-          title.toLowerCase(),
-          TaskDetails.create(title, title.concat(title).concat(title), completed));
+    @Test
+    public void reusesTheViewStateWhenOnlyLoadingChanges() {
+      ViewState viewState = mapper.apply(model).viewState();
+
+      TasksListViewData viewData = mapper.apply(model.withLoading(true));
+
+      assertThat(viewData.loading(), is(true));
+      assertThat(viewData.viewState(), is(sameInstance(viewState)));
     }
+
+    @Test
+    public void onlyRemapsTasksThatChanged() {
+      ImmutableList<TaskViewData> before =
+          mapper.apply(model).viewState().asHasTasks().taskViewData();
+
+      TasksListModel changed = model.withTaskAtIndex(model.tasks().get(0).complete(), 0);
+      ImmutableList<TaskViewData> after =
+          mapper.apply(changed).viewState().asHasTasks().taskViewData();
+
+      assertThat(
+          after, is(tasksListModelToViewData(changed).viewState().asHasTasks().taskViewData()));
+      assertThat(after.get(0), is(not(sameInstance(before.get(0)))));
+      assertThat(after.get(1), is(sameInstance(before.get(1))));
+      assertThat(after.get(2), is(sameInstance(before.get(2))));
+    }
+
+    @Test
+    public void changingTheFilterRemapsTheViewState() {
+      mapper.apply(model);
+
+      TasksListViewData viewData =
+          mapper.apply(model.withTasksFilter(TasksFilterType.ACTIVE_TASKS));
+
+      assertThat(viewData.viewState().asHasTasks().taskViewData().size(), is(2));
+    }
+  }
+
+  private static Task task(String title) {
+    return task(title, false);
+  }
+
+  private static Task task(String title, boolean completed) {
+    return Task.create(
+        title.toLowerCase(),
+        TaskDetails.create(title, title.concat(title).concat(title), completed));
   }
 }
@@ -0,0 +1,126 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import io.reactivex.schedulers.TestScheduler;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AsyncConnectablesTest {
+
+  private TestScheduler mapScheduler;
+  private TestScheduler deliveryScheduler;
+  private List<Integer> mapped;
+  private List<String> delivered;
+  private boolean targetDisposed;
+  private Connection<Integer> underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    mapScheduler = new TestScheduler();
+    deliveryScheduler = new TestScheduler();
+    mapped = new ArrayList<>();
+    delivered = new ArrayList<>();
+    Connectable<String, String> target =
+        output ->
+            new Connection<String>() {
+              @Override
+              public void accept(String value) {
+                delivered.add(value);
+              }
+
+              @Override
+              public void dispose() {
+                targetDisposed = true;
+              }
+            };
+    underTest =
+        AsyncConnectables.<Integer, String, String>contramap(
+                value -> {
+                  mapped.add(value);
+                  return "v" + value;
+                },
+                mapScheduler,
+                deliveryScheduler,
+                target)
+            .connect(__ -> {});
+  }
+
+  @Test
+  public void valuesAreMappedAndDeliveredOnTheirSchedulers() {
+    underTest.accept(1);
+
+    assertThat(mapped, is(empty()));
+
+    mapScheduler.triggerActions();
+
+    assertThat(mapped, contains(1));
+    assertThat(delivered, is(empty()));
+
+    deliveryScheduler.triggerActions();
+
+    assertThat(delivered, contains("v1"));
+  }
+
+  @Test
+  public void supersededValuesAreNotMapped() {
+    underTest.accept(1);
+    underTest.accept(2);
+    underTest.accept(3);
+    underTest.accept(4);
+    mapScheduler.triggerActions();
+    deliveryScheduler.triggerActions();
+
+    assertThat(mapped.contains(2), is(false));
+    assertThat(mapped.contains(3), is(false));
+    assertThat(delivered.get(delivered.size() - 1), is("v4"));
+  }
+
+  @Test
+  public void supersededResultsAreNotDelivered() {
+    for (int i = 1; i <= 5; i++) {
+      underTest.accept(i);
+      mapScheduler.triggerActions();
+    }
+    deliveryScheduler.triggerActions();
+
+    assertThat(delivered.size() < 5, is(true));
+    assertThat(delivered.get(delivered.size() - 1), is("v5"));
+  }
+
+  @Test
+  public void disposingStopsDeliveryAndDisposesTheTarget() {
+    underTest.accept(1);
+    mapScheduler.triggerActions();
+    underTest.dispose();
+    deliveryScheduler.triggerActions();
+
+    assertThat(delivered, is(empty()));
+    assertThat(targetDisposed, is(true));
+  }
+}
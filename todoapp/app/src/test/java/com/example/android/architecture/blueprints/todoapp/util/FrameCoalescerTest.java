@@ -0,0 +1,101 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FrameCoalescerTest {
+
+  private List<Runnable> frameCallbacks;
+  private List<String> rendered;
+  private FrameCoalescer<String> underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    frameCallbacks = new ArrayList<>();
+    rendered = new ArrayList<>();
+    underTest = new FrameCoalescer<>(frameCallbacks::add, rendered::add);
+  }
+
+  @Test
+  public void valuesAreRenderedOnTheNextFrame() {
+    underTest.accept("a");
+
+    assertThat(rendered, is(empty()));
+
+    runFrame();
+
+    assertThat(rendered, contains("a"));
+  }
+
+  @Test
+  public void onlyTheLatestValueInAFrameIsRendered() {
+    underTest.accept("a");
+    underTest.accept("b");
+    underTest.accept("c");
+
+    assertThat(frameCallbacks.size(), is(1));
+
+    runFrame();
+
+    assertThat(rendered, contains("c"));
+    assertThat(underTest.getSkippedCount(), is(2L));
+  }
+
+  @Test
+  public void eachFrameRendersItsOwnLatestValue() {
+    underTest.accept("a");
+    runFrame();
+    underTest.accept("b");
+    runFrame();
+
+    assertThat(rendered, contains("a", "b"));
+    assertThat(underTest.getSkippedCount(), is(0L));
+  }
+
+  @Test
+  public void cancelledValuesAreNotRendered() {
+    underTest.accept("a");
+    underTest.cancel();
+    runFrame();
+
+    assertThat(rendered, is(empty()));
+
+    underTest.accept("b");
+    runFrame();
+
+    assertThat(rendered, contains("b"));
+  }
+
+  private void runFrame() {
+    List<Runnable> callbacks = new ArrayList<>(frameCallbacks);
+    frameCallbacks.clear();
+    for (Runnable callback : callbacks) {
+      callback.run();
+    }
+  }
+}
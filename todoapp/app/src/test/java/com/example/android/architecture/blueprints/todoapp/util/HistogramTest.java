@@ -0,0 +1,72 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.Test;
+
+public class HistogramTest {
+
+  private final Histogram mHistogram = new Histogram();
+
+  @Test
+  public void anEmptyHistogramReportsZero() {
+    assertThat(mHistogram.getCount(), is(0L));
+    assertThat(mHistogram.getPercentile(50), is(0L));
+    assertThat(mHistogram.getMax(), is(0L));
+  }
+
+  @Test
+  public void percentilesAreBoundedByTheirPowerOfTwoBucket() {
+    for (int i = 1; i <= 100; i++) {
+      mHistogram.record(i);
+    }
+
+    // The 50th value is 50, which falls in [32, 64).
+    assertThat(mHistogram.getPercentile(50), is(63L));
+    // The 10th value is 10, which falls in [8, 16).
+    assertThat(mHistogram.getPercentile(10), is(15L));
+    assertThat(mHistogram.getCount(), is(100L));
+  }
+
+  @Test
+  public void percentilesNeverExceedTheLargestValue() {
+    mHistogram.record(3);
+    mHistogram.record(70);
+
+    assertThat(mHistogram.getPercentile(100), is(70L));
+    assertThat(mHistogram.getMax(), is(70L));
+  }
+
+  @Test
+  public void zeroAndNegativeValuesAreRecordedAsZero() {
+    mHistogram.record(0);
+    mHistogram.record(-5);
+
+    assertThat(mHistogram.getCount(), is(2L));
+    assertThat(mHistogram.getPercentile(100), is(0L));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void percentilesAboveOneHundredAreRejected() {
+    mHistogram.getPercentile(101);
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import io.reactivex.Observable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.subjects.PublishSubject;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LatestWinsTest {
+
+  private Map<String, PublishSubject<String>> operations;
+  private PublishSubject<String> upstream;
+  private LatestWins<String, String> underTest;
+  private TestObserver<String> results;
+
+  @Before
+  public void setUp() throws Exception {
+    operations = new HashMap<>();
+    upstream = PublishSubject.create();
+    underTest =
+        new LatestWins<>(
+            item -> {
+              PublishSubject<String> operation = PublishSubject.create();
+              operations.put(item, operation);
+              return operation;
+            });
+    results = upstream.compose(underTest).test();
+  }
+
+  @Test
+  public void aNewItemCancelsTheOperationInFlight() {
+    upstream.onNext("a");
+    upstream.onNext("b");
+
+    assertThat(operations.get("a").hasObservers(), is(false));
+    assertThat(underTest.getCancelledCount(), is(1L));
+
+    operations.get("b").onNext("b done");
+    results.assertValues("b done");
+  }
+
+  @Test
+  public void finishedOperationsAreNotCountedAsCancelled() {
+    upstream.onNext("a");
+    operations.get("a").onNext("a done");
+    operations.get("a").onComplete();
+    upstream.onNext("b");
+
+    results.assertValues("a done");
+    assertThat(underTest.getCancelledCount(), is(0L));
+  }
+
+  @Test
+  public void failedOperationsAreNotCountedAsCancelled() {
+    underTest = new LatestWins<>(item -> Observable.<String>error(new RuntimeException()));
+    results = upstream.compose(underTest).test();
+
+    upstream.onNext("a");
+
+    results.assertError(RuntimeException.class);
+    assertThat(underTest.getCancelledCount(), is(0L));
+  }
+}
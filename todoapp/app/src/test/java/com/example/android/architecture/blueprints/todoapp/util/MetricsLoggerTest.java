@@ -0,0 +1,197 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.util;
+
+import static com.spotify.mobius.Effects.effects;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.google.common.collect.ImmutableMap;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.EventSource;
+import com.spotify.mobius.First;
+import com.spotify.mobius.Next;
+import com.spotify.mobius.disposables.Disposable;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Function;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+public class MetricsLoggerTest {
+
+  private long mNow;
+
+  private final MetricsLogger<String, String, Object> mLogger =
+      new MetricsLogger<>("test", () -> mNow, null);
+
+  private final Function<String, String> mRender =
+      mLogger.taggingRenders(model -> "view of " + model);
+
+  @Test
+  public void recordsHowLongEachUpdateTakes() {
+    mLogger.beforeUpdate("model", "event");
+    mNow += 40_000;
+    mLogger.afterUpdate("model", "event", Next.noChange());
+
+    assertThat(mLogger.getUpdateLatencyMicros().getCount(), is(1L));
+    assertThat(mLogger.getUpdateLatencyMicros().getMax(), is(40L));
+  }
+
+  @Test
+  public void recordsRenderLatencyFromTheOldestUnrenderedEvent() {
+    mLogger.beforeUpdate("model", "first");
+    mLogger.afterUpdate("model", "first", Next.next("model 1"));
+    mNow += 5_000;
+    mLogger.beforeUpdate("model 1", "second");
+    mLogger.afterUpdate("model 1", "second", Next.next("model 2"));
+    mNow += 10_000;
+
+    mLogger.onRendered(mRender.apply("model 2"));
+
+    assertThat(mLogger.getRenderLatencyMicros().getCount(), is(1L));
+    assertThat(mLogger.getRenderLatencyMicros().getMax(), is(15L));
+  }
+
+  @Test
+  public void attributesRenderLatencyToTheModelThatWasRendered() {
+    mLogger.beforeUpdate("model", "first");
+    mLogger.afterUpdate("model", "first", Next.next("model 1"));
+    String firstRender = mRender.apply("model 1");
+    mNow += 5_000;
+    mLogger.beforeUpdate("model 1", "second");
+    mLogger.afterUpdate("model 1", "second", Next.next("model 2"));
+    String secondRender = mRender.apply("model 2");
+    mNow += 10_000;
+
+    mLogger.onRendered(firstRender);
+    assertThat(mLogger.getRenderLatencyMicros().getMax(), is(15L));
+
+    mNow += 10_000;
+    mLogger.onRendered(secondRender);
+    assertThat(mLogger.getRenderLatencyMicros().getCount(), is(2L));
+    assertThat(mLogger.getRenderLatencyMicros().getMax(), is(20L));
+  }
+
+  @Test
+  public void doesNotRecordRenderLatencyWhenTheModelDidNotChange() {
+    mLogger.beforeUpdate("model", "event");
+    mLogger.afterUpdate("model", "event", Next.dispatch(effects("effect")));
+
+    mLogger.onRendered(mRender.apply("model"));
+
+    assertThat(mLogger.getRenderLatencyMicros().getCount(), is(0L));
+  }
+
+  @Test
+  public void countsEffectsByType() {
+    mLogger.afterInit("model", First.first("model", effects(1)));
+    mLogger.beforeUpdate("model", "event");
+    mLogger.afterUpdate("model", "event", Next.dispatch(effects("a", 2L, 3)));
+
+    assertThat(
+        mLogger.getEffectCounts(), is(ImmutableMap.of("Integer", 2L, "Long", 1L, "String", 1L)));
+  }
+
+  @Test
+  public void readsReportedCountsWhenAsked() {
+    AtomicLong skipped = new AtomicLong();
+    mLogger.reportCount("skipped", skipped::get);
+    skipped.set(3);
+
+    assertThat(mLogger.getReportedCounts(), is(ImmutableMap.of("skipped", 3L)));
+  }
+
+  @Test
+  public void recordsHowManyEventsAreWaitingWhenAnUpdateStarts() {
+    AtomicReference<Consumer<String>> loop = new AtomicReference<>();
+    EventSource<String> source =
+        mLogger.countedEventSource(
+            consumer -> {
+              loop.set(consumer);
+              return () -> {};
+            });
+    source.subscribe(event -> {});
+
+    loop.get().accept("a");
+    loop.get().accept("b");
+    loop.get().accept("c");
+    mLogger.beforeUpdate("model", "a");
+    mLogger.afterUpdate("model", "a", Next.noChange());
+
+    assertThat(mLogger.getQueueDepth().getCount(), is(1L));
+    assertThat(mLogger.getQueueDepth().getMax(), is(2L));
+  }
+
+  @Test
+  public void countsEventsThatWereNeverProcessedAsDropped() {
+    AtomicReference<Consumer<String>> loop = new AtomicReference<>();
+    EventSource<String> source =
+        mLogger.countedEventSource(
+            consumer -> {
+              loop.set(consumer);
+              return () -> {};
+            });
+    Disposable subscription = source.subscribe(event -> {});
+
+    loop.get().accept("a");
+    loop.get().accept("b");
+    mLogger.beforeUpdate("model", "a");
+    mLogger.afterUpdate("model", "a", Next.noChange());
+    subscription.dispose();
+    loop.get().accept("c");
+
+    assertThat(mLogger.getDroppedEventCount(), is(2L));
+  }
+
+  @Test
+  public void startingALoopStartsCountingQueueDepthOver() {
+    AtomicReference<Consumer<String>> view = new AtomicReference<>();
+    mLogger
+        .<String>countedConnectable(
+            output -> {
+              view.set(output);
+              return new Connection<String>() {
+                @Override
+                public void accept(String value) {}
+
+                @Override
+                public void dispose() {}
+              };
+            })
+        .connect(event -> {});
+
+    view.get().accept("sent while stopped");
+    mLogger.beforeInit("model");
+    view.get().accept("a");
+    mLogger.beforeUpdate("model", "a");
+    mLogger.afterUpdate("model", "a", Next.noChange());
+
+    assertThat(mLogger.getDroppedEventCount(), is(1L));
+    assertThat(mLogger.getQueueDepth().getMax(), is(0L));
+  }
+
+  @Test
+  public void doesNotRecordQueueDepthWhenEventsAreNotCounted() {
+    mLogger.beforeUpdate("model", "event");
+    mLogger.afterUpdate("model", "event", Next.noChange());
+
+    assertThat(mLogger.getQueueDepth().getCount(), is(0L));
+  }
+}
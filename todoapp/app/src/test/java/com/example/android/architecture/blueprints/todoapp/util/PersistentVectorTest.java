@@ -0,0 +1,106 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class PersistentVectorTest {
+
+  // Enough elements for a trie three levels deep.
+  private static final int SIZE = 40_000;
+
+  @Test
+  public void copyOfKeepsElementsInOrder() {
+    List<Integer> elements = range(SIZE);
+
+    PersistentVector<Integer> vector = PersistentVector.copyOf(elements);
+
+    assertThat(vector.size(), is(SIZE));
+    for (int i = 0; i < SIZE; i++) {
+      assertThat(vector.get(i), is(i));
+    }
+  }
+
+  @Test
+  public void appendingBuildsTheSameListAsCopying() {
+    PersistentVector<Integer> vector = PersistentVector.empty();
+    for (int i = 0; i < SIZE; i++) {
+      vector = vector.plus(i);
+    }
+
+    assertThat(vector, is(PersistentVector.copyOf(range(SIZE))));
+  }
+
+  @Test
+  public void withReplacesOneElementAndLeavesTheOriginalUntouched() {
+    PersistentVector<Integer> vector = PersistentVector.copyOf(range(SIZE));
+
+    PersistentVector<Integer> updated = vector.with(1234, -1);
+
+    assertThat(updated.get(1234), is(-1));
+    assertThat(vector.get(1234), is(1234));
+    assertThat(updated.size(), is(SIZE));
+    assertThat(updated, is(not(vector)));
+  }
+
+  @Test
+  public void withTheSameElementReturnsTheSameVector() {
+    PersistentVector<Integer> vector = PersistentVector.copyOf(range(SIZE));
+
+    assertThat(vector.with(10, vector.get(10)), is(sameInstance(vector)));
+  }
+
+  @Test
+  public void equalityAndHashCodeFollowList() {
+    List<Integer> list = range(100);
+    list.set(50, -1);
+    PersistentVector<Integer> vector = PersistentVector.copyOf(range(100)).with(50, -1);
+
+    assertThat(vector.equals(list), is(true));
+    assertThat(list.equals(vector), is(true));
+    assertThat(vector.hashCode(), is(list.hashCode()));
+  }
+
+  @Test
+  public void copyOfAVectorReturnsIt() {
+    PersistentVector<Integer> vector = PersistentVector.copyOf(range(10));
+
+    assertThat(PersistentVector.copyOf(vector), is(sameInstance(vector)));
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void getOutOfBoundsThrows() {
+    PersistentVector.copyOf(range(32)).get(32);
+  }
+
+  private static List<Integer> range(int size) {
+    List<Integer> list = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      list.add(i);
+    }
+    return list;
+  }
+}
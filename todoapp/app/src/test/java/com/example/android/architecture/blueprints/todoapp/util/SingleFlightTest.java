@@ -0,0 +1,89 @@
+/*
+ * -\-\-
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.example.android.architecture.blueprints.todoapp.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import io.reactivex.Single;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.subjects.SingleSubject;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SingleFlightTest {
+
+  private SingleSubject<String> upstream;
+  private AtomicInteger subscriptions;
+  private SingleFlight<String> underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    upstream = SingleSubject.create();
+    subscriptions = new AtomicInteger();
+    underTest = new SingleFlight<>(upstream.doOnSubscribe(__ -> subscriptions.incrementAndGet()));
+  }
+
+  @Test
+  public void concurrentRequestsShareOneUpstreamCall() {
+    TestObserver<String> first = underTest.get().test();
+    TestObserver<String> second = underTest.get().test();
+    upstream.onSuccess("result");
+
+    first.assertValue("result");
+    second.assertValue("result");
+    assertThat(subscriptions.get(), is(1));
+    assertThat(underTest.getRequestCount(), is(2L));
+    assertThat(underTest.getDeduplicatedCount(), is(1L));
+  }
+
+  @Test
+  public void errorsAreSharedWithEveryWaitingRequest() {
+    TestObserver<String> first = underTest.get().test();
+    TestObserver<String> second = underTest.get().test();
+    upstream.onError(new RuntimeException("failed"));
+
+    first.assertError(RuntimeException.class);
+    second.assertError(RuntimeException.class);
+    assertThat(subscriptions.get(), is(1));
+  }
+
+  @Test
+  public void requestsAfterCompletionStartANewCall() {
+    AtomicInteger calls = new AtomicInteger();
+    SingleFlight<Integer> underTest =
+        new SingleFlight<>(Single.fromCallable(calls::incrementAndGet));
+
+    underTest.get().test().assertValue(1);
+    underTest.get().test().assertValue(2);
+    assertThat(underTest.getDeduplicatedCount(), is(0L));
+  }
+
+  @Test
+  public void requestsAreNotMadeUntilSubscribedTo() {
+    Single<String> request = underTest.get();
+
+    assertThat(subscriptions.get(), is(0));
+    assertThat(underTest.getRequestCount(), is(0L));
+
+    request.test();
+    assertThat(subscriptions.get(), is(1));
+  }
+}